@@ -0,0 +1,106 @@
+package pl.wsztajerowski.journal;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.nio.file.Files.createTempFile;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+// Random reads of a 64 MiB journal by many callers, each with IN_FLIGHT reads at a time: readAsync hands them to the
+// journal's read threads and waits for all of them, while read blocks the caller on one record after another.
+@State(Scope.Benchmark)
+public class AsyncReadJournalPerformanceBenchmark {
+    private static final long JOURNAL_SIZE = 1L << 26;
+    private static final int BATCH_SIZE = 1024;
+    private static final int IN_FLIGHT = 32;
+
+    @Param({"1", "4", "16"})
+    int readThreads;
+
+    @Param({"1024"})
+    int payloadSize;
+
+    Journal journal;
+    Path dataFilePath;
+    long[] offsets;
+
+    @Setup
+    public void setup() throws IOException {
+        dataFilePath = createTempFile("jmh-journal", ".dat");
+        // staging lets producers reuse their buffers
+        journal = Journal.open(dataFilePath, false, JournalOptions.defaultOptions()
+            .readThreads(readThreads)
+            .stagingArenaSize(1 << 23));
+        JournalByteBuffer[] batch = new JournalByteBuffer[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch[i] = createJournalByteBuffer(payloadSize);
+            ByteBuffer content = batch[i].getContentBuffer();
+            while (content.hasRemaining()) {
+                content.put((byte) i);
+            }
+            content.flip();
+        }
+        int numberOfBatches = (int) (JOURNAL_SIZE / ((long) payloadSize * BATCH_SIZE));
+        offsets = new long[numberOfBatches * BATCH_SIZE];
+        for (int i = 0; i < numberOfBatches; i++) {
+            System.arraycopy(journal.writeAll(batch), 0, offsets, i * BATCH_SIZE, BATCH_SIZE);
+        }
+        journal.flush();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        Files.deleteIfExists(dataFilePath);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadScopeState {
+        JournalByteBuffer[] buffers;
+        CompletableFuture<?>[] futures;
+
+        @Setup
+        public void setup(AsyncReadJournalPerformanceBenchmark benchmark) {
+            buffers = new JournalByteBuffer[IN_FLIGHT];
+            for (int i = 0; i < IN_FLIGHT; i++) {
+                buffers[i] = createJournalByteBuffer(benchmark.payloadSize);
+            }
+            futures = new CompletableFuture<?>[IN_FLIGHT];
+        }
+    }
+
+    @Benchmark
+    @Threads(16)
+    @OperationsPerInvocation(IN_FLIGHT)
+    public void readAsync(ThreadScopeState threadScopeState, Blackhole blackhole) {
+        for (int i = 0; i < IN_FLIGHT; i++) {
+            JournalByteBuffer buffer = threadScopeState.buffers[i];
+            buffer.getContentBuffer().clear();
+            threadScopeState.futures[i] = journal.readAsync(buffer, randomLocation());
+        }
+        blackhole.consume(CompletableFuture.allOf(threadScopeState.futures).join());
+    }
+
+    @Benchmark
+    @Threads(16)
+    @OperationsPerInvocation(IN_FLIGHT)
+    public void read(ThreadScopeState threadScopeState, Blackhole blackhole) {
+        for (int i = 0; i < IN_FLIGHT; i++) {
+            JournalByteBuffer buffer = threadScopeState.buffers[i];
+            buffer.getContentBuffer().clear();
+            blackhole.consume(journal.read(buffer, randomLocation()));
+        }
+    }
+
+    private Location randomLocation() {
+        return new Location(offsets[ThreadLocalRandom.current().nextInt(offsets.length)]);
+    }
+}
@@ -0,0 +1,72 @@
+package pl.wsztajerowski.journal;
+
+import org.openjdk.jmh.annotations.*;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.Files.createTempFile;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+// Both benchmarks write batchSize records per invocation, so their scores compare directly.
+@State(Scope.Benchmark)
+public class BatchWriteJournalPerformanceBenchmark {
+
+    @Param({"RING_BUFFER", "MAPPED"})
+    WriteMode writeMode;
+
+    @Param({"1", "16", "64"})
+    int batchSize;
+
+    Journal journal;
+    Path dataFilePath;
+
+    @Setup
+    public void setup() throws IOException {
+        dataFilePath = createTempFile("jmh-journal", ".dat");
+        // staging lets producers reuse their buffers
+        journal = Journal.open(dataFilePath, false, JournalOptions.defaultOptions()
+            .writeMode(writeMode)
+            .stagingArenaSize(1 << 23));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        Files.deleteIfExists(dataFilePath);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadScopeState {
+        JournalByteBuffer[] buffers;
+
+        @Setup
+        public void setup(BatchWriteJournalPerformanceBenchmark benchmark) {
+            buffers = new JournalByteBuffer[benchmark.batchSize];
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = createJournalByteBuffer(4);
+                buffers[i].getContentBuffer()
+                    .putInt(0, i)
+                    .limit(4);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long writeOneByOne(ThreadScopeState threadScopeState) {
+        long lastOffset = 0;
+        for (JournalByteBuffer buffer : threadScopeState.buffers) {
+            lastOffset = journal.write(buffer).offset();
+        }
+        return lastOffset;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long[] writeAll(ThreadScopeState threadScopeState) {
+        return journal.writeAll(threadScopeState.buffers);
+    }
+}
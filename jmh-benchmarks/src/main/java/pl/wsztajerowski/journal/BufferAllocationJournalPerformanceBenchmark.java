@@ -0,0 +1,89 @@
+package pl.wsztajerowski.journal;
+
+import org.openjdk.jmh.annotations.*;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+import pl.wsztajerowski.journal.records.JournalByteBufferFactory;
+import pl.wsztajerowski.journal.records.JournalByteBufferPool;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.Files.createTempFile;
+
+// Compares allocation rates of buffer backings with and without pooling - run with -prof gc and compare gc.alloc.rate.norm:
+// java -jar jmh-benchmarks/target/jmh-benchmarks.jar BufferAllocationJournalPerformanceBenchmark -prof gc
+@State(Scope.Benchmark)
+public class BufferAllocationJournalPerformanceBenchmark {
+
+    @Param({"HEAP", "DIRECT", "MEMORY_SEGMENT"})
+    String backing;
+
+    @Param({"false", "true"})
+    boolean pooled;
+
+    @Param({"64", "4096"})
+    int payloadSize;
+
+    Journal journal;
+    Path dataFilePath;
+    JournalByteBufferFactory factory;
+    JournalByteBufferPool pool;
+
+    @Setup
+    public void setup() throws IOException {
+        dataFilePath = createTempFile("jmh-journal", ".dat");
+        // staging lets producers reuse their buffers
+        journal = Journal.open(dataFilePath, false, JournalOptions.defaultOptions().stagingArenaSize(1 << 23));
+        factory = switch (backing) {
+            case "HEAP" -> JournalByteBufferFactory.heap();
+            case "DIRECT" -> JournalByteBufferFactory.direct();
+            case "MEMORY_SEGMENT" -> JournalByteBufferFactory.memorySegment(Arena.ofAuto());
+            default -> throw new IllegalArgumentException("Unknown backing: " + backing);
+        };
+        pool = JournalByteBufferPool.create(factory);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        Files.deleteIfExists(dataFilePath);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public JournalByteBuffer allocateAndFill() {
+        JournalByteBuffer buffer = acquire();
+        fill(buffer);
+        release(buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Location allocateAndWrite() {
+        JournalByteBuffer buffer = acquire();
+        fill(buffer);
+        Location location = journal.write(buffer);
+        release(buffer);
+        return location;
+    }
+
+    private JournalByteBuffer acquire() {
+        return pooled ? pool.acquire(payloadSize) : factory.allocate(payloadSize);
+    }
+
+    private void release(JournalByteBuffer buffer) {
+        if (pooled) {
+            pool.release(buffer);
+        }
+    }
+
+    private void fill(JournalByteBuffer buffer) {
+        ByteBuffer content = buffer.getContentBuffer();
+        content.limit(payloadSize);
+        content.putLong(0, System.nanoTime());
+    }
+}
@@ -0,0 +1,83 @@
+package pl.wsztajerowski.journal;
+
+import org.openjdk.jmh.annotations.*;
+import pl.wsztajerowski.journal.records.ChecksumType;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32C;
+
+import static java.nio.file.Files.createTempFile;
+import static pl.wsztajerowski.journal.records.ChecksumCalculator.computeChecksum;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+@State(Scope.Thread)
+public class ChecksumJournalPerformanceBenchmark {
+
+    @Param({"NONE", "CRC32C"})
+    ChecksumType checksumType;
+
+    @Param({"16", "256", "4096", "65536"})
+    int payloadSize;
+
+    ByteBuffer payload;
+    Journal journal;
+    Journal unverifiedJournal;
+    Path dataFilePath;
+    Location location;
+    JournalByteBuffer readBuffer;
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] bytes = new byte[payloadSize];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        payload = ByteBuffer.allocateDirect(payloadSize).put(bytes).flip();
+
+        dataFilePath = createTempFile("jmh-journal", ".dat");
+        journal = Journal.open(dataFilePath, false, JournalOptions.defaultOptions()
+            .checksumType(checksumType));
+        JournalByteBuffer record = createJournalByteBuffer(payloadSize);
+        record.getContentBuffer().put(payload.duplicate()).flip();
+        location = journal.write(record);
+        journal.flush();
+        unverifiedJournal = Journal.open(dataFilePath, false, JournalOptions.defaultOptions()
+            .verifyChecksums(false));
+        readBuffer = createJournalByteBuffer(payloadSize);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        unverifiedJournal.close();
+        journal.close();
+        Files.deleteIfExists(dataFilePath);
+    }
+
+    @Benchmark
+    public int checksum() {
+        return computeChecksum(checksumType, payload);
+    }
+
+    // the allocation per call that reusable per-thread checksum state avoids
+    @Benchmark
+    public long crc32cPerCall() {
+        CRC32C checksum = new CRC32C();
+        checksum.update(payload.duplicate());
+        return checksum.getValue();
+    }
+
+    @Benchmark
+    public ByteBuffer readVerified() {
+        readBuffer.clear();
+        return journal.read(readBuffer, location);
+    }
+
+    @Benchmark
+    public ByteBuffer readUnverified() {
+        readBuffer.clear();
+        return unverifiedJournal.read(readBuffer, location);
+    }
+}
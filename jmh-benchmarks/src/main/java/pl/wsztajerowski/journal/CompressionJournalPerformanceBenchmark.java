@@ -0,0 +1,138 @@
+package pl.wsztajerowski.journal;
+
+import org.openjdk.jmh.annotations.*;
+import pl.wsztajerowski.journal.records.CompressionType;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createTempFile;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+// write: records/s, with the record bytes handed to the journal and the bytes the journal file grew by as secondary
+// results - their ratio is the compression ratio actually achieved.
+// readNeighbour walks records in order and mostly hits the decompressed block cache, readRandom mostly misses it.
+@State(Scope.Benchmark)
+public class CompressionJournalPerformanceBenchmark {
+    private static final int RECORDS_TO_READ = 10_000;
+
+    @Param({"NONE", "DEFLATE"})
+    CompressionType compression;
+
+    @Param({"256", "4096"})
+    int payloadSize;
+
+    Journal journal;
+    Path dataFilePath;
+    Journal readJournal;
+    Path readFilePath;
+    long[] offsets;
+    final AtomicLong claimedFileSize = new AtomicLong();
+
+    @Setup
+    public void setup() throws IOException {
+        // staging lets producers reuse their buffers
+        JournalOptions options = JournalOptions.defaultOptions()
+            .compression(compression)
+            .stagingArenaSize(1 << 23);
+        dataFilePath = createTempFile("jmh-journal", ".dat");
+        journal = Journal.open(dataFilePath, false, options);
+
+        readFilePath = createTempFile("jmh-journal", ".dat");
+        readJournal = Journal.open(readFilePath, false, options);
+        JournalByteBuffer[] records = new JournalByteBuffer[RECORDS_TO_READ];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = createJournalByteBuffer(payloadSize);
+            fill(records[i].getContentBuffer(), payloadSize, i);
+        }
+        offsets = readJournal.writeAll(records);
+        readJournal.flush();
+        claimedFileSize.set(Files.size(dataFilePath));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        readJournal.close();
+        journal.close();
+        Files.deleteIfExists(readFilePath);
+        Files.deleteIfExists(dataFilePath);
+    }
+
+    // log-like content, so compression has something to work with
+    static void fill(ByteBuffer content, int payloadSize, int sequence) {
+        byte[] line = "{\"sequence\":%08d,\"level\":\"INFO\",\"message\":\"order accepted\"}\n".formatted(sequence).getBytes(UTF_8);
+        while (content.position() < payloadSize) {
+            content.put(line, 0, Math.min(line.length, payloadSize - content.position()));
+        }
+        content.flip();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadScopeState {
+        JournalByteBuffer record;
+        JournalByteBuffer readBuffer;
+        int nextRecord;
+
+        @Setup
+        public void setup(CompressionJournalPerformanceBenchmark benchmark) {
+            record = createJournalByteBuffer(benchmark.payloadSize);
+            fill(record.getContentBuffer(), benchmark.payloadSize, 0);
+            readBuffer = createJournalByteBuffer(benchmark.payloadSize);
+        }
+    }
+
+    // the first thread to finish an iteration claims the file growth since the previous claim, so the sum over threads is
+    // the growth during the iteration
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WriteCounters {
+        public long recordBytes;
+        public long fileBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            recordBytes = 0;
+            fileBytes = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void claimFileGrowth(CompressionJournalPerformanceBenchmark benchmark) throws IOException {
+            benchmark.journal.flush();
+            long fileSize = Files.size(benchmark.dataFilePath);
+            fileBytes = Math.max(0, fileSize - benchmark.claimedFileSize.getAndAccumulate(fileSize, Math::max));
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Location write(ThreadScopeState threadScopeState, WriteCounters writeCounters) {
+        Location location = journal.write(threadScopeState.record);
+        writeCounters.recordBytes += payloadSize;
+        return location;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public ByteBuffer readNeighbour(ThreadScopeState threadScopeState) {
+        threadScopeState.readBuffer.clear();
+        int next = threadScopeState.nextRecord++ % offsets.length;
+        return readJournal.read(threadScopeState.readBuffer, new Location(offsets[next]));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public ByteBuffer readRandom(ThreadScopeState threadScopeState) {
+        threadScopeState.readBuffer.clear();
+        int next = ThreadLocalRandom.current().nextInt(offsets.length);
+        return readJournal.read(threadScopeState.readBuffer, new Location(offsets[next]));
+    }
+}
@@ -0,0 +1,79 @@
+package pl.wsztajerowski.journal;
+
+import org.openjdk.jmh.annotations.*;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.nio.file.Files.createTempFile;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+// Random reads of a 64 MiB journal by locations returned from writes, which carry the record length and take one read
+// of the whole record, and by offset-only locations, which read page by page starting with the one holding the header.
+@State(Scope.Benchmark)
+public class ExactReadJournalPerformanceBenchmark {
+    private static final long JOURNAL_SIZE = 1L << 26;
+
+    public enum LocationKind {
+        OFFSET_ONLY,
+        WITH_LENGTH
+    }
+
+    @Param({"64", "4096", "65536", "1048576"})
+    int payloadSize;
+
+    @Param({"OFFSET_ONLY", "WITH_LENGTH"})
+    LocationKind locationKind;
+
+    Journal journal;
+    Path dataFilePath;
+    Location[] locations;
+
+    @Setup
+    public void setup() throws IOException {
+        dataFilePath = createTempFile("jmh-journal", ".dat");
+        // staging lets producers reuse their buffers
+        journal = Journal.open(dataFilePath, false, JournalOptions.defaultOptions().stagingArenaSize(1 << 23));
+        JournalByteBuffer buffer = createJournalByteBuffer(payloadSize);
+        locations = new Location[(int) (JOURNAL_SIZE / payloadSize)];
+        for (int i = 0; i < locations.length; i++) {
+            ByteBuffer content = buffer.getContentBuffer().clear();
+            while (content.hasRemaining()) {
+                content.put((byte) i);
+            }
+            content.flip();
+            Location location = journal.write(buffer);
+            locations[i] = locationKind == LocationKind.WITH_LENGTH ? location : new Location(location.offset());
+        }
+        journal.flush();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        Files.deleteIfExists(dataFilePath);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadScopeState {
+        JournalByteBuffer buffer;
+
+        @Setup
+        public void setup(ExactReadJournalPerformanceBenchmark benchmark) {
+            buffer = createJournalByteBuffer(benchmark.payloadSize);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ByteBuffer readRandomRecord(ThreadScopeState threadScopeState) {
+        Location location = locations[ThreadLocalRandom.current().nextInt(locations.length)];
+        JournalByteBuffer buffer = threadScopeState.buffer;
+        buffer.getContentBuffer().clear();
+        return journal.read(buffer, location);
+    }
+}
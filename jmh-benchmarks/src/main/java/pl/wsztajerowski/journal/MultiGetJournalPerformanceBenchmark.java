@@ -0,0 +1,110 @@
+package pl.wsztajerowski.journal;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.nio.file.Files.createTempFile;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+// Reads batches of records from a 64 MiB journal with one readAll against a loop of single reads. CLUSTERED batches pick
+// records among the 4 * batchSize records following a random one, as a join of records written close in time does;
+// SCATTERED batches pick them from the whole journal, so there is little to coalesce. Scores are batches per second.
+@State(Scope.Benchmark)
+public class MultiGetJournalPerformanceBenchmark {
+    private static final long JOURNAL_SIZE = 1L << 26;
+
+    public enum Locality {
+        CLUSTERED,
+        SCATTERED
+    }
+
+    @Param({"16", "256"})
+    int batchSize;
+
+    @Param({"CLUSTERED", "SCATTERED"})
+    Locality locality;
+
+    @Param({"256"})
+    int payloadSize;
+
+    Journal journal;
+    Path dataFilePath;
+    Location[] locations;
+
+    @Setup
+    public void setup() throws IOException {
+        dataFilePath = createTempFile("jmh-journal", ".dat");
+        // staging lets producers reuse their buffers
+        journal = Journal.open(dataFilePath, false, JournalOptions.defaultOptions().stagingArenaSize(1 << 23));
+        JournalByteBuffer buffer = createJournalByteBuffer(payloadSize);
+        locations = new Location[(int) (JOURNAL_SIZE / payloadSize)];
+        for (int i = 0; i < locations.length; i++) {
+            ByteBuffer content = buffer.getContentBuffer().clear();
+            while (content.hasRemaining()) {
+                content.put((byte) i);
+            }
+            content.flip();
+            locations[i] = journal.write(buffer);
+        }
+        journal.flush();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        Files.deleteIfExists(dataFilePath);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadScopeState {
+        List<JournalByteBuffer> buffers;
+        List<Location> batch;
+
+        @Setup
+        public void setup(MultiGetJournalPerformanceBenchmark benchmark) {
+            buffers = new ArrayList<>();
+            for (int i = 0; i < benchmark.batchSize; i++) {
+                buffers.add(createJournalByteBuffer(benchmark.payloadSize));
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void pickBatch(MultiGetJournalPerformanceBenchmark benchmark) {
+            for (JournalByteBuffer buffer : buffers) {
+                buffer.getContentBuffer().clear();
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Location[] locations = benchmark.locations;
+            int range = benchmark.locality == Locality.CLUSTERED ? 4 * benchmark.batchSize : locations.length;
+            int first = random.nextInt(locations.length - range + 1);
+            batch = new ArrayList<>(benchmark.batchSize);
+            for (int i = 0; i < benchmark.batchSize; i++) {
+                batch.add(locations[first + random.nextInt(range)]);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<ByteBuffer> readAll(ThreadScopeState threadScopeState) {
+        return journal.readAll(threadScopeState.batch, threadScopeState.buffers);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void readEach(ThreadScopeState threadScopeState, Blackhole blackhole) {
+        List<Location> batch = threadScopeState.batch;
+        for (int i = 0; i < batch.size(); i++) {
+            blackhole.consume(journal.read(threadScopeState.buffers.get(i), batch.get(i)));
+        }
+    }
+}
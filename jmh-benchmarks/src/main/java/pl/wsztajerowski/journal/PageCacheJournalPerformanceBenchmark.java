@@ -0,0 +1,95 @@
+package pl.wsztajerowski.journal;
+
+import org.openjdk.jmh.annotations.*;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+import pl.wsztajerowski.journal.records.PageCache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.nio.file.Files.createTempFile;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+// Random reads of a 256 MiB journal through page caches smaller than it. RECENT reads only the newest tenth of the records,
+// the access pattern of readers following writers; the hit ratio of each trial is printed on tear down.
+@State(Scope.Benchmark)
+public class PageCacheJournalPerformanceBenchmark {
+    private static final long JOURNAL_SIZE = 1L << 28;
+    private static final int BATCH_SIZE = 1024;
+
+    public enum Access {
+        UNIFORM,
+        RECENT
+    }
+
+    @Param({"0", "8388608", "67108864"})
+    long pageCacheSize;
+
+    @Param({"UNIFORM", "RECENT"})
+    Access access;
+
+    @Param({"256"})
+    int payloadSize;
+
+    Journal journal;
+    Path dataFilePath;
+    long[] offsets;
+    int firstReadRecord;
+
+    @Setup
+    public void setup() throws IOException {
+        dataFilePath = createTempFile("jmh-journal", ".dat");
+        // staging lets producers reuse their buffers
+        journal = Journal.open(dataFilePath, false, JournalOptions.defaultOptions()
+            .pageCacheSize(pageCacheSize)
+            .stagingArenaSize(1 << 23));
+        JournalByteBuffer[] batch = new JournalByteBuffer[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch[i] = createJournalByteBuffer(payloadSize);
+            ByteBuffer content = batch[i].getContentBuffer();
+            while (content.hasRemaining()) {
+                content.put((byte) i);
+            }
+            content.flip();
+        }
+        int numberOfBatches = (int) (JOURNAL_SIZE / ((long) payloadSize * BATCH_SIZE));
+        offsets = new long[numberOfBatches * BATCH_SIZE];
+        for (int i = 0; i < numberOfBatches; i++) {
+            System.arraycopy(journal.writeAll(batch), 0, offsets, i * BATCH_SIZE, BATCH_SIZE);
+        }
+        journal.flush();
+        firstReadRecord = access == Access.RECENT ? offsets.length - offsets.length / 10 : 0;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        PageCache.Statistics statistics = journal.pageCacheStatistics();
+        if (statistics.hits() + statistics.misses() > 0) {
+            System.out.printf("%nPage hit ratio: %.3f%n", (double) statistics.hits() / (statistics.hits() + statistics.misses()));
+        }
+        journal.close();
+        Files.deleteIfExists(dataFilePath);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadScopeState {
+        JournalByteBuffer buffer;
+
+        @Setup
+        public void setup(PageCacheJournalPerformanceBenchmark benchmark) {
+            buffer = createJournalByteBuffer(benchmark.payloadSize);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ByteBuffer readRandomRecord(ThreadScopeState threadScopeState) {
+        long offset = offsets[ThreadLocalRandom.current().nextInt(firstReadRecord, offsets.length)];
+        JournalByteBuffer buffer = threadScopeState.buffer;
+        buffer.getContentBuffer().clear();
+        return journal.read(buffer, new Location(offset));
+    }
+}
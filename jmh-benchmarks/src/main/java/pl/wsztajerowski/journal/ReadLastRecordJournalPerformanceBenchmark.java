@@ -22,7 +22,8 @@ public class ReadLastRecordJournalPerformanceBenchmark {
     @Setup
     public void setup() throws IOException {
         dataFilePath = createTempFile("jmh-journal", ".dat");
-        journal = Journal.open(dataFilePath, false);
+        // staging lets producers reuse their buffers
+        journal = Journal.open(dataFilePath, false, JournalOptions.defaultOptions().stagingArenaSize(1 << 23));
         queue = new MpmcUnboundedXaddArrayQueue<>(1000);
     }
 
@@ -44,8 +45,9 @@ public class ReadLastRecordJournalPerformanceBenchmark {
     @Benchmark
     @GroupThreads(5)
     @Group("journal_mpmc")
-    public Location produceElement() {
-        JournalByteBuffer buffer = createJournalByteBuffer(4);
+    public Location produceElement(ThreadScopeState threadScopeState) {
+        // the journal stages a copy of the record, so the thread's buffer can be reused right away
+        JournalByteBuffer buffer = threadScopeState.buffer;
         ByteBuffer input = buffer.getContentBuffer();
         input.clear();
         input.putInt(41);
@@ -70,7 +72,7 @@ public class ReadLastRecordJournalPerformanceBenchmark {
             return null;
         }
         try {
-            return journal.readAsync(output, location);
+            return journal.readAsync(output, location).join();
         } catch (JournalException e) {
             System.out.printf("Reading record %s throws an exception. Data file: %s %n", location, dataFilePath);
             throw e;
@@ -0,0 +1,80 @@
+package pl.wsztajerowski.journal;
+
+import org.openjdk.jmh.annotations.*;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.nio.file.Files.createTempFile;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+@State(Scope.Benchmark)
+public class ReadPathJournalPerformanceBenchmark {
+    private static final int NUMBER_OF_RECORDS = 100_000;
+
+    public enum ReadPath {
+        CHANNEL_COPY,
+        MAPPED_COPY,
+        MAPPED_VIEW
+    }
+
+    @Param({"CHANNEL_COPY", "MAPPED_COPY", "MAPPED_VIEW"})
+    ReadPath readPath;
+
+    @Param({"4", "64", "1024", "16384"})
+    int payloadSize;
+
+    Journal journal;
+    Path dataFilePath;
+    Location[] locations;
+
+    @Setup
+    public void setup() throws IOException {
+        dataFilePath = createTempFile("jmh-journal", ".dat");
+        journal = Journal.open(dataFilePath, false, JournalOptions.defaultOptions()
+            .readMode(readPath == ReadPath.CHANNEL_COPY ? ReadMode.CHANNEL : ReadMode.MAPPED));
+        JournalByteBuffer buffer = createJournalByteBuffer(payloadSize);
+        locations = new Location[NUMBER_OF_RECORDS];
+        for (int i = 0; i < NUMBER_OF_RECORDS; i++) {
+            ByteBuffer content = buffer.getContentBuffer().clear();
+            while (content.hasRemaining()) {
+                content.put((byte) i);
+            }
+            content.flip();
+            locations[i] = journal.writeAsync(buffer).join();
+        }
+        journal.flush();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        Files.deleteIfExists(dataFilePath);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadScopeState {
+        JournalByteBuffer buffer;
+
+        @Setup
+        public void setup(ReadPathJournalPerformanceBenchmark benchmark) {
+            buffer = createJournalByteBuffer(benchmark.payloadSize);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ByteBuffer readRandomRecord(ThreadScopeState threadScopeState) {
+        Location location = locations[ThreadLocalRandom.current().nextInt(NUMBER_OF_RECORDS)];
+        if (readPath == ReadPath.MAPPED_VIEW) {
+            return journal.readView(location);
+        }
+        JournalByteBuffer buffer = threadScopeState.buffer;
+        buffer.getContentBuffer().clear();
+        return journal.read(buffer, location);
+    }
+}
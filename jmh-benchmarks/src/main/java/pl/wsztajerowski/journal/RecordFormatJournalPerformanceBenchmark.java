@@ -0,0 +1,66 @@
+package pl.wsztajerowski.journal;
+
+import org.openjdk.jmh.annotations.*;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+import pl.wsztajerowski.journal.records.RecordFormat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.Files.createTempFile;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+// V2 records are numbered, timestamped and have both folded into their checksum by the writer thread, so producers only
+// write 16 more bytes per record. Short runs vary a lot between forks - use several forks and iterations before comparing
+// V1 with V2.
+@State(Scope.Benchmark)
+public class RecordFormatJournalPerformanceBenchmark {
+
+    @Param({"V1", "V2"})
+    RecordFormat recordFormat;
+
+    @Param({"RING_BUFFER", "GROUP_COMMIT"})
+    WriteMode writeMode;
+
+    @Param({"16", "256"})
+    int payloadSize;
+
+    Journal journal;
+    Path dataFilePath;
+
+    @Setup
+    public void setup() throws IOException {
+        dataFilePath = createTempFile("jmh-journal", ".dat");
+        // staging lets producers reuse their buffers
+        journal = Journal.open(dataFilePath, false, JournalOptions.defaultOptions()
+            .recordFormat(recordFormat)
+            .writeMode(writeMode)
+            .stagingArenaSize(1 << 23));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        Files.deleteIfExists(dataFilePath);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadScopeState {
+        JournalByteBuffer buffer;
+
+        @Setup
+        public void setup(RecordFormatJournalPerformanceBenchmark benchmark) {
+            buffer = createJournalByteBuffer(benchmark.payloadSize);
+            buffer.getContentBuffer()
+                .putLong(0, System.nanoTime())
+                .limit(benchmark.payloadSize);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Location write(ThreadScopeState threadScopeState) {
+        return journal.write(threadScopeState.buffer);
+    }
+}
@@ -0,0 +1,96 @@
+package pl.wsztajerowski.journal;
+
+import org.openjdk.jmh.annotations.*;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+import pl.wsztajerowski.journal.records.RecordHeader;
+import pl.wsztajerowski.journal.records.SparseIndex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.Files.createTempFile;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+// Time to open a journal whose last record was torn by a crash: the scan for the end of valid records and the truncation.
+// Without an index the whole journal is scanned; with one the scan starts at the last indexed record. A journal that was
+// not crashed keeps the end of records saved by its clean close, so none of them is scanned.
+// The journal file stays in the page cache between invocations, so this measures scanning and checksumming rather than disk reads.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RecoveryJournalPerformanceBenchmark {
+    private static final int BATCH_SIZE = 1024;
+    private static final int PAYLOAD_SIZE = 1024;
+
+    @Param({"256", "1024"})
+    int journalSizeMiB;
+
+    @Param({"65536", "4194304"})
+    int readAheadSize;
+
+    @Param({"0", "4096"})
+    int indexInterval;
+
+    @Param({"true", "false"})
+    boolean crashed;
+
+    Path dataFilePath;
+    JournalOptions options;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dataFilePath = createTempFile("jmh-journal", ".dat");
+        // staging lets producers reuse their buffers
+        options = JournalOptions.defaultOptions()
+            .readAheadSize(readAheadSize)
+            .indexInterval(indexInterval)
+            .stagingArenaSize(1 << 23);
+        JournalByteBuffer[] batch = new JournalByteBuffer[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch[i] = createJournalByteBuffer(PAYLOAD_SIZE);
+            ByteBuffer content = batch[i].getContentBuffer();
+            while (content.hasRemaining()) {
+                content.put((byte) i);
+            }
+            content.flip();
+        }
+        try (Journal journal = Journal.open(dataFilePath, true, options)) {
+            long numberOfBatches = ((long) journalSizeMiB << 20) / ((long) PAYLOAD_SIZE * BATCH_SIZE);
+            for (long i = 0; i < numberOfBatches; i++) {
+                journal.writeAll(batch);
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void tearTail() throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(dataFilePath, StandardOpenOption.WRITE)) {
+            if (crashed) {
+                // the clean-close checkpoint follows the prefix, schema version and record format of the header
+                fileChannel.write(ByteBuffer.allocate(2 * Long.BYTES), 3 * Integer.BYTES);
+            }
+            fileChannel.write(ByteBuffer.allocate(64)
+                .putInt(RecordHeader.RECORD_PREFIX)
+                .putInt(PAYLOAD_SIZE)
+                .flip(), fileChannel.size());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(dataFilePath);
+        Files.deleteIfExists(SparseIndex.indexPath(dataFilePath));
+    }
+
+    @Benchmark
+    public long openTornJournal() throws IOException {
+        try (Journal journal = Journal.open(dataFilePath, false, options)) {
+            return journal.writtenPosition();
+        }
+    }
+}
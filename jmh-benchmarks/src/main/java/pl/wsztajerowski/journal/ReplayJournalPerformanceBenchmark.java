@@ -0,0 +1,102 @@
+package pl.wsztajerowski.journal;
+
+import org.openjdk.jmh.annotations.*;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+import pl.wsztajerowski.journal.records.Record;
+import pl.wsztajerowski.journal.records.RecordCursor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static java.nio.file.Files.createTempFile;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+// Each invocation replays the whole journal; the bytes counter reports replayed bytes per second, so bytes / 1e9 is GB/s.
+// readEach replays the same records with one positioned read per record as a baseline.
+@State(Scope.Benchmark)
+public class ReplayJournalPerformanceBenchmark {
+    private static final long JOURNAL_SIZE = 1L << 27;
+    private static final int BATCH_SIZE = 1024;
+
+    @Param({"65536", "1048576", "8388608"})
+    int readAheadSize;
+
+    @Param({"64", "1024"})
+    int payloadSize;
+
+    Journal journal;
+    Path dataFilePath;
+    long[] offsets;
+
+    @Setup
+    public void setup() throws IOException {
+        dataFilePath = createTempFile("jmh-journal", ".dat");
+        // staging lets producers reuse their buffers
+        journal = Journal.open(dataFilePath, false, JournalOptions.defaultOptions()
+            .readAheadSize(readAheadSize)
+            .stagingArenaSize(1 << 23));
+        JournalByteBuffer[] batch = new JournalByteBuffer[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch[i] = createJournalByteBuffer(payloadSize);
+            ByteBuffer content = batch[i].getContentBuffer();
+            while (content.hasRemaining()) {
+                content.put((byte) i);
+            }
+            content.flip();
+        }
+        int numberOfBatches = (int) (JOURNAL_SIZE / ((long) payloadSize * BATCH_SIZE));
+        offsets = new long[numberOfBatches * BATCH_SIZE];
+        for (int i = 0; i < numberOfBatches; i++) {
+            System.arraycopy(journal.writeAll(batch), 0, offsets, i * BATCH_SIZE, BATCH_SIZE);
+        }
+        journal.flush();
+        journal.awaitWritten(new Location(Arrays.stream(offsets).max().orElseThrow()));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        Files.deleteIfExists(dataFilePath);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class ThreadScopeState {
+        public long bytes;
+        JournalByteBuffer buffer;
+
+        @Setup
+        public void setup(ReplayJournalPerformanceBenchmark benchmark) {
+            buffer = createJournalByteBuffer(benchmark.payloadSize);
+        }
+    }
+
+    @Benchmark
+    public long scan(ThreadScopeState threadScopeState) {
+        long checksum = 0;
+        try (RecordCursor cursor = journal.scan(new Location(offsets[0]))) {
+            while (cursor.hasNext()) {
+                Record record = cursor.next();
+                checksum += record.buffer().get(0);
+                threadScopeState.bytes += record.buffer().remaining();
+            }
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public long readEach(ThreadScopeState threadScopeState) {
+        long checksum = 0;
+        JournalByteBuffer buffer = threadScopeState.buffer;
+        for (long offset : offsets) {
+            buffer.getContentBuffer().clear();
+            ByteBuffer content = journal.read(buffer, new Location(offset));
+            checksum += content.get(0);
+            threadScopeState.bytes += content.remaining();
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,65 @@
+package pl.wsztajerowski.journal;
+
+import org.openjdk.jmh.annotations.*;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.Files.createTempFile;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+// sample time mode reports round-trip latency percentiles (p50 ... p99.99)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RoundTripLatencyJournalPerformanceBenchmark {
+
+    @Param({"RING_BUFFER", "GROUP_COMMIT", "MAPPED"})
+    WriteMode writeMode;
+
+    Journal journal;
+    Path dataFilePath;
+
+    @Setup
+    public void setup() throws IOException {
+        dataFilePath = createTempFile("jmh-journal", ".dat");
+        journal = Journal.open(dataFilePath, false, JournalOptions.defaultOptions()
+            .writeMode(writeMode));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        Files.deleteIfExists(dataFilePath);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadScopeState {
+        JournalByteBuffer writeBuffer;
+        JournalByteBuffer readBuffer;
+
+        @Setup
+        public void setup() {
+            writeBuffer = createJournalByteBuffer(4);
+            readBuffer = createJournalByteBuffer(4);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ByteBuffer readYourWrite(ThreadScopeState threadScopeState) {
+        ByteBuffer input = threadScopeState.writeBuffer.getContentBuffer();
+        input.clear();
+        input.putInt(41);
+        input.flip();
+        Location location = journal.writeAsync(threadScopeState.writeBuffer)
+            .join();
+        threadScopeState.readBuffer.getContentBuffer()
+            .clear();
+        return journal.read(threadScopeState.readBuffer, location);
+    }
+}
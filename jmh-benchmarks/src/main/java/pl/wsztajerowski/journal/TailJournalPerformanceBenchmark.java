@@ -0,0 +1,78 @@
+package pl.wsztajerowski.journal;
+
+import org.openjdk.jmh.annotations.*;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+import pl.wsztajerowski.journal.records.Record;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.Files.createTempFile;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+// Time from writing a record until a subscriber tailing the journal has received it.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TailJournalPerformanceBenchmark {
+
+    @Param({"RING_BUFFER", "GROUP_COMMIT"})
+    WriteMode writeMode;
+
+    Journal journal;
+    Path dataFilePath;
+    JournalByteBuffer buffer;
+    final AtomicLong delivered = new AtomicLong();
+    long written;
+
+    @Setup
+    public void setup() throws IOException {
+        dataFilePath = createTempFile("jmh-journal", ".dat");
+        journal = Journal.open(dataFilePath, false, JournalOptions.defaultOptions()
+            .writeMode(writeMode));
+        buffer = createJournalByteBuffer(64);
+        Location first = write();
+        journal.subscribe(first).subscribe(new Flow.Subscriber<>() {
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            public void onNext(Record record) {
+                delivered.incrementAndGet();
+            }
+
+            public void onError(Throwable throwable) {
+            }
+
+            public void onComplete() {
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        Files.deleteIfExists(dataFilePath);
+    }
+
+    @Benchmark
+    public long writeAndAwaitDelivery() {
+        write();
+        while (delivered.get() < written) {
+            Thread.onSpinWait();
+        }
+        return written;
+    }
+
+    private Location write() {
+        ByteBuffer content = buffer.getContentBuffer().clear();
+        content.putLong(0, written++)
+            .limit(64);
+        return journal.write(buffer);
+    }
+}
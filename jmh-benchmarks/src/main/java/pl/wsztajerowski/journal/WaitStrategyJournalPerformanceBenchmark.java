@@ -0,0 +1,87 @@
+package pl.wsztajerowski.journal;
+
+import com.sun.management.OperatingSystemMXBean;
+import org.openjdk.jmh.annotations.*;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.nio.file.Files.createTempFile;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+// Latency percentiles come from sample time mode; process CPU usage per iteration is printed
+// after each iteration, so the idle cost of every strategy can be compared with its latency.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WaitStrategyJournalPerformanceBenchmark {
+    private static final OperatingSystemMXBean OS = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+    @Param({"BUSY_SPIN", "YIELD", "BACKOFF", "BLOCKING"})
+    WaitStrategy.Mode waitStrategy;
+
+    // gap between writes, so the writer goes idle between them
+    @Param({"0", "100", "1000"})
+    long idleGapMicros;
+
+    Journal journal;
+    Path dataFilePath;
+    JournalByteBuffer buffer;
+    long iterationStartCpuNanos;
+    long iterationStartNanos;
+
+    @Setup
+    public void setup() throws IOException {
+        dataFilePath = createTempFile("jmh-journal", ".dat");
+        journal = Journal.open(dataFilePath, false, JournalOptions.defaultOptions()
+            .waitStrategy(switch (waitStrategy) {
+                case BUSY_SPIN -> WaitStrategy.busySpin();
+                case YIELD -> WaitStrategy.yielding();
+                case BACKOFF -> WaitStrategy.backoff();
+                case BLOCKING -> WaitStrategy.blocking();
+            }));
+        buffer = createJournalByteBuffer(4);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        Files.deleteIfExists(dataFilePath);
+    }
+
+    @Setup(Level.Iteration)
+    public void startCpuClock() {
+        iterationStartCpuNanos = OS.getProcessCpuTime();
+        iterationStartNanos = System.nanoTime();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportCpuUsage() {
+        double cores = (double) (OS.getProcessCpuTime() - iterationStartCpuNanos) / (System.nanoTime() - iterationStartNanos);
+        System.out.printf("%n[%s, gap %d us] process CPU: %.2f cores%n", waitStrategy, idleGapMicros, cores);
+    }
+
+    // invocation level keeps the gap out of the measured time; the timestamp overhead is small next to a write
+    @Setup(Level.Invocation)
+    public void idleGap() {
+        if (idleGapMicros > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(idleGapMicros));
+        }
+    }
+
+    @Benchmark
+    public Location writeAndAwaitAcknowledgement() {
+        ByteBuffer content = buffer.getContentBuffer();
+        content.clear();
+        content.putInt(41);
+        content.flip();
+        return journal.writeAsync(buffer)
+            .join();
+    }
+}
@@ -0,0 +1,72 @@
+package pl.wsztajerowski.journal;
+
+import org.openjdk.jmh.annotations.*;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.Files.createTempFile;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+@State(Scope.Benchmark)
+public class WriteModeJournalPerformanceBenchmark {
+
+    @Param({"RING_BUFFER", "GROUP_COMMIT", "MAPPED"})
+    WriteMode writeMode;
+
+    @Param({"NONE", "GROUP_COMMIT"})
+    DurabilityPolicy.Mode durability;
+
+    @Param({"4", "64", "1024", "16384", "65536"})
+    int payloadSize;
+
+    Journal journal;
+    Path dataFilePath;
+
+    @Setup
+    public void setup() throws IOException {
+        dataFilePath = createTempFile("jmh-journal", ".dat");
+        DurabilityPolicy durabilityPolicy = durability == DurabilityPolicy.Mode.NONE
+            ? DurabilityPolicy.none()
+            : DurabilityPolicy.groupCommit();
+        journal = Journal.open(dataFilePath, false, JournalOptions.defaultOptions()
+            .writeMode(writeMode)
+            .durabilityPolicy(durabilityPolicy));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        Files.deleteIfExists(dataFilePath);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadScopeState {
+        JournalByteBuffer buffer;
+
+        @Setup
+        public void setup(WriteModeJournalPerformanceBenchmark benchmark) {
+            buffer = createJournalByteBuffer(benchmark.payloadSize);
+            ByteBuffer content = buffer.getContentBuffer();
+            while (content.hasRemaining()) {
+                content.put((byte) 41);
+            }
+        }
+    }
+
+    @Benchmark
+    @GroupThreads(5)
+    @Group("journal_write")
+    public Location produceElement(ThreadScopeState threadScopeState) {
+        JournalByteBuffer buffer = threadScopeState.buffer;
+        buffer.getContentBuffer()
+            .clear();
+        return journal
+            .writeAsync(buffer)
+            .join();
+    }
+
+}
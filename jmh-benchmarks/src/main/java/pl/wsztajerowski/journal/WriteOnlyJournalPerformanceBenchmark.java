@@ -2,16 +2,21 @@ package pl.wsztajerowski.journal;
 
 import org.openjdk.jmh.annotations.*;
 import pl.wsztajerowski.journal.records.JournalByteBuffer;
+import pl.wsztajerowski.journal.records.RecordRingBuffer;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.nio.file.Files.createTempFile;
 import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
 
 @State(Scope.Benchmark)
 public class WriteOnlyJournalPerformanceBenchmark {
+    private static final long WRITE_CHUNK_SIZE = 524_288L;
 
     Journal journal;
     Path dataFilePath;
@@ -19,7 +24,8 @@ public class WriteOnlyJournalPerformanceBenchmark {
     @Setup
     public void setup() throws IOException {
         dataFilePath = createTempFile("jmh-journal", ".dat");
-        journal = Journal.open(dataFilePath, false);
+        // staging lets producers reuse their buffers
+        journal = Journal.open(dataFilePath, false, JournalOptions.defaultOptions().stagingArenaSize(1 << 23));
     }
 
     @TearDown
@@ -37,6 +43,83 @@ public class WriteOnlyJournalPerformanceBenchmark {
         }
     }
 
+    // Staging structure used by Journal.write before the ring buffer - drained the same way RecordWriteChannel did, without I/O
+    @State(Scope.Group)
+    public static class SkipListStagingState {
+        final ConcurrentNavigableMap<Long, ByteBuffer> queue = new ConcurrentSkipListMap<>();
+        final AtomicLong virtualPosition = new AtomicLong();
+        volatile boolean running;
+        Thread consumer;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            running = true;
+            consumer = Thread.ofPlatform().start(() -> {
+                long lastWrittenPosition = WRITE_CHUNK_SIZE;
+                while (running) {
+                    if (queue.isEmpty()) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    Long lastPositionToWrite = queue.lowerKey(lastWrittenPosition);
+                    if (lastPositionToWrite == null) {
+                        lastWrittenPosition += WRITE_CHUNK_SIZE;
+                        continue;
+                    }
+                    var recordsToWrite = queue.headMap(lastPositionToWrite, true);
+                    ByteBuffer[] buffers = recordsToWrite.values().toArray(new ByteBuffer[0]);
+                    if (buffers.length > 0) {
+                        recordsToWrite.keySet().removeIf(key -> true);
+                    }
+                    lastWrittenPosition += WRITE_CHUNK_SIZE;
+                }
+            });
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws InterruptedException {
+            running = false;
+            consumer.join();
+            queue.clear();
+        }
+    }
+
+    @State(Scope.Group)
+    public static class RingStagingState {
+        static final int STAGING_ARENA_SIZE = 1 << 23;
+        RecordRingBuffer queue;
+        volatile boolean running;
+        Thread consumer;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            queue = new RecordRingBuffer(Journal.WRITING_QUEUE_CAPACITY, 0, STAGING_ARENA_SIZE);
+            running = true;
+            consumer = Thread.ofPlatform().start(() -> {
+                ByteBuffer[] buffers = new ByteBuffer[queue.capacity()];
+                while (running) {
+                    int count = queue.drain(buffers, WRITE_CHUNK_SIZE);
+                    if (count == 0) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    long bytes = 0;
+                    for (int i = 0; i < count; i++) {
+                        bytes += buffers[i].remaining();
+                    }
+                    queue.release(count, bytes);
+                }
+            });
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws InterruptedException {
+            running = false;
+            queue.close();
+            consumer.join();
+        }
+    }
+
     @Benchmark
     @GroupThreads(5)
     @Group("journal_write")
@@ -50,4 +133,30 @@ public class WriteOnlyJournalPerformanceBenchmark {
             .write(buffer);
     }
 
+    @Benchmark
+    @GroupThreads(5)
+    @Group("staging_skip_list")
+    public long stageInSkipList(ThreadScopeState threadScopeState, SkipListStagingState stagingState) {
+        ByteBuffer writableBuffer = prepareRecord(threadScopeState);
+        long position = stagingState.virtualPosition.getAndAdd(writableBuffer.remaining());
+        stagingState.queue.put(position, writableBuffer);
+        return position;
+    }
+
+    @Benchmark
+    @GroupThreads(5)
+    @Group("staging_ring_buffer")
+    public long stageInRingBuffer(ThreadScopeState threadScopeState, RingStagingState stagingState) {
+        return stagingState.queue.offer(prepareRecord(threadScopeState));
+    }
+
+    private static ByteBuffer prepareRecord(ThreadScopeState threadScopeState) {
+        JournalByteBuffer buffer = threadScopeState.buffer;
+        ByteBuffer input = buffer.getContentBuffer();
+        input.clear();
+        input.putInt(41);
+        input.flip();
+        return buffer.getWritableBuffer();
+    }
+
 }
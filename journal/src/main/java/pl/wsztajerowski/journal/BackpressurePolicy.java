@@ -0,0 +1,44 @@
+package pl.wsztajerowski.journal;
+
+import java.time.Duration;
+
+public record BackpressurePolicy(Mode mode, long maxPendingBytes, int maxPendingRecords, long timeoutNanos) {
+    public enum Mode {
+        // pending writes are bounded only by the writing queue capacity
+        UNBOUNDED,
+        // producers wait until pending writes drain below the limits
+        BLOCK,
+        // producers wait up to timeoutNanos, then get PendingWritesLimitExceededException
+        TIMEOUT,
+        // producers get PendingWritesLimitExceededException right away
+        REJECT
+    }
+
+    public BackpressurePolicy {
+        if (mode == null) {
+            throw new IllegalArgumentException("Backpressure mode must be provided");
+        }
+        if (mode != Mode.UNBOUNDED && (maxPendingBytes <= 0 || maxPendingRecords <= 0)) {
+            throw new IllegalArgumentException("Backpressure requires positive pending bytes and records limits - actual: %d bytes, %d records".formatted(maxPendingBytes, maxPendingRecords));
+        }
+        if (mode == Mode.TIMEOUT && timeoutNanos <= 0) {
+            throw new IllegalArgumentException("Backpressure timeout must be positive - actual: %d ns".formatted(timeoutNanos));
+        }
+    }
+
+    public static BackpressurePolicy unbounded() {
+        return new BackpressurePolicy(Mode.UNBOUNDED, Long.MAX_VALUE, Integer.MAX_VALUE, 0);
+    }
+
+    public static BackpressurePolicy block(long maxPendingBytes, int maxPendingRecords) {
+        return new BackpressurePolicy(Mode.BLOCK, maxPendingBytes, maxPendingRecords, 0);
+    }
+
+    public static BackpressurePolicy timeout(long maxPendingBytes, int maxPendingRecords, Duration timeout) {
+        return new BackpressurePolicy(Mode.TIMEOUT, maxPendingBytes, maxPendingRecords, timeout.toNanos());
+    }
+
+    public static BackpressurePolicy reject(long maxPendingBytes, int maxPendingRecords) {
+        return new BackpressurePolicy(Mode.REJECT, maxPendingBytes, maxPendingRecords, 0);
+    }
+}
@@ -1,5 +1,7 @@
 package pl.wsztajerowski.journal;
 
+import java.nio.ByteBuffer;
+
 public class BytesUtils {
     public static byte[] toByteArray(int value, int value2) {
         return new byte[] {
@@ -32,4 +34,20 @@ public class BytesUtils {
             ((bytes[intIndex*4+2] & 0xFF) << 8 ) |
             ((bytes[intIndex*4+3] & 0xFF));
     }
+
+    // copies the remaining bytes of the buffers, one after another, into a new heap buffer; the buffers are not consumed
+    public static ByteBuffer merge(ByteBuffer[] buffers) {
+        long size = 0;
+        for (ByteBuffer buffer : buffers) {
+            size += buffer.remaining();
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too large to write at once: " + size + " bytes");
+        }
+        ByteBuffer merged = ByteBuffer.allocate((int) size);
+        for (ByteBuffer buffer : buffers) {
+            merged.put(buffer.duplicate());
+        }
+        return merged.flip();
+    }
 }
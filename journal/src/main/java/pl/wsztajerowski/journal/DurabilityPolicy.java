@@ -0,0 +1,35 @@
+package pl.wsztajerowski.journal;
+
+import java.time.Duration;
+
+public record DurabilityPolicy(Mode mode, long intervalNanos, long intervalBytes) {
+    public enum Mode {
+        // acknowledged once written to the page cache
+        NONE,
+        // acknowledged after a single force() covering the whole drained batch
+        GROUP_COMMIT,
+        // acknowledged after the next force(), issued every intervalNanos or intervalBytes
+        INTERVAL
+    }
+
+    public DurabilityPolicy {
+        if (mode == null) {
+            throw new IllegalArgumentException("Durability mode must be provided");
+        }
+        if (mode == Mode.INTERVAL && (intervalNanos <= 0 || intervalBytes <= 0)) {
+            throw new IllegalArgumentException("Interval durability requires positive time and bytes thresholds - actual: %d ns, %d bytes".formatted(intervalNanos, intervalBytes));
+        }
+    }
+
+    public static DurabilityPolicy none() {
+        return new DurabilityPolicy(Mode.NONE, 0, 0);
+    }
+
+    public static DurabilityPolicy groupCommit() {
+        return new DurabilityPolicy(Mode.GROUP_COMMIT, 0, 0);
+    }
+
+    public static DurabilityPolicy interval(Duration interval, long bytes) {
+        return new DurabilityPolicy(Mode.INTERVAL, interval.toNanos(), bytes);
+    }
+}
@@ -1,110 +1,351 @@
 package pl.wsztajerowski.journal;
 
+import pl.wsztajerowski.journal.records.BlockIndex;
+import pl.wsztajerowski.journal.records.ChecksumType;
+import pl.wsztajerowski.journal.records.CompressionType;
 import pl.wsztajerowski.journal.records.JournalByteBuffer;
+import pl.wsztajerowski.journal.records.PageCache;
+import pl.wsztajerowski.journal.records.PendingRecords;
+import pl.wsztajerowski.journal.records.Record;
+import pl.wsztajerowski.journal.records.RecordCompressedReadChannel;
+import pl.wsztajerowski.journal.records.RecordCursor;
+import pl.wsztajerowski.journal.records.RecordFormat;
+import pl.wsztajerowski.journal.records.RecordGroupCommitChannel;
+import pl.wsztajerowski.journal.records.RecordMappedChannel;
+import pl.wsztajerowski.journal.records.RecordMappedReadChannel;
 import pl.wsztajerowski.journal.records.RecordReadChannel;
+import pl.wsztajerowski.journal.records.RecordReadChannel.RecordsEnd;
+import pl.wsztajerowski.journal.records.RecordReader;
+import pl.wsztajerowski.journal.records.RecordRingBuffer;
+import pl.wsztajerowski.journal.records.RecordSubscription;
 import pl.wsztajerowski.journal.records.RecordWriteChannel;
+import pl.wsztajerowski.journal.records.RecordWriter;
+import pl.wsztajerowski.journal.records.SparseIndex;
 
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicLong;
 
 import static pl.wsztajerowski.journal.BytesUtils.fromByteArray;
 import static pl.wsztajerowski.journal.BytesUtils.toByteArray;
-import static pl.wsztajerowski.journal.records.RecordHeader.recordHeaderLength;
 
 public class Journal implements AutoCloseable {
-    private static final int NUMBER_OF_INTS_IN_HEADER = 2;
+    private static final int NUMBER_OF_INTS_IN_HEADER_PREFIX = 2;
     static final int JOURNAL_PREFIX = 0xCAFEBABE;
     static final int SCHEMA_VERSION_V1 = 0x0FF1CE01;
-    static final List<Integer> SUPPORTED_SCHEMA_VERSIONS = List.of(SCHEMA_VERSION_V1);
+    static final int SCHEMA_VERSION_V2 = 0x0FF1CE02;
+    static final int SCHEMA_VERSION_V3 = 0x0FF1CE03;
+    static final int SCHEMA_VERSION_V4 = 0x0FF1CE04;
+    static final int SCHEMA_VERSION_V5 = 0x0FF1CE05;
+    static final List<Integer> SUPPORTED_SCHEMA_VERSIONS = List.of(SCHEMA_VERSION_V1, SCHEMA_VERSION_V2, SCHEMA_VERSION_V3, SCHEMA_VERSION_V4, SCHEMA_VERSION_V5);
+    static final int WRITING_QUEUE_CAPACITY = 16_384;
 
-    private final RecordReadChannel readChannel;
-    private final RecordWriteChannel writeChannel;
+    private final Path path;
+    private final JournalHeader header;
+    private final RecordReader readChannel;
+    private final RecordWriter writeChannel;
+    private final ChecksumType checksumType;
+    private final RecordFormat recordFormat;
+    // null unless records are indexed
+    private final SparseIndex sparseIndex;
+    private final int readAheadSize;
+    // null unless pages are cached
+    private final PageCache pageCache;
+    private final Set<RecordSubscription> subscriptions = ConcurrentHashMap.newKeySet();
 
     private final ExecutorService writeChannelExecutor = Executors.newSingleThreadExecutor();
-    private final ConcurrentNavigableMap<Long, ByteBuffer> writingQueue;
-    private final AtomicLong virtualPosition;
+    private final int readThreads;
+    private final Object readExecutorLock = new Object();
+    // created on the first readAsync, so journals that never read asynchronously keep no pool
+    private volatile ExecutorService readExecutor;
+    private boolean asyncReadsClosed;
 
-    Journal(RecordReadChannel readChannel, RecordWriteChannel writeChannel, ConcurrentNavigableMap<Long, ByteBuffer> writingQueue, long initJournalFilePosition) {
+    private Journal(Path path, JournalHeader header, RecordReader readChannel, RecordWriter writeChannel, SparseIndex sparseIndex, int readAheadSize, PageCache pageCache, int readThreads) {
+        this.path = path;
+        this.header = header;
         this.readChannel = readChannel;
         this.writeChannel = writeChannel;
-        this.writingQueue = writingQueue;
-        writeChannelExecutor.submit(writeChannel);
-        virtualPosition = new AtomicLong(initJournalFilePosition);
+        this.checksumType = header.checksumType();
+        this.recordFormat = header.recordFormat();
+        this.sparseIndex = sparseIndex;
+        this.readAheadSize = readAheadSize;
+        this.pageCache = pageCache;
+        this.readThreads = readThreads;
+        if (writeChannel instanceof Runnable writerLoop) {
+            writeChannelExecutor.submit(writerLoop);
+        }
     }
 
+    // header of new journals, which their first record follows
     static int journalHeaderLength() {
-        return NUMBER_OF_INTS_IN_HEADER * Integer.BYTES;
+        return JournalHeader.CHECKPOINT_POSITION + JournalHeader.CHECKPOINT_LENGTH;
+    }
+
+    // prefix and schema version, which every header starts with - the whole v01 header
+    private static int headerPrefixLength() {
+        return NUMBER_OF_INTS_IN_HEADER_PREFIX * Integer.BYTES;
     }
 
     public static Journal open(Path path, boolean truncateFile) {
+        return open(path, truncateFile, JournalOptions.defaultOptions());
+    }
+
+    public static Journal open(Path path, boolean truncateFile, JournalOptions options) {
+        JournalHeader header;
         try {
             // FIXME: FileChannel.open() with StandardOption.CREATE throws NoSuchFileException
             if (Files.notExists(path)) {
                 Files.createFile(path);
-                return createEmptyJournal(path);
+                return createEmptyJournal(path, options);
             }
 
             long journalFileSize = Files.size(path);
             if (truncateFile || journalFileSize == 0) {
-                return createEmptyJournal(path);
+                return createEmptyJournal(path, options);
             }
 
-            if (journalFileSize > 0 && journalFileSize < journalHeaderLength()) {
+            header = readHeader(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return initJournal(path, options, header);
+    }
+
+    // v01 journal header format: [ int prefix, int schemaVersion ] - records checksummed with CRC32C
+    // v02 journal header format: [ int prefix, int schemaVersion, int recordFormat ]
+    //     recordFormat: checksum type id in the low 16 bits, compression type id in the high 16 bits
+    // v03 journal header format: as v02, with records in the V2 format (sequence number and timestamp in the record header)
+    // v04 journal header format: [ int prefix, int schemaVersion, int recordFormat, long endOffset, long nextSequence ]
+    //     endOffset and nextSequence are saved by a clean close; endOffset is 0 while the journal is open or after a crash
+    //     compressed journals have checksummed block frames
+    // v05 journal header format: as v04, with records in the V2 format
+    private static JournalHeader readHeader(Path path) throws IOException {
+        if (Files.size(path) < headerPrefixLength()) {
+            throw new TooSmallJournalHeaderException();
+        }
+        try (FileInputStream inputStream = new FileInputStream(path.toFile())) {
+            byte[] header = inputStream.readNBytes(headerPrefixLength());
+            if (header.length < headerPrefixLength()) {
+                throw new TooSmallJournalHeaderException();
+            }
+            int headerPrefix = fromByteArray(header, 0);
+            if (headerPrefix != JOURNAL_PREFIX) {
+                throw new InvalidJournalHeaderException(headerPrefix);
+            }
+            int schemaVersion = fromByteArray(header, 1);
+            if (!SUPPORTED_SCHEMA_VERSIONS.contains(schemaVersion)) {
+                throw new UnsupportedJournalVersionException(schemaVersion);
+            }
+            if (schemaVersion == SCHEMA_VERSION_V1) {
+                return new JournalHeader(schemaVersion, ChecksumType.CRC32C, CompressionType.NONE);
+            }
+            byte[] recordFormatBytes = inputStream.readNBytes(Integer.BYTES);
+            if (recordFormatBytes.length < Integer.BYTES) {
+                throw new TooSmallJournalHeaderException();
+            }
+            int recordFormat = fromByteArray(recordFormatBytes, 0);
+            JournalHeader journalHeader;
+            try {
+                journalHeader = new JournalHeader(schemaVersion, ChecksumType.fromId(recordFormat & 0xFFFF), CompressionType.fromId(recordFormat >>> 16));
+            } catch (IllegalArgumentException e) {
+                throw new JournalException(e.getMessage());
+            }
+            if (!journalHeader.hasCheckpoint()) {
+                return journalHeader;
+            }
+            byte[] checkpointBytes = inputStream.readNBytes(JournalHeader.CHECKPOINT_LENGTH);
+            if (checkpointBytes.length < JournalHeader.CHECKPOINT_LENGTH) {
                 throw new TooSmallJournalHeaderException();
             }
+            ByteBuffer checkpoint = ByteBuffer.wrap(checkpointBytes);
+            return journalHeader.withCheckpoint(checkpoint.getLong(), checkpoint.getLong());
+        }
+    }
+
+    // new journals get a header with a clean-close checkpoint; journals with older headers are still opened, but have
+    // their records scanned on every open
+    private static Journal createEmptyJournal(Path path, JournalOptions options) {
+        int schemaVersion = options.recordFormat() == RecordFormat.V2 ? SCHEMA_VERSION_V5 : SCHEMA_VERSION_V4;
+        JournalHeader header = new JournalHeader(schemaVersion, options.checksumType(), options.compression());
+        try {
+            Files.write(path, header.toBytes());
+            // an index left from the previous content would point into the new one
+            Files.deleteIfExists(SparseIndex.indexPath(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return initJournal(path, options, header);
+    }
 
-            // v01 journal header format: [ int prefix, int schemaVersion ]
-            try (FileInputStream inputStream = new FileInputStream(path.toFile())) {
-                byte[] header = inputStream.readNBytes(journalHeaderLength());
-                if (header.length < journalHeaderLength()) {
-                    throw new TooSmallJournalHeaderException();
+    static RecordReader openReader(Path path, JournalOptions options) {
+        try {
+            JournalHeader header = readHeader(path);
+            BlockIndex blockIndex = header.isCompressed() ? scanBlocks(path, header) : null;
+            return openReader(path, options, header, blockIndex, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static RecordReader openReader(Path path, JournalOptions options, JournalHeader header, BlockIndex blockIndex, PageCache pageCache) {
+        if (header.isCompressed()) {
+            if (options.readMode() != ReadMode.CHANNEL) {
+                throw new JournalException("Compressed journals require channel read mode");
+            }
+            return RecordCompressedReadChannel.open(path, blockIndex, header.compressionType(), header.checksumType(), options.verifyChecksums(), header.recordFormat());
+        }
+        return switch (options.readMode()) {
+            case CHANNEL -> RecordReadChannel.open(path, header.checksumType(), options.verifyChecksums(), header.recordFormat(), pageCache);
+            case MAPPED -> RecordMappedReadChannel.open(path, options.mappedRegionSize(), header.checksumType(), options.verifyChecksums(), header.recordFormat());
+        };
+    }
+
+    private static Journal initJournal(Path path, JournalOptions options, JournalHeader header) {
+        if (header.isCompressed() && options.writeMode() != WriteMode.RING_BUFFER) {
+            throw new JournalException("Compressed journals require ring buffer write mode");
+        }
+        RecordFormat recordFormat = header.recordFormat();
+        if (recordFormat == RecordFormat.V2 && options.writeMode() == WriteMode.MAPPED) {
+            // mapped writes have no writer thread to number the records in file order
+            throw new JournalException("V2 records require ring buffer or group commit write mode");
+        }
+        if (options.indexInterval() > 0 && options.writeMode() == WriteMode.MAPPED) {
+            throw new JournalException("Record index requires ring buffer or group commit write mode");
+        }
+        if (options.pageCacheSize() > 0 && (options.readMode() != ReadMode.CHANNEL || header.isCompressed())) {
+            // mapped reads are served by the OS page cache, compressed reads by their block cache
+            throw new JournalException("Page cache requires channel read mode of an uncompressed journal");
+        }
+        long initJournalFilePosition;
+        long nextSequence = 0;
+        BlockIndex blockIndex = null;
+        SparseIndex sparseIndex = options.indexInterval() > 0
+            ? SparseIndex.open(SparseIndex.indexPath(path), options.indexInterval())
+            : null;
+        try {
+            long fileSize = Files.size(path);
+            if (header.isCompressed()) {
+                // locations of a compressed journal are uncompressed offsets, which continue after the last block; the
+                // file may end with preallocated space, or with a block torn by a crash, which are cut off
+                blockIndex = scanBlocks(path, header);
+                initJournalFilePosition = blockIndex.endOffset();
+                if (blockIndex.fileEndPosition() < fileSize) {
+                    truncate(path, blockIndex.fileEndPosition());
                 }
-                int headerPrefix = fromByteArray(header, 0);
-                if (headerPrefix != JOURNAL_PREFIX) {
-                    throw new InvalidJournalHeaderException(headerPrefix);
+            } else {
+                if (header.closedCleanly() && header.endOffset() <= fileSize) {
+                    // the records end where the clean close saved, so none of them is scanned
+                    initJournalFilePosition = header.endOffset();
+                    nextSequence = header.nextSequence();
+                } else {
+                    RecordsEnd recordsEnd = scanRecords(path, options, header, sparseIndex, fileSize);
+                    initJournalFilePosition = recordsEnd.endOffset();
+                    nextSequence = recordsEnd.nextSequence();
                 }
-                int schemaVersion = fromByteArray(header, 1);
-                if (!SUPPORTED_SCHEMA_VERSIONS.contains(schemaVersion)) {
-                    throw new UnsupportedJournalVersionException(schemaVersion);
+                if (initJournalFilePosition < fileSize) {
+                    truncate(path, initJournalFilePosition);
                 }
             }
+            if (header.closedCleanly()) {
+                // records written from now on are not covered by the checkpoint, until the next clean close
+                writeCheckpoint(path, 0, 0);
+            }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
-        return initJournal(path);
+        PageCache pageCache = options.pageCacheSize() > 0 ? PageCache.create(options.pageCacheSize()) : null;
+        RecordReader recordReader = openReader(path, options, header, blockIndex, pageCache);
+        if (sparseIndex != null) {
+            nextSequence = sparseIndex.catchUp(recordReader, recordFormat, header.length(), initJournalFilePosition);
+        } else if (recordFormat == RecordFormat.V2 && recordReader instanceof RecordCompressedReadChannel compressedReadChannel) {
+            nextSequence = compressedReadChannel.nextSequence();
+        }
+        RecordWriter recordWriter = switch (options.writeMode()) {
+            case RING_BUFFER -> {
+                RecordRingBuffer writingQueue = new RecordRingBuffer(WRITING_QUEUE_CAPACITY, initJournalFilePosition, options.stagingArenaSize());
+                yield RecordWriteChannel.open(path, writingQueue, options.durabilityPolicy(), options.preallocationSize(), options.waitStrategy(), options.backpressurePolicy(), header.compressionType(), blockIndex, recordFormat, header.checksumType(), nextSequence, sparseIndex);
+            }
+            case GROUP_COMMIT -> RecordGroupCommitChannel.open(path, options.durabilityPolicy(), initJournalFilePosition, options.preallocationSize(), options.backpressurePolicy(), recordFormat, header.checksumType(), nextSequence, sparseIndex);
+            case MAPPED -> RecordMappedChannel.open(path, options.durabilityPolicy(), initJournalFilePosition, options.mappedRegionSize());
+        };
+        if (pageCache != null) {
+            pageCache.trackWrittenPosition(recordWriter::writtenPosition);
+        }
+        return new Journal(path, header, recordReader, recordWriter, sparseIndex, options.readAheadSize(), pageCache, options.readThreads());
     }
 
-    private static Journal createEmptyJournal(Path path) {
-        try {
-            Files.write(path, toByteArray(Journal.JOURNAL_PREFIX, Journal.SCHEMA_VERSION_V1));
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+    // blocks below the end saved by a clean close are not verified
+    private static BlockIndex scanBlocks(Path path, JournalHeader header) {
+        return BlockIndex.scan(path, header.length(), header.hasCheckpoint(), header.endOffset());
+    }
+
+    // the file may end with preallocated space, or with a record torn by a crash; the records are scanned from the last
+    // indexed one, or from the start without an index, and whatever follows the last valid one is cut off by the caller
+    private static RecordsEnd scanRecords(Path path, JournalOptions options, JournalHeader header, SparseIndex sparseIndex, long fileSize) throws IOException {
+        try (RecordReadChannel scanChannel = RecordReadChannel.open(path, header.checksumType(), true, header.recordFormat())) {
+            long checkpoint = header.length();
+            if (sparseIndex != null) {
+                sparseIndex.truncate(fileSize);
+                SparseIndex.Entry lastEntry = sparseIndex.lastEntry();
+                checkpoint = lastEntry == null ? checkpoint : lastEntry.offset();
+            }
+            RecordsEnd recordsEnd = scanChannel.scanRecords(checkpoint, options.readAheadSize());
+            if (recordsEnd.endOffset() == checkpoint && checkpoint > header.length()) {
+                // the indexed record itself did not survive
+                recordsEnd = scanChannel.scanRecords(header.length(), options.readAheadSize());
+            }
+            return recordsEnd;
         }
-        return initJournal(path);
     }
 
-    private static Journal initJournal(Path path) {
-        ConcurrentNavigableMap<Long, ByteBuffer> writingQueue = new ConcurrentSkipListMap<>();
-        RecordWriteChannel recordWriteChannel = RecordWriteChannel.open(path, writingQueue);
-        long initJournalFilePosition = recordWriteChannel.getCurrentPosition();
-        return new Journal(RecordReadChannel.open(path), recordWriteChannel, writingQueue, initJournalFilePosition);
+    // the records are forced before the header tells where they end, so a crash cannot leave it pointing past them
+    private static void writeCheckpoint(Path path, long endOffset, long nextSequence) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            fileChannel.force(false);
+            ByteBuffer checkpoint = ByteBuffer.allocate(JournalHeader.CHECKPOINT_LENGTH)
+                .putLong(endOffset)
+                .putLong(nextSequence)
+                .flip();
+            while (checkpoint.hasRemaining()) {
+                fileChannel.write(checkpoint, JournalHeader.CHECKPOINT_POSITION + checkpoint.position());
+            }
+            fileChannel.force(false);
+        }
+    }
+
+    private static void truncate(Path path, long size) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            fileChannel.truncate(size);
+            fileChannel.force(true);
+        }
     }
 
     public void close() throws IOException {
+        List<RecordSubscription> openSubscriptions = List.copyOf(subscriptions);
+        openSubscriptions.forEach(RecordSubscription::complete);
+        openSubscriptions.forEach(RecordSubscription::awaitTermination);
         try {
             try {
                 writeChannelExecutor.shutdown();
+                awaitAsyncReads();
                 readChannel.close();
             } finally {
-                writeChannel.close();
+                try {
+                    writeChannel.close();
+                } finally {
+                    if (sparseIndex != null) {
+                        sparseIndex.close();
+                    }
+                }
             }
         } finally {
             try {
@@ -115,35 +356,260 @@ public class Journal implements AutoCloseable {
                 writeChannelExecutor.shutdownNow();
             }
         }
+        if (header.hasCheckpoint()) {
+            // reached only when the writer closed cleanly, so the next open can skip scanning the records
+            writeCheckpoint(path, writeChannel.writtenPosition(), writeChannel.nextSequence());
+        }
     }
 
-    public ByteBuffer read(JournalByteBuffer destination, Location location) {
-        while (writingQueue.containsKey(location.offset())) {
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                throw new JournalException(e);
+    // reads still queued fail, the ones in progress complete before the read channel is closed
+    private void awaitAsyncReads() {
+        ExecutorService executor;
+        synchronized (readExecutorLock) {
+            asyncReadsClosed = true;
+            executor = readExecutor;
+        }
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(500, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ExecutorService readExecutor() {
+        ExecutorService executor = readExecutor;
+        if (executor != null) {
+            return executor;
+        }
+        synchronized (readExecutorLock) {
+            if (asyncReadsClosed) {
+                throw new RejectedExecutionException("Journal is closed");
+            }
+            if (readExecutor == null) {
+                readExecutor = Executors.newFixedThreadPool(readThreads, Thread.ofPlatform()
+                    .name("journal-reader-", 0)
+                    .daemon()
+                    .factory());
             }
+            return readExecutor;
         }
+    }
+
+    long writtenPosition() {
+        return writeChannel.writtenPosition();
+    }
+
+    public ByteBuffer read(JournalByteBuffer destination, Location location) {
+        awaitWritten(location);
         return readChannel.read(destination, location).buffer();
     }
 
-    public ByteBuffer readAsync(JournalByteBuffer destination, Location location) {
-        return Optional.ofNullable(writingQueue.get(location.offset()))
-            .map(buffer -> {
-                ByteBuffer contentBuffer = destination.getContentBuffer();
-                contentBuffer.put(contentBuffer.position(),buffer, recordHeaderLength(), buffer.limit()-recordHeaderLength());
-                contentBuffer.limit(buffer.limit()-recordHeaderLength());
-                return contentBuffer;
-            })
-            .orElseGet(() -> readChannel.read(destination, location).buffer());
+    // the content together with its header - the sequence number and write timestamp of V2 records
+    public Record readRecord(JournalByteBuffer destination, Location location) {
+        awaitWritten(location);
+        return readChannel.read(destination, location);
+    }
+
+    // contents of the records at locations, copied into the destinations of the same index and returned in that order;
+    // channel reads sort the records by offset and read neighbouring ones together
+    public List<ByteBuffer> readAll(List<Location> locations, List<JournalByteBuffer> destinations) {
+        if (locations.size() != destinations.size()) {
+            throw new IllegalArgumentException("Expected a destination for each of %d locations - actual: %d".formatted(locations.size(), destinations.size()));
+        }
+        if (locations.isEmpty()) {
+            return List.of();
+        }
+        long lastOffset = 0;
+        for (Location location : locations) {
+            lastOffset = Math.max(lastOffset, location.offset());
+        }
+        writeChannel.awaitWritten(lastOffset);
+        Record[] records = readChannel.readAll(destinations.toArray(JournalByteBuffer[]::new), locations.toArray(Location[]::new));
+        return Arrays.stream(records)
+            .map(Record::buffer)
+            .toList();
+    }
+
+    // read-only view of the record content inside the mapped journal file, valid as long as it is referenced
+    public ByteBuffer readView(Location location) {
+        if (!(readChannel instanceof RecordMappedReadChannel mappedReadChannel)) {
+            throw new JournalException("Zero-copy reads require mapped read mode");
+        }
+        awaitWritten(location);
+        return mappedReadChannel.readView(location).buffer();
+    }
+
+    // bytes accepted by the journal but not yet written to the journal file
+    public long pendingBytes() {
+        return writeChannel.pendingBytes();
     }
 
+    // page hits and misses of channel reads, zeros without a page cache
+    public PageCache.Statistics pageCacheStatistics() {
+        return pageCache == null ? new PageCache.Statistics(0, 0) : pageCache.statistics();
+    }
+
+    // blocks until the record at location can be read from the journal file
+    public void awaitWritten(Location location) {
+        writeChannel.awaitWritten(location.offset());
+    }
+
+    // location of the record with the given number, counting from 0: binary search of the record index, then a forward
+    // scan over at most indexInterval - 1 record headers
+    public Location locate(long recordNumber) {
+        if (sparseIndex == null) {
+            throw new JournalException("Locating records by number requires a record index");
+        }
+        long writtenPosition = writeChannel.writtenPosition();
+        SparseIndex.Entry entry = sparseIndex.floor(recordNumber);
+        long offset = entry == null ? writtenPosition : entry.offset();
+        for (long number = entry == null ? recordNumber : entry.recordNumber(); number < recordNumber && offset < writtenPosition; number++) {
+            offset += recordFormat.headerLength() + readChannel.readHeader(new Location(offset)).variableSize();
+        }
+        if (offset >= writtenPosition) {
+            throw new JournalException("Record " + recordNumber + " is not written yet");
+        }
+        return new Location(offset);
+    }
+
+    // streams the records written so far, starting with the one at from; the cursor has to be closed
+    public RecordCursor scan(Location from) {
+        return readChannel.scan(from.offset(), writeChannel.writtenPosition(), readAheadSize);
+    }
+
+    // records from the one at from onwards, in file order, as soon as they are written; subscribers get onComplete when
+    // the journal is closed
+    public Flow.Publisher<Record> subscribe(Location from) {
+        return subscriber -> {
+            RecordSubscription subscription = RecordSubscription.create(subscriber, from.offset(), readChannel, writeChannel, checksumType, recordFormat, subscriptions::remove);
+            subscriptions.add(subscription);
+            subscription.start();
+        };
+    }
+
+    // checks the record against its checksum - for records read with verifyChecksums disabled
+    public void verify(Location location) {
+        awaitWritten(location);
+        readChannel.verify(location);
+    }
+
+    // completes at once when the record still waits in memory for the writer, otherwise once a read thread has read it
+    // from the journal file; the destination must not be used until then
+    public CompletableFuture<ByteBuffer> readAsync(JournalByteBuffer destination, Location location) {
+        ByteBuffer pending = writeChannel.findPending(location.offset());
+        if (pending != null) {
+            Record record = PendingRecords.copy(pending, writeChannel::writtenPosition, destination, location, checksumType, recordFormat);
+            if (record != null) {
+                return CompletableFuture.completedFuture(record.buffer());
+            }
+        }
+        try {
+            ExecutorService executor = readExecutor();
+            return CompletableFuture.supplyAsync(() -> {
+                if (executor.isShutdown()) {
+                    throw new JournalException("Journal is closed");
+                }
+                return read(destination, location);
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new JournalException("Journal is closed"));
+        }
+    }
+
+    public CompletableFuture<Location> writeAsync(JournalByteBuffer buffer) {
+        ByteBuffer record = buffer.getWritableBuffer(checksumType, recordFormat);
+        int length = record.remaining();
+        return writeChannel.writeAsync(record)
+            .thenApply(location -> location.withLength(length));
+    }
+
+    public void flush() {
+        try {
+            writeChannel.flush().join();
+        } catch (CompletionException e) {
+            throw new JournalException("Cannot flush journal", e.getCause() instanceof Exception cause ? cause : e);
+        }
+    }
+
+    // the location carries the record length, so reading it back takes a single read of the journal file
     public Location write(JournalByteBuffer buffer) {
-        ByteBuffer writableBuffer = buffer.getWritableBuffer();
-        int remaining = writableBuffer.remaining();
-        long bufferPosition = virtualPosition.getAndAdd(remaining);
-        writingQueue.put(bufferPosition, writableBuffer);
-        return new Location(bufferPosition);
+        ByteBuffer record = buffer.getWritableBuffer(checksumType, recordFormat);
+        int length = record.remaining();
+        return writeChannel.write(record)
+            .withLength(length);
+    }
+
+    // one record from several content fragments - the checksum spans all of them and they are not copied together
+    public Location write(ByteBuffer... fragments) {
+        ByteBuffer[] parts = JournalByteBuffer.getWritableBuffers(checksumType, recordFormat, fragments);
+        int length = recordFormat.headerLength() + parts[0].getInt(Integer.BYTES);
+        return writeChannel.writeGathered(parts)
+            .withLength(length);
+    }
+
+    // writes the records next to each other and returns their offsets - new Location(offsets[i]) locates buffers[i]
+    public long[] writeAll(JournalByteBuffer... buffers) {
+        ByteBuffer[] records = new ByteBuffer[buffers.length];
+        for (int i = 0; i < buffers.length; i++) {
+            records[i] = buffers[i].getWritableBuffer(checksumType, recordFormat);
+        }
+        return writeChannel.writeAll(records);
+    }
+
+    // endOffset and nextSequence come from the checkpoint of v04 and v05 headers; endOffset is 0 unless it was saved by
+    // a clean close
+    private record JournalHeader(int schemaVersion, ChecksumType checksumType, CompressionType compressionType, long endOffset, long nextSequence) {
+        static final int CHECKPOINT_POSITION = headerPrefixLength() + Integer.BYTES;
+        static final int CHECKPOINT_LENGTH = 2 * Long.BYTES;
+
+        JournalHeader(int schemaVersion, ChecksumType checksumType, CompressionType compressionType) {
+            this(schemaVersion, checksumType, compressionType, 0, 0);
+        }
+
+        JournalHeader withCheckpoint(long endOffset, long nextSequence) {
+            return new JournalHeader(schemaVersion, checksumType, compressionType, endOffset, nextSequence);
+        }
+
+        RecordFormat recordFormat() {
+            return schemaVersion == SCHEMA_VERSION_V3 || schemaVersion == SCHEMA_VERSION_V5 ? RecordFormat.V2 : RecordFormat.V1;
+        }
+
+        boolean isCompressed() {
+            return compressionType != CompressionType.NONE;
+        }
+
+        boolean hasCheckpoint() {
+            return schemaVersion == SCHEMA_VERSION_V4 || schemaVersion == SCHEMA_VERSION_V5;
+        }
+
+        boolean closedCleanly() {
+            return endOffset >= length();
+        }
+
+        int length() {
+            if (schemaVersion == SCHEMA_VERSION_V1) {
+                return headerPrefixLength();
+            }
+            return hasCheckpoint() ? CHECKPOINT_POSITION + CHECKPOINT_LENGTH : CHECKPOINT_POSITION;
+        }
+
+        byte[] toBytes() {
+            byte[] header = toByteArray(JOURNAL_PREFIX, schemaVersion);
+            if (schemaVersion == SCHEMA_VERSION_V1) {
+                return header;
+            }
+            // the checkpoint of a new header stays zeroed until the journal is closed
+            byte[] bytes = Arrays.copyOf(header, length());
+            int recordFormat = compressionType.id() << 16 | checksumType.id();
+            System.arraycopy(toByteArray(recordFormat), 0, bytes, header.length, Integer.BYTES);
+            return bytes;
+        }
     }
 }
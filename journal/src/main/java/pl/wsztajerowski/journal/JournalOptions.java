@@ -0,0 +1,228 @@
+package pl.wsztajerowski.journal;
+
+import pl.wsztajerowski.journal.records.ChecksumType;
+import pl.wsztajerowski.journal.records.CompressionType;
+import pl.wsztajerowski.journal.records.RecordFormat;
+
+import static java.util.Objects.requireNonNull;
+
+public class JournalOptions {
+    static final long DEFAULT_SEGMENT_SIZE = 1L << 30;
+    static final long DEFAULT_MAPPED_REGION_SIZE = 1L << 26;
+    static final int DEFAULT_STAGING_ARENA_SIZE = 0;
+    static final int DEFAULT_READ_AHEAD_SIZE = 1 << 22;
+    static final long MAX_PAGE_CACHE_SIZE = 1L << 30;
+    static final int DEFAULT_READ_THREADS = 4;
+    private DurabilityPolicy durabilityPolicy = DurabilityPolicy.none();
+    private WriteMode writeMode = WriteMode.RING_BUFFER;
+    private ReadMode readMode = ReadMode.CHANNEL;
+    private WaitStrategy waitStrategy = WaitStrategy.backoff();
+    private BackpressurePolicy backpressurePolicy = BackpressurePolicy.unbounded();
+    private long segmentSize = DEFAULT_SEGMENT_SIZE;
+    private long preallocationSize;
+    private long mappedRegionSize = DEFAULT_MAPPED_REGION_SIZE;
+    private int stagingArenaSize = DEFAULT_STAGING_ARENA_SIZE;
+    private ChecksumType checksumType = ChecksumType.CRC32C;
+    private boolean verifyChecksums = true;
+    private CompressionType compression = CompressionType.NONE;
+    private RecordFormat recordFormat = RecordFormat.V1;
+    private int indexInterval;
+    private int readAheadSize = DEFAULT_READ_AHEAD_SIZE;
+    private long pageCacheSize;
+    private int readThreads = DEFAULT_READ_THREADS;
+
+    public static JournalOptions defaultOptions() {
+        return new JournalOptions();
+    }
+
+    public JournalOptions durabilityPolicy(DurabilityPolicy durabilityPolicy) {
+        this.durabilityPolicy = requireNonNull(durabilityPolicy);
+        return this;
+    }
+
+    public DurabilityPolicy durabilityPolicy() {
+        return durabilityPolicy;
+    }
+
+    public JournalOptions writeMode(WriteMode writeMode) {
+        this.writeMode = requireNonNull(writeMode);
+        return this;
+    }
+
+    public WriteMode writeMode() {
+        return writeMode;
+    }
+
+    public JournalOptions waitStrategy(WaitStrategy waitStrategy) {
+        this.waitStrategy = requireNonNull(waitStrategy);
+        return this;
+    }
+
+    public WaitStrategy waitStrategy() {
+        return waitStrategy;
+    }
+
+    public JournalOptions backpressurePolicy(BackpressurePolicy backpressurePolicy) {
+        this.backpressurePolicy = requireNonNull(backpressurePolicy);
+        return this;
+    }
+
+    public BackpressurePolicy backpressurePolicy() {
+        return backpressurePolicy;
+    }
+
+    public JournalOptions readMode(ReadMode readMode) {
+        this.readMode = requireNonNull(readMode);
+        return this;
+    }
+
+    public ReadMode readMode() {
+        return readMode;
+    }
+
+    public JournalOptions segmentSize(long segmentSize) {
+        if (segmentSize <= Journal.journalHeaderLength()) {
+            throw new IllegalArgumentException("Segment size must be greater than journal header - actual: " + segmentSize);
+        }
+        this.segmentSize = segmentSize;
+        return this;
+    }
+
+    public long segmentSize() {
+        return segmentSize;
+    }
+
+    // 0 disables preallocation, otherwise the file grows in extents of the given size
+    public JournalOptions preallocationSize(long preallocationSize) {
+        if (preallocationSize < 0) {
+            throw new IllegalArgumentException("Preallocation size must not be negative - actual: " + preallocationSize);
+        }
+        this.preallocationSize = preallocationSize;
+        return this;
+    }
+
+    public long preallocationSize() {
+        return preallocationSize;
+    }
+
+    public JournalOptions mappedRegionSize(long mappedRegionSize) {
+        if (mappedRegionSize <= 0 || mappedRegionSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Mapped region size must be between 1 and %d - actual: %d".formatted(Integer.MAX_VALUE, mappedRegionSize));
+        }
+        this.mappedRegionSize = mappedRegionSize;
+        return this;
+    }
+
+    public long mappedRegionSize() {
+        return mappedRegionSize;
+    }
+
+    // off-heap space the ring buffer writer copies pending records into, so callers may reuse their buffers as soon as
+    // a write returns; 0, the default, queues the callers' buffers themselves, which then must not be reused until their
+    // records are written
+    public JournalOptions stagingArenaSize(int stagingArenaSize) {
+        if (stagingArenaSize < 0) {
+            throw new IllegalArgumentException("Staging arena size must not be negative - actual: " + stagingArenaSize);
+        }
+        this.stagingArenaSize = stagingArenaSize;
+        return this;
+    }
+
+    public int stagingArenaSize() {
+        return stagingArenaSize;
+    }
+
+    // used for new journal files only - existing files keep the checksum recorded in their header
+    public JournalOptions checksumType(ChecksumType checksumType) {
+        this.checksumType = requireNonNull(checksumType);
+        return this;
+    }
+
+    public ChecksumType checksumType() {
+        return checksumType;
+    }
+
+    // with verification disabled reads trust the stored records; Journal.verify checks them later on demand
+    public JournalOptions verifyChecksums(boolean verifyChecksums) {
+        this.verifyChecksums = verifyChecksums;
+        return this;
+    }
+
+    public boolean verifyChecksums() {
+        return verifyChecksums;
+    }
+
+    // used for new journal files only - records are compressed in blocks of whatever the ring buffer writer drains at once,
+    // which requires ring buffer write mode and channel read mode
+    public JournalOptions compression(CompressionType compression) {
+        this.compression = requireNonNull(compression);
+        return this;
+    }
+
+    public CompressionType compression() {
+        return compression;
+    }
+
+    // used for new journal files only - V2 records carry a sequence number and write timestamp, which mapped write mode
+    // cannot assign
+    public JournalOptions recordFormat(RecordFormat recordFormat) {
+        this.recordFormat = requireNonNull(recordFormat);
+        return this;
+    }
+
+    public RecordFormat recordFormat() {
+        return recordFormat;
+    }
+
+    // 0 disables the record index, otherwise every indexInterval-th record is indexed for Journal.locate
+    public JournalOptions indexInterval(int indexInterval) {
+        if (indexInterval < 0) {
+            throw new IllegalArgumentException("Index interval must not be negative - actual: " + indexInterval);
+        }
+        this.indexInterval = indexInterval;
+        return this;
+    }
+
+    public int indexInterval() {
+        return indexInterval;
+    }
+
+    // size of each of the two chunks Journal.scan reads ahead of the consumer
+    public JournalOptions readAheadSize(int readAheadSize) {
+        if (readAheadSize <= 0) {
+            throw new IllegalArgumentException("Read-ahead size must be positive - actual: " + readAheadSize);
+        }
+        this.readAheadSize = readAheadSize;
+        return this;
+    }
+
+    public int readAheadSize() {
+        return readAheadSize;
+    }
+
+    // 0 disables the page cache, otherwise channel reads go through an off-heap cache of journal file pages of this size
+    public JournalOptions pageCacheSize(long pageCacheSize) {
+        if (pageCacheSize < 0 || pageCacheSize > MAX_PAGE_CACHE_SIZE) {
+            throw new IllegalArgumentException("Page cache size must be between 0 and %d - actual: %d".formatted(MAX_PAGE_CACHE_SIZE, pageCacheSize));
+        }
+        this.pageCacheSize = pageCacheSize;
+        return this;
+    }
+
+    public long pageCacheSize() {
+        return pageCacheSize;
+    }
+
+    // threads reading records from the journal file for readAsync; they are started on the first reads
+    public JournalOptions readThreads(int readThreads) {
+        if (readThreads <= 0) {
+            throw new IllegalArgumentException("Number of read threads must be positive - actual: " + readThreads);
+        }
+        this.readThreads = readThreads;
+        return this;
+    }
+
+    public int readThreads() {
+        return readThreads;
+    }
+}
@@ -0,0 +1,240 @@
+package pl.wsztajerowski.journal;
+
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+import pl.wsztajerowski.journal.records.RecordMappedReadChannel;
+import pl.wsztajerowski.journal.records.RecordReader;
+import pl.wsztajerowski.journal.records.SparseIndex;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+class JournalSegment implements AutoCloseable {
+    private final int id;
+    private final Path path;
+    private final JournalOptions options;
+    private final AtomicLong reservedBytes;
+    private final InFlight writersInFlight = new InFlight();
+    private final InFlight readersInFlight = new InFlight();
+    // active segments are served by their own Journal, sealed ones only by a read channel
+    private volatile Journal journal;
+    private volatile RecordReader readChannel;
+    private volatile boolean deleted;
+
+    private JournalSegment(int id, Path path, JournalOptions options, Journal journal, RecordReader readChannel, long size) {
+        this.id = id;
+        this.path = path;
+        this.options = options;
+        this.journal = journal;
+        this.readChannel = readChannel;
+        this.reservedBytes = new AtomicLong(size);
+    }
+
+    static JournalSegment openActive(int id, Path path, JournalOptions options) {
+        Journal journal = Journal.open(path, false, options);
+        return new JournalSegment(id, path, options, journal, null, journal.writtenPosition());
+    }
+
+    // a segment that was still being written when the journal stopped may end with a torn record, so it gets the
+    // recovery of Journal.open before it is opened for reads
+    static JournalSegment openRecoveredSealed(int id, Path path, JournalOptions options) {
+        try {
+            Journal.open(path, false, options).close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return openSealed(id, path, options);
+    }
+
+    static JournalSegment openSealed(int id, Path path, JournalOptions options) {
+        try {
+            long size = Files.size(path);
+            return new JournalSegment(id, path, options, null, Journal.openReader(path, options), size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    int id() {
+        return id;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    boolean isSealed() {
+        return journal == null;
+    }
+
+    Journal acquireForWrite(int recordSize, long segmentSize) {
+        writersInFlight.enter();
+        Journal activeJournal = journal;
+        if (activeJournal == null || reservedBytes.getAndAdd(recordSize) >= segmentSize) {
+            writersInFlight.leave();
+            return null;
+        }
+        return activeJournal;
+    }
+
+    void releaseWriter() {
+        writersInFlight.leave();
+    }
+
+    Journal acquireForRead() {
+        readersInFlight.enter();
+        Journal activeJournal = journal;
+        if (activeJournal == null) {
+            readersInFlight.leave();
+        }
+        return activeJournal;
+    }
+
+    void releaseReader() {
+        readersInFlight.leave();
+    }
+
+    // readers of the sealed read channel are counted as well, so delete does not close it under them
+    private void enterReader() {
+        readersInFlight.enter();
+        if (deleted) {
+            readersInFlight.leave();
+            throw new JournalException("Segment %d is deleted".formatted(id));
+        }
+    }
+
+    ByteBuffer read(JournalByteBuffer destination, Location location) {
+        enterReader();
+        try {
+            Journal activeJournal = journal;
+            if (activeJournal == null) {
+                return readChannel.read(destination, location).buffer();
+            }
+            return activeJournal.read(destination, location);
+        } finally {
+            releaseReader();
+        }
+    }
+
+    // a view outlives the read; the mapping behind it stays valid until the view is no longer referenced, even once the
+    // segment is deleted
+    ByteBuffer readView(Location location) {
+        enterReader();
+        try {
+            Journal activeJournal = journal;
+            if (activeJournal == null) {
+                if (!(readChannel instanceof RecordMappedReadChannel mappedReadChannel)) {
+                    throw new JournalException("Zero-copy reads require mapped read mode");
+                }
+                return mappedReadChannel.readView(location).buffer();
+            }
+            return activeJournal.readView(location);
+        } finally {
+            releaseReader();
+        }
+    }
+
+    void awaitWritten(Location location) {
+        Journal activeJournal = acquireForRead();
+        if (activeJournal == null) {
+            // sealed segments contain only written records
+            return;
+        }
+        try {
+            activeJournal.awaitWritten(location);
+        } finally {
+            releaseReader();
+        }
+    }
+
+    void flush() {
+        Journal activeJournal = acquireForRead();
+        if (activeJournal == null) {
+            return;
+        }
+        try {
+            activeJournal.flush();
+        } finally {
+            releaseReader();
+        }
+    }
+
+    // called once the segment is full, so no new writer can be admitted
+    void seal() throws IOException {
+        Journal activeJournal = journal;
+        if (activeJournal == null) {
+            return;
+        }
+        writersInFlight.awaitZero();
+        activeJournal.flush();
+        readChannel = Journal.openReader(path, options);
+        journal = null;
+        readersInFlight.awaitZero();
+        activeJournal.close();
+    }
+
+    // new reads fail once the segment is marked deleted, the ones in progress complete before its channel is closed
+    void delete() throws IOException {
+        deleted = true;
+        readersInFlight.awaitZero();
+        close();
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(SparseIndex.indexPath(path));
+    }
+
+    public void close() throws IOException {
+        Journal activeJournal = journal;
+        journal = null;
+        try {
+            if (activeJournal != null) {
+                activeJournal.close();
+            }
+        } finally {
+            if (readChannel != null) {
+                readChannel.close();
+            }
+        }
+    }
+
+    // threads using the segment; the last one to leave wakes up a thread waiting for them all to leave
+    private static final class InFlight {
+        private final AtomicInteger count = new AtomicInteger();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition drained = lock.newCondition();
+        private volatile boolean awaited;
+
+        void enter() {
+            count.incrementAndGet();
+        }
+
+        void leave() {
+            // either the waiter sees the count drop after setting awaited, or it is signalled here
+            if (count.decrementAndGet() == 0 && awaited) {
+                lock.lock();
+                try {
+                    drained.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        void awaitZero() {
+            awaited = true;
+            lock.lock();
+            try {
+                while (count.get() != 0) {
+                    drained.awaitUninterruptibly();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
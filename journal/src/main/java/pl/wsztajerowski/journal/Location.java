@@ -1,4 +1,33 @@
 package pl.wsztajerowski.journal;
 
-public record Location(long offset) {
+// length is the whole record - header and content - so a read can fetch it at once; 0 when unknown, as in locations made
+// from offsets alone. Locations of the same record are equal whether they carry the length or not.
+public record Location(long offset, int segmentId, int length) {
+    public Location(long offset) {
+        this(offset, 0);
+    }
+
+    public Location(long offset, int segmentId) {
+        this(offset, segmentId, 0);
+    }
+
+    public Location inSegment(int segmentId) {
+        return new Location(offset, segmentId, length);
+    }
+
+    public Location withLength(int length) {
+        return new Location(offset, segmentId, length);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Location location
+            && offset == location.offset
+            && segmentId == location.segmentId;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(offset) + segmentId;
+    }
 }
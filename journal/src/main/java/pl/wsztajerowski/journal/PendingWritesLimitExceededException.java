@@ -0,0 +1,7 @@
+package pl.wsztajerowski.journal;
+
+public class PendingWritesLimitExceededException extends JournalException {
+    public PendingWritesLimitExceededException(long pendingBytes, int pendingRecords) {
+        super("Pending writes limit exceeded - pending: %d bytes, %d records".formatted(pendingBytes, pendingRecords));
+    }
+}
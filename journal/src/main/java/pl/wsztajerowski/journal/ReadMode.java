@@ -0,0 +1,8 @@
+package pl.wsztajerowski.journal;
+
+public enum ReadMode {
+    // records are read with positional FileChannel reads and copied page by page
+    CHANNEL,
+    // records are validated in place in mapped file regions and can be read without a copy
+    MAPPED
+}
@@ -0,0 +1,209 @@
+package pl.wsztajerowski.journal;
+
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+public class SegmentedJournal implements AutoCloseable {
+    private static final Pattern SEGMENT_FILE_NAME = Pattern.compile("(\\d{10})\\.journal");
+    private final Path directory;
+    private final JournalOptions options;
+    private final ConcurrentNavigableMap<Integer, JournalSegment> segments = new ConcurrentSkipListMap<>();
+    // one thread prepares the next segment, the other seals the full ones
+    private final ExecutorService segmentExecutor = Executors.newFixedThreadPool(2);
+    private volatile JournalSegment activeSegment;
+    private CompletableFuture<JournalSegment> nextSegment;
+    private volatile boolean closed;
+
+    SegmentedJournal(Path directory, JournalOptions options) {
+        this.directory = directory;
+        this.options = options;
+    }
+
+    public static SegmentedJournal open(Path directory) {
+        return open(directory, JournalOptions.defaultOptions());
+    }
+
+    public static SegmentedJournal open(Path directory, JournalOptions options) {
+        SegmentedJournal journal = new SegmentedJournal(directory, options);
+        try {
+            Files.createDirectories(directory);
+            List<Integer> segmentIds;
+            try (Stream<Path> files = Files.list(directory)) {
+                segmentIds = files
+                    .map(path -> SEGMENT_FILE_NAME.matcher(path.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Integer.parseInt(matcher.group(1)))
+                    .sorted()
+                    .toList();
+            }
+            int activeSegmentId = segmentIds.isEmpty() ? 0 : segmentIds.getLast();
+            // the last file may be a segment prepared ahead of time, and sealing runs in the background - so the two
+            // segments before it may still have had writes in flight when the journal stopped
+            int firstUnsealedSegmentId = segmentIds.size() < 3 ? 0 : segmentIds.get(segmentIds.size() - 3);
+            for (int segmentId : segmentIds) {
+                if (segmentId >= firstUnsealedSegmentId && segmentId != activeSegmentId) {
+                    journal.segments.put(segmentId, JournalSegment.openRecoveredSealed(segmentId, journal.segmentPath(segmentId), options));
+                } else if (segmentId != activeSegmentId) {
+                    journal.segments.put(segmentId, JournalSegment.openSealed(segmentId, journal.segmentPath(segmentId), options));
+                }
+            }
+            journal.activate(JournalSegment.openActive(activeSegmentId, journal.segmentPath(activeSegmentId), options));
+        } catch (IOException e) {
+            journal.segmentExecutor.shutdownNow();
+            throw new UncheckedIOException(e);
+        }
+        return journal;
+    }
+
+    public Location write(JournalByteBuffer buffer) {
+        int recordSize = options.recordFormat().headerLength() + buffer.getContentBuffer().remaining();
+        while (true) {
+            JournalSegment segment = acquireActiveSegment();
+            Journal journal = segment.acquireForWrite(recordSize, options.segmentSize());
+            if (journal == null) {
+                rollOver(segment);
+                continue;
+            }
+            try {
+                return journal.write(buffer)
+                    .inSegment(segment.id());
+            } finally {
+                segment.releaseWriter();
+            }
+        }
+    }
+
+    public CompletableFuture<Location> writeAsync(JournalByteBuffer buffer) {
+        int recordSize = options.recordFormat().headerLength() + buffer.getContentBuffer().remaining();
+        while (true) {
+            JournalSegment segment = acquireActiveSegment();
+            Journal journal = segment.acquireForWrite(recordSize, options.segmentSize());
+            if (journal == null) {
+                rollOver(segment);
+                continue;
+            }
+            try {
+                return journal.writeAsync(buffer)
+                    .thenApply(location -> location.inSegment(segment.id()));
+            } finally {
+                segment.releaseWriter();
+            }
+        }
+    }
+
+    public ByteBuffer read(JournalByteBuffer destination, Location location) {
+        return segment(location).read(destination, location);
+    }
+
+    public ByteBuffer readView(Location location) {
+        return segment(location).readView(location);
+    }
+
+    public void awaitWritten(Location location) {
+        segment(location).awaitWritten(location);
+    }
+
+    public void flush() {
+        for (JournalSegment segment : segments.values()) {
+            segment.flush();
+        }
+    }
+
+    public int activeSegmentId() {
+        return activeSegment.id();
+    }
+
+    public void deleteSegmentsBefore(Location location) {
+        for (JournalSegment segment : segments.headMap(location.segmentId(), false).values()) {
+            if (!segment.isSealed()) {
+                continue;
+            }
+            try {
+                segments.remove(segment.id());
+                segment.delete();
+            } catch (IOException e) {
+                throw new JournalRuntimeIOException("Cannot delete segment " + segment.path(), e);
+            }
+        }
+    }
+
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        try {
+            JournalSegment prepared = nextSegment.join();
+            prepared.delete();
+        } finally {
+            segmentExecutor.shutdown();
+            try {
+                segmentExecutor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (JournalSegment segment : segments.values()) {
+                segment.close();
+            }
+        }
+    }
+
+    private JournalSegment acquireActiveSegment() {
+        if (closed) {
+            throw new JournalException("Journal is closed");
+        }
+        return activeSegment;
+    }
+
+    private synchronized void rollOver(JournalSegment fullSegment) {
+        if (closed || activeSegment != fullSegment) {
+            return;
+        }
+        activate(nextSegment.join());
+        segmentExecutor.execute(() -> {
+            try {
+                fullSegment.seal();
+            } catch (IOException e) {
+                throw new JournalRuntimeIOException("Cannot seal segment " + fullSegment.path(), e);
+            }
+        });
+    }
+
+    private synchronized void activate(JournalSegment segment) {
+        segments.put(segment.id(), segment);
+        activeSegment = segment;
+        int nextSegmentId = segment.id() + 1;
+        nextSegment = CompletableFuture.supplyAsync(
+            () -> JournalSegment.openActive(nextSegmentId, segmentPath(nextSegmentId), options),
+            segmentExecutor);
+    }
+
+    private JournalSegment segment(Location location) {
+        JournalSegment segment = segments.get(location.segmentId());
+        if (segment == null) {
+            throw new JournalException("Segment %d does not exist".formatted(location.segmentId()));
+        }
+        return segment;
+    }
+
+    private Path segmentPath(int segmentId) {
+        return directory.resolve("%010d.journal".formatted(segmentId));
+    }
+}
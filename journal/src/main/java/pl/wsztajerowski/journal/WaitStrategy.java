@@ -0,0 +1,52 @@
+package pl.wsztajerowski.journal;
+
+import java.time.Duration;
+
+public record WaitStrategy(Mode mode, long maxParkNanos) {
+    static final Duration DEFAULT_MAX_PARK = Duration.ofMillis(1);
+
+    public enum Mode {
+        // writer spins on an idle queue - lowest latency, one core per journal
+        BUSY_SPIN,
+        // writer yields its time slice on an idle queue
+        YIELD,
+        // writer spins, then yields, then parks for exponentially longer periods up to maxParkNanos
+        BACKOFF,
+        // writer parks until a producer wakes it up, or for at most maxParkNanos
+        BLOCKING
+    }
+
+    public WaitStrategy {
+        if (mode == null) {
+            throw new IllegalArgumentException("Wait strategy mode must be provided");
+        }
+        if ((mode == Mode.BACKOFF || mode == Mode.BLOCKING) && maxParkNanos <= 0) {
+            throw new IllegalArgumentException("Parking wait strategy requires positive max park time - actual: %d ns".formatted(maxParkNanos));
+        }
+    }
+
+    public static WaitStrategy busySpin() {
+        return new WaitStrategy(Mode.BUSY_SPIN, 0);
+    }
+
+    public static WaitStrategy yielding() {
+        return new WaitStrategy(Mode.YIELD, 0);
+    }
+
+    public static WaitStrategy backoff() {
+        return backoff(DEFAULT_MAX_PARK);
+    }
+
+    public static WaitStrategy backoff(Duration maxPark) {
+        return new WaitStrategy(Mode.BACKOFF, maxPark.toNanos());
+    }
+
+    public static WaitStrategy blocking() {
+        return blocking(DEFAULT_MAX_PARK);
+    }
+
+    // maxPark bounds how long interval syncs can be delayed on an idle journal
+    public static WaitStrategy blocking(Duration maxPark) {
+        return new WaitStrategy(Mode.BLOCKING, maxPark.toNanos());
+    }
+}
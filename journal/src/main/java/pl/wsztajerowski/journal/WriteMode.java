@@ -0,0 +1,10 @@
+package pl.wsztajerowski.journal;
+
+public enum WriteMode {
+    // producers stage records in a ring buffer drained by a dedicated writer thread
+    RING_BUFFER,
+    // producers wait for MPSCFramework to seal their batch into one gathered write
+    GROUP_COMMIT,
+    // producers copy records straight into a sliding window of mapped file regions
+    MAPPED
+}
@@ -0,0 +1,14 @@
+package pl.wsztajerowski.journal.records;
+
+import java.nio.ByteBuffer;
+
+// Compresses whole blocks of records. Codecs keep native state, so an instance is used by one thread at a time.
+public interface BlockCodec extends AutoCloseable {
+    // compresses the remaining bytes of source and returns target - or a larger replacement - flipped for reading
+    ByteBuffer compress(ByteBuffer source, ByteBuffer target);
+
+    // decompresses the remaining bytes of source into target, which must have room for the whole block
+    void decompress(ByteBuffer source, ByteBuffer target);
+
+    void close();
+}
@@ -0,0 +1,139 @@
+package pl.wsztajerowski.journal.records;
+
+import pl.wsztajerowski.journal.JournalRuntimeIOException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static pl.wsztajerowski.journal.records.ChecksumCalculator.computeChecksum;
+
+// Records of a compressed journal keep their uncompressed offsets as locations; the index maps such an offset to
+// the block frame holding the record. Shared by the writer, which adds blocks before they become readable, and readers.
+// Block frame format: [ int prefix, long offset, int uncompressedLength, int compressedLength ] + compressed records
+// Checksummed frames, written to journals with a v04 or v05 header, add [ int checksum ] - CRC32C of the compressed
+// records - to the frame header, so a block torn by a crash is not taken for a complete one
+public class BlockIndex {
+    static final int BLOCK_PREFIX = 0xB10CCAFE;
+    static final int BLOCK_HEADER_LENGTH = 3 * Integer.BYTES + Long.BYTES;
+    static final int CHECKSUMMED_BLOCK_HEADER_LENGTH = BLOCK_HEADER_LENGTH + Integer.BYTES;
+    private final ConcurrentSkipListMap<Long, Block> blocks = new ConcurrentSkipListMap<>();
+    // uncompressed and file offsets are equal up to the first block - both start right after the journal header
+    private final long startOffset;
+    private final boolean checksummed;
+    private volatile Block lastBlock;
+
+    BlockIndex(long startOffset, boolean checksummed) {
+        this.startOffset = startOffset;
+        this.checksummed = checksummed;
+    }
+
+    public static BlockIndex empty(long startOffset, boolean checksummed) {
+        return new BlockIndex(startOffset, checksummed);
+    }
+
+    // stops at the first frame that is not a complete continuation of the previous ones, e.g. preallocated space or
+    // a torn block; blocks ending at or below trustedEndOffset, the end saved by a clean close, skip the checksum
+    public static BlockIndex scan(Path journalFile, long startOffset, boolean checksummed, long trustedEndOffset) {
+        BlockIndex index = new BlockIndex(startOffset, checksummed);
+        int headerLength = index.frameHeaderLength();
+        ByteBuffer headerBuffer = ByteBuffer.allocate(headerLength);
+        ByteBuffer compressed = ByteBuffer.allocate(0);
+        try (FileChannel fileChannel = FileChannel.open(journalFile, READ)) {
+            long fileSize = fileChannel.size();
+            long position = startOffset;
+            while (position + headerLength <= fileSize) {
+                readFully(fileChannel, headerBuffer.clear(), position);
+                if (headerBuffer.remaining() < headerLength || headerBuffer.getInt() != BLOCK_PREFIX) {
+                    break;
+                }
+                long offset = headerBuffer.getLong();
+                int uncompressedLength = headerBuffer.getInt();
+                int compressedLength = headerBuffer.getInt();
+                if (offset != index.endOffset() || uncompressedLength <= 0 || compressedLength <= 0
+                    || position + headerLength + compressedLength > fileSize) {
+                    break;
+                }
+                Block block = new Block(offset, uncompressedLength, position, headerLength, compressedLength);
+                if (checksummed && block.endOffset() > trustedEndOffset) {
+                    if (compressed.capacity() < compressedLength) {
+                        compressed = ByteBuffer.allocate(compressedLength);
+                    }
+                    readFully(fileChannel, compressed.clear().limit(compressedLength), block.dataPosition());
+                    if (compressed.remaining() < compressedLength || computeChecksum(compressed) != headerBuffer.getInt()) {
+                        break;
+                    }
+                }
+                index.add(block);
+                position = block.fileEndPosition();
+            }
+            return index;
+        } catch (IOException e) {
+            throw new JournalRuntimeIOException("Cannot scan journal file", e);
+        }
+    }
+
+    // flipped buffer with the bytes read at position, fewer than it had room for only at the end of the file
+    private static void readFully(FileChannel fileChannel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining() && fileChannel.read(buffer, position + buffer.position()) > 0) {
+            // read whole buffer
+        }
+        buffer.flip();
+    }
+
+    int frameHeaderLength() {
+        return checksummed ? CHECKSUMMED_BLOCK_HEADER_LENGTH : BLOCK_HEADER_LENGTH;
+    }
+
+    boolean checksummed() {
+        return checksummed;
+    }
+
+    void add(Block block) {
+        blocks.put(block.offset(), block);
+        lastBlock = block;
+    }
+
+    Block find(long offset) {
+        Map.Entry<Long, Block> entry = blocks.floorEntry(offset);
+        if (entry == null || offset >= entry.getValue().endOffset()) {
+            return null;
+        }
+        return entry.getValue();
+    }
+
+    public long startOffset() {
+        return startOffset;
+    }
+
+    // uncompressed offset of the next record
+    public long endOffset() {
+        Block block = lastBlock;
+        return block == null ? startOffset : block.endOffset();
+    }
+
+    // file position of the next block frame
+    public long fileEndPosition() {
+        Block block = lastBlock;
+        return block == null ? startOffset : block.fileEndPosition();
+    }
+
+    record Block(long offset, int uncompressedLength, long filePosition, int headerLength, int compressedLength) {
+        long endOffset() {
+            return offset + uncompressedLength;
+        }
+
+        // file position of the compressed records
+        long dataPosition() {
+            return filePosition + headerLength;
+        }
+
+        long fileEndPosition() {
+            return dataPosition() + compressedLength;
+        }
+    }
+}
@@ -1,31 +1,73 @@
 package pl.wsztajerowski.journal.records;
 
 import java.nio.ByteBuffer;
-import java.util.zip.CRC32C;
 import java.util.zip.Checksum;
 
 public class ChecksumCalculator {
-    private static Checksum newChecksum() {
-        return new CRC32C();
+    // checksum state is reset and reused by its thread instead of being created for every record
+    private static final ThreadLocal<Checksum[]> CHECKSUMS = ThreadLocal.withInitial(() -> new Checksum[ChecksumType.values().length]);
+    private static final ThreadLocal<ByteBuffer> STAMPS = ThreadLocal.withInitial(() -> ByteBuffer.allocate(2 * Long.BYTES));
+
+    // reset checksum of the calling thread, for checksums updated piece by piece - valid until the thread computes another
+    public static Checksum checksum(ChecksumType type) {
+        Checksum[] checksums = CHECKSUMS.get();
+        Checksum checksum = checksums[type.ordinal()];
+        if (checksum == null) {
+            checksum = type.newChecksum();
+            checksums[type.ordinal()] = checksum;
+        } else {
+            checksum.reset();
+        }
+        return checksum;
     }
 
     public static int computeChecksum(ByteBuffer buffer) {
-        Checksum checksum = newChecksum();
+        return computeChecksum(ChecksumType.CRC32C, buffer);
+    }
+
+    public static int computeChecksum(ChecksumType type, ByteBuffer buffer) {
+        Checksum checksum = checksum(type);
         buffer.mark();
         checksum.update(buffer);
         buffer.reset();
-        return Long.valueOf(checksum.getValue()).intValue();
+        return (int) checksum.getValue();
+    }
+
+    // checksum of the fragments' remaining bytes as if they were one buffer
+    public static int computeChecksum(ChecksumType type, ByteBuffer[] fragments) {
+        Checksum checksum = checksum(type);
+        for (ByteBuffer fragment : fragments) {
+            fragment.mark();
+            checksum.update(fragment);
+            fragment.reset();
+        }
+        return (int) checksum.getValue();
+    }
+
+    // checksum of a V2 record's sequence number and timestamp, folded into the record checksum by the writer
+    public static int computeChecksum(ChecksumType type, long sequence, long timestamp) {
+        return computeChecksum(checksum(type), STAMPS.get(), sequence, timestamp);
+    }
+
+    // for a caller that keeps its own checksum state and a 16-byte stamp buffer
+    static int computeChecksum(Checksum checksum, ByteBuffer stamp, long sequence, long timestamp) {
+        stamp.putLong(0, sequence)
+            .putLong(Long.BYTES, timestamp)
+            .clear();
+        checksum.reset();
+        checksum.update(stamp);
+        return (int) checksum.getValue();
     }
 
     public static int computeChecksum(int variable) {
-        Checksum checksum = newChecksum();
+        Checksum checksum = checksum(ChecksumType.CRC32C);
         checksum.update(variable);
-        return Long.valueOf(checksum.getValue()).intValue();
+        return (int) checksum.getValue();
     }
 
     public static int computeChecksum(String variable) {
-        Checksum checksum = newChecksum();
+        Checksum checksum = checksum(ChecksumType.CRC32C);
         checksum.update(variable.getBytes());
-        return Long.valueOf(checksum.getValue()).intValue();
+        return (int) checksum.getValue();
     }
 }
@@ -0,0 +1,56 @@
+package pl.wsztajerowski.journal.records;
+
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+import java.util.zip.Checksum;
+
+// Record checksum algorithms - the id is stored in the v2 journal header, so ids must never change. Id 2 belonged to
+// a Java xxHash32 that was several times slower than the intrinsic CRC32C, and is not reused.
+public enum ChecksumType {
+    NONE(0, NoChecksum::new),
+    CRC32C(1, java.util.zip.CRC32C::new);
+
+    private final int id;
+    private final Supplier<Checksum> factory;
+
+    ChecksumType(int id, Supplier<Checksum> factory) {
+        this.id = id;
+        this.factory = factory;
+    }
+
+    public int id() {
+        return id;
+    }
+
+    public Checksum newChecksum() {
+        return factory.get();
+    }
+
+    public static ChecksumType fromId(int id) {
+        for (ChecksumType type : values()) {
+            if (type.id == id) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown checksum type: " + id);
+    }
+
+    private static class NoChecksum implements Checksum {
+        public void update(int b) {
+        }
+
+        public void update(byte[] b, int off, int len) {
+        }
+
+        public void update(ByteBuffer buffer) {
+            buffer.position(buffer.limit());
+        }
+
+        public long getValue() {
+            return 0;
+        }
+
+        public void reset() {
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package pl.wsztajerowski.journal.records;
+
+import java.util.function.Supplier;
+
+// Block compression codecs - the id is stored in the v2 journal header, so ids must never change.
+public enum CompressionType {
+    NONE(0, null),
+    DEFLATE(1, DeflateCodec::new);
+
+    private final int id;
+    private final Supplier<BlockCodec> factory;
+
+    CompressionType(int id, Supplier<BlockCodec> factory) {
+        this.id = id;
+        this.factory = factory;
+    }
+
+    public int id() {
+        return id;
+    }
+
+    public BlockCodec newCodec() {
+        if (factory == null) {
+            throw new IllegalStateException("No codec for compression type " + this);
+        }
+        return factory.get();
+    }
+
+    public static CompressionType fromId(int id) {
+        for (CompressionType type : values()) {
+            if (type.id == id) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown compression type: " + id);
+    }
+}
@@ -0,0 +1,59 @@
+package pl.wsztajerowski.journal.records;
+
+import pl.wsztajerowski.journal.JournalRuntimeIOException;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+class DeflateCodec implements BlockCodec {
+    // created on first use - a writer only compresses and a reader only decompresses
+    private Deflater deflater;
+    private Inflater inflater;
+
+    public ByteBuffer compress(ByteBuffer source, ByteBuffer target) {
+        if (deflater == null) {
+            // the writer is on the write path of every record, so speed wins over ratio
+            deflater = new Deflater(Deflater.BEST_SPEED);
+        }
+        deflater.reset();
+        deflater.setInput(source);
+        deflater.finish();
+        ByteBuffer output = target.clear();
+        while (!deflater.finished()) {
+            if (!output.hasRemaining()) {
+                output = ByteBuffer.allocateDirect(output.capacity() * 2)
+                    .put(output.flip());
+            }
+            deflater.deflate(output);
+        }
+        return output.flip();
+    }
+
+    public void decompress(ByteBuffer source, ByteBuffer target) {
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+        inflater.reset();
+        inflater.setInput(source);
+        try {
+            while (!inflater.finished()) {
+                if (inflater.inflate(target) == 0 && (inflater.needsInput() || inflater.needsDictionary() || !target.hasRemaining())) {
+                    throw new JournalRuntimeIOException("Corrupted journal file - cannot decompress block");
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new JournalRuntimeIOException("Corrupted journal file - cannot decompress block: " + e.getMessage());
+        }
+    }
+
+    public void close() {
+        if (deflater != null) {
+            deflater.end();
+        }
+        if (inflater != null) {
+            inflater.end();
+        }
+    }
+}
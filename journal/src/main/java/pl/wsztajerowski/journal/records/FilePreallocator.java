@@ -0,0 +1,66 @@
+package pl.wsztajerowski.journal.records;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+class FilePreallocator {
+    private static final ByteBuffer ZEROS = ByteBuffer.allocateDirect(65_536);
+    private final FileChannel fileChannel;
+    private final long extentSize;
+    private long allocatedSize;
+
+    private FilePreallocator(FileChannel fileChannel, long extentSize) throws IOException {
+        this.fileChannel = fileChannel;
+        this.extentSize = extentSize;
+        this.allocatedSize = fileChannel.size();
+    }
+
+    // without preallocation the channel appends; otherwise it writes at the end of data inside the preallocated space
+    static FilePreallocator open(Path journalFile, long initialPosition, long extentSize) throws IOException {
+        FileChannel fileChannel = extentSize > 0
+            ? FileChannel.open(journalFile, StandardOpenOption.WRITE)
+            : FileChannel.open(journalFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        try {
+            fileChannel.position(initialPosition);
+            FilePreallocator preallocator = new FilePreallocator(fileChannel, extentSize);
+            preallocator.ensureAllocated(initialPosition + 1);
+            return preallocator;
+        } catch (IOException e) {
+            fileChannel.close();
+            throw e;
+        }
+    }
+
+    FileChannel channel() {
+        return fileChannel;
+    }
+
+    void ensureAllocated(long endPosition) throws IOException {
+        if (extentSize == 0 || endPosition <= allocatedSize) {
+            return;
+        }
+        long newSize = (endPosition + extentSize - 1) / extentSize * extentSize;
+        long position = allocatedSize;
+        // zero-fill instead of setting the size, so the blocks are really allocated
+        while (position < newSize) {
+            ByteBuffer zeros = ZEROS.duplicate();
+            zeros.limit((int) Math.min(zeros.capacity(), newSize - position));
+            position += fileChannel.write(zeros, position);
+        }
+        fileChannel.force(true);
+        allocatedSize = newSize;
+    }
+
+    void close(long endOfData) throws IOException {
+        try {
+            if (extentSize > 0 && fileChannel.isOpen()) {
+                fileChannel.truncate(endOfData);
+            }
+        } finally {
+            fileChannel.close();
+        }
+    }
+}
@@ -14,4 +14,8 @@ public class InvalidRecordHeaderException extends JournalException {
     public static InvalidRecordHeaderException invalidRecordVariableSize(int variableSize) {
         return new InvalidRecordHeaderException("Record's variable size must be greater than 0 - actual: %d".formatted(variableSize));
     }
+
+    public static InvalidRecordHeaderException recordLengthMismatch(long offset, int variableSize, int expectedVariableSize) {
+        return new InvalidRecordHeaderException("Record at %d has %d bytes, its location tells %d".formatted(offset, variableSize, expectedVariableSize));
+    }
 }
@@ -22,24 +22,70 @@ public class JournalByteBuffer {
         return contentBuffer;
     }
 
-    private void prepareRecordHeaderBufferToWrite(int variableSize, int checksum) {
-        headerBuffer.putInt(0, RECORD_PREFIX);
-        headerBuffer.putInt(4, variableSize);
-        headerBuffer.putInt(8, checksum);
+    // the header space fits the longest record header, a shorter one is placed right before the content
+    private int prepareRecordHeaderBufferToWrite(RecordFormat recordFormat, int variableSize, int checksum) {
+        int headerOffset = headerBuffer.capacity() - recordFormat.headerLength();
+        headerBuffer.putInt(headerOffset, RECORD_PREFIX);
+        headerBuffer.putInt(headerOffset + 4, variableSize);
+        headerBuffer.putInt(headerOffset + 8, checksum);
         headerBuffer.rewind();
+        return headerOffset;
     }
 
     public ByteBuffer getWritableBuffer(){
+        return getWritableBuffer(ChecksumType.CRC32C);
+    }
+
+    public ByteBuffer getWritableBuffer(ChecksumType checksumType){
+        return getWritableBuffer(checksumType, RecordFormat.V1);
+    }
+
+    // V2 sequence and timestamp are left for the writer to stamp
+    public ByteBuffer getWritableBuffer(ChecksumType checksumType, RecordFormat recordFormat){
         int variableSize = contentBuffer.remaining();
         if (variableSize == 0) {
             throw new JournalRuntimeIOException("Buffer contains no data to write");
         }
-        var checksum = computeChecksum(contentBuffer);
-        prepareRecordHeaderBufferToWrite(variableSize, checksum);
+        var checksum = computeChecksum(checksumType, contentBuffer);
+        int headerOffset = prepareRecordHeaderBufferToWrite(recordFormat, variableSize, checksum);
         return this.byteBuffer
 //            .duplicate()
             .limit(headerBuffer.capacity() + this.contentBuffer.limit())
-            .rewind();
+            .position(headerOffset);
+    }
+
+    // room for a whole record read at once - the header lands right before the content, which has to start at position 0
+    ByteBuffer getReadableBuffer(RecordFormat recordFormat, int recordLength) {
+        int headerOffset = headerBuffer.capacity() - recordFormat.headerLength();
+        return byteBuffer.duplicate()
+            .limit(headerOffset + recordLength)
+            .position(headerOffset);
+    }
+
+    // record header followed by the fragments, ready for a gathering write
+    public static ByteBuffer[] getWritableBuffers(ChecksumType checksumType, ByteBuffer... fragments) {
+        return getWritableBuffers(checksumType, RecordFormat.V1, fragments);
+    }
+
+    public static ByteBuffer[] getWritableBuffers(ChecksumType checksumType, RecordFormat recordFormat, ByteBuffer... fragments) {
+        long variableSize = 0;
+        for (ByteBuffer fragment : fragments) {
+            variableSize += fragment.remaining();
+        }
+        if (variableSize == 0) {
+            throw new JournalRuntimeIOException("Buffer contains no data to write");
+        }
+        if (variableSize > Integer.MAX_VALUE - recordFormat.headerLength()) {
+            throw new JournalRuntimeIOException("Record too large: " + variableSize + " bytes");
+        }
+        ByteBuffer header = ByteBuffer.allocate(recordFormat.headerLength())
+            .putInt(0, RECORD_PREFIX)
+            .putInt(4, (int) variableSize)
+            .putInt(8, computeChecksum(checksumType, fragments));
+        ByteBuffer[] parts = new ByteBuffer[fragments.length + 1];
+        parts[0] = header;
+        System.arraycopy(fragments, 0, parts, 1, fragments.length);
+        return parts;
     }
 
     public JournalByteBuffer clear() {
@@ -1,14 +1,36 @@
 package pl.wsztajerowski.journal.records;
 
+import java.lang.foreign.Arena;
 import java.nio.ByteBuffer;
+import java.util.function.IntFunction;
 
 public class JournalByteBufferFactory {
-    private JournalByteBufferFactory() {}
+    private static final JournalByteBufferFactory DIRECT = new JournalByteBufferFactory(ByteBuffer::allocateDirect);
+    private final IntFunction<ByteBuffer> allocator;
+
+    private JournalByteBufferFactory(IntFunction<ByteBuffer> allocator) {
+        this.allocator = allocator;
+    }
+
+    public static JournalByteBufferFactory heap() {
+        return new JournalByteBufferFactory(ByteBuffer::allocate);
+    }
+
+    public static JournalByteBufferFactory direct() {
+        return DIRECT;
+    }
+
+    // buffers stay valid until the arena is closed
+    public static JournalByteBufferFactory memorySegment(Arena arena) {
+        return new JournalByteBufferFactory(size -> arena.allocate(size, Long.BYTES).asByteBuffer());
+    }
 
     public static JournalByteBuffer createJournalByteBuffer(int size) {
-        int headerLength = RecordHeader.recordHeaderLength();
-        //FIXME: how to have a singleton factory with buffer type (Direct/NonDirect) set by client?
-        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(headerLength + size);
-        return new JournalByteBuffer(byteBuffer, headerLength);
+        return DIRECT.allocate(size);
+    }
+
+    public JournalByteBuffer allocate(int size) {
+        int headerLength = RecordFormat.maxHeaderLength();
+        return new JournalByteBuffer(allocator.apply(headerLength + size), headerLength);
     }
 }
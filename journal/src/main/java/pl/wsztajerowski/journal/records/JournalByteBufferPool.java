@@ -0,0 +1,70 @@
+package pl.wsztajerowski.journal.records;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+import static java.util.Objects.requireNonNull;
+
+// Size-class pool: content capacities are powers of two, each class keeps up to maxBuffersPerClass released buffers.
+// Buffers larger than the biggest class are not pooled. A buffer queued for writing must not be released
+// until the journal no longer references it - with the staging arena that is as soon as write returns.
+public class JournalByteBufferPool {
+    private static final int MIN_SIZE_CLASS_SHIFT = 6;
+    private static final int MAX_SIZE_CLASS_SHIFT = 20;
+    private final JournalByteBufferFactory factory;
+    private final ArrayBlockingQueue<JournalByteBuffer>[] sizeClasses;
+
+    JournalByteBufferPool(JournalByteBufferFactory factory, int maxBuffersPerClass) {
+        this.factory = factory;
+        this.sizeClasses = newSizeClasses(MAX_SIZE_CLASS_SHIFT - MIN_SIZE_CLASS_SHIFT + 1, maxBuffersPerClass);
+    }
+
+    public static JournalByteBufferPool create(JournalByteBufferFactory factory) {
+        return create(factory, 1_024);
+    }
+
+    public static JournalByteBufferPool create(JournalByteBufferFactory factory, int maxBuffersPerClass) {
+        if (maxBuffersPerClass <= 0) {
+            throw new IllegalArgumentException("Max buffers per size class must be positive - actual: " + maxBuffersPerClass);
+        }
+        return new JournalByteBufferPool(requireNonNull(factory), maxBuffersPerClass);
+    }
+
+    // returns a cleared buffer whose content capacity is at least size
+    public JournalByteBuffer acquire(int size) {
+        int sizeClass = sizeClass(size);
+        if (sizeClass >= sizeClasses.length) {
+            return factory.allocate(size);
+        }
+        JournalByteBuffer buffer = sizeClasses[sizeClass].poll();
+        if (buffer == null) {
+            return factory.allocate(1 << (sizeClass + MIN_SIZE_CLASS_SHIFT));
+        }
+        return buffer.clear();
+    }
+
+    public void release(JournalByteBuffer buffer) {
+        int capacity = buffer.getContentBuffer().capacity();
+        int sizeClass = sizeClass(capacity);
+        if (sizeClass >= sizeClasses.length || 1 << (sizeClass + MIN_SIZE_CLASS_SHIFT) != capacity) {
+            // oversized or not allocated by a pool - left to the garbage collector
+            return;
+        }
+        sizeClasses[sizeClass].offer(buffer);
+    }
+
+    private static int sizeClass(int size) {
+        if (size <= 1 << MIN_SIZE_CLASS_SHIFT) {
+            return 0;
+        }
+        return Integer.SIZE - Integer.numberOfLeadingZeros(size - 1) - MIN_SIZE_CLASS_SHIFT;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArrayBlockingQueue<JournalByteBuffer>[] newSizeClasses(int numberOfClasses, int maxBuffersPerClass) {
+        ArrayBlockingQueue<JournalByteBuffer>[] sizeClasses = new ArrayBlockingQueue[numberOfClasses];
+        for (int i = 0; i < numberOfClasses; i++) {
+            sizeClasses[i] = new ArrayBlockingQueue<>(maxBuffersPerClass);
+        }
+        return sizeClasses;
+    }
+}
@@ -0,0 +1,180 @@
+package pl.wsztajerowski.journal.records;
+
+import pl.wsztajerowski.journal.JournalRuntimeIOException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Off-heap cache of journal file pages, set-associative: a page can only live in one of the WAYS frames of the set picked
+// by its number, and each set evicts with its own CLOCK hand under its own lock. Lookups take no lock - a frame carries
+// a version which is odd while the frame is being loaded, so a copy made while the version changed is discarded.
+// Journal files only grow, so a cached page is valid up to the end of the data that was written when it was loaded;
+// a read beyond that reloads the page. Without a tracked written position only the bytes being read count as written.
+public class PageCache {
+    public static final int PAGE_SIZE = 4096;
+    private static final int WAYS = 8;
+    private static final long EMPTY = -1;
+    private final ByteBuffer frames;
+    private final int setMask;
+    private final AtomicLongArray pages;
+    private final AtomicLongArray versions;
+    // bytes of a frame's page known to be written; guarded by the frame version
+    private final int[] writtenLengths;
+    // CLOCK reference bits, set without synchronization
+    private final byte[] referenced;
+    private final int[] hands;
+    private final Object[] setLocks;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile LongSupplier writtenPosition = () -> 0;
+
+    private PageCache(int numberOfSets) {
+        int numberOfFrames = numberOfSets * WAYS;
+        this.frames = ByteBuffer.allocateDirect(numberOfFrames * PAGE_SIZE);
+        this.setMask = numberOfSets - 1;
+        this.pages = new AtomicLongArray(numberOfFrames);
+        this.versions = new AtomicLongArray(numberOfFrames);
+        this.writtenLengths = new int[numberOfFrames];
+        this.referenced = new byte[numberOfFrames];
+        this.hands = new int[numberOfSets];
+        this.setLocks = new Object[numberOfSets];
+        for (int i = 0; i < numberOfFrames; i++) {
+            pages.set(i, EMPTY);
+        }
+        for (int i = 0; i < numberOfSets; i++) {
+            setLocks[i] = new Object();
+        }
+    }
+
+    // the number of sets is rounded down to a power of two, so the cache holds between half of size and size bytes, but
+    // at least one set
+    public static PageCache create(long size) {
+        long numberOfSets = Math.max(1, size / PAGE_SIZE / WAYS);
+        return new PageCache((int) Long.highestOneBit(numberOfSets));
+    }
+
+    public long capacity() {
+        return frames.capacity();
+    }
+
+    public void trackWrittenPosition(LongSupplier writtenPosition) {
+        this.writtenPosition = writtenPosition;
+    }
+
+    public Statistics statistics() {
+        return new Statistics(hits.sum(), misses.sum());
+    }
+
+    // copies target.remaining() bytes from offset into target, advancing its position; the bytes have to be written
+    void read(FileChannel fileChannel, long offset, ByteBuffer target) {
+        while (target.hasRemaining()) {
+            long page = offset / PAGE_SIZE;
+            int from = (int) (offset % PAGE_SIZE);
+            int to = Math.min(PAGE_SIZE, from + target.remaining());
+            if (copyCached(page, from, to, target)) {
+                hits.increment();
+            } else {
+                misses.increment();
+                load(fileChannel, page, from, to, target);
+            }
+            target.position(target.position() + to - from);
+            offset += to - from;
+        }
+    }
+
+    private boolean copyCached(long page, int from, int to, ByteBuffer target) {
+        int firstFrame = setOf(page) * WAYS;
+        for (int frame = firstFrame; frame < firstFrame + WAYS; frame++) {
+            long version = versions.get(frame);
+            if ((version & 1) != 0 || pages.get(frame) != page) {
+                continue;
+            }
+            if (writtenLengths[frame] < to) {
+                return false;
+            }
+            target.put(target.position(), frames, frame * PAGE_SIZE + from, to - from);
+            VarHandle.loadLoadFence();
+            if (versions.get(frame) != version) {
+                return false;
+            }
+            referenced[frame] = 1;
+            return true;
+        }
+        return false;
+    }
+
+    private void load(FileChannel fileChannel, long page, int from, int to, ByteBuffer target) {
+        int set = setOf(page);
+        synchronized (setLocks[set]) {
+            int frame = frameFor(set, page);
+            // bytes written when the page was loaded before stay written
+            int writtenLength = pages.get(frame) == page ? Math.max(writtenLengths[frame], to) : to;
+            long writtenInPage = writtenPosition.getAsLong() - page * PAGE_SIZE;
+            versions.incrementAndGet(frame);
+            VarHandle.storeStoreFence();
+            pages.set(frame, page);
+            ByteBuffer frameBuffer = frames.slice(frame * PAGE_SIZE, PAGE_SIZE);
+            try {
+                int readBytes = readPage(fileChannel, page, frameBuffer);
+                if (readBytes < to) {
+                    pages.set(frame, EMPTY);
+                    throw new JournalRuntimeIOException("Corrupted journal file - cannot read " + (to - readBytes) + " bytes", new EOFException());
+                }
+                writtenLengths[frame] = (int) Math.max(writtenLength, Math.min(writtenInPage, readBytes));
+            } finally {
+                versions.incrementAndGet(frame);
+            }
+            target.put(target.position(), frames, frame * PAGE_SIZE + from, to - from);
+            referenced[frame] = 1;
+        }
+    }
+
+    // the frame already holding the page, an empty one, or the CLOCK victim
+    private int frameFor(int set, long page) {
+        int firstFrame = set * WAYS;
+        for (int frame = firstFrame; frame < firstFrame + WAYS; frame++) {
+            if (pages.get(frame) == page) {
+                return frame;
+            }
+        }
+        for (int frame = firstFrame; frame < firstFrame + WAYS; frame++) {
+            if (pages.get(frame) == EMPTY) {
+                return frame;
+            }
+        }
+        while (true) {
+            int frame = firstFrame + hands[set];
+            hands[set] = (hands[set] + 1) % WAYS;
+            if (referenced[frame] == 0) {
+                return frame;
+            }
+            referenced[frame] = 0;
+        }
+    }
+
+    private int setOf(long page) {
+        return (int) (page & setMask);
+    }
+
+    private static int readPage(FileChannel fileChannel, long page, ByteBuffer frameBuffer) {
+        try {
+            while (frameBuffer.hasRemaining()) {
+                if (fileChannel.read(frameBuffer, page * PAGE_SIZE + frameBuffer.position()) <= 0) {
+                    break;
+                }
+            }
+            return frameBuffer.position();
+        } catch (IOException e) {
+            throw new JournalRuntimeIOException("Error during reading from fileChannel", e);
+        }
+    }
+
+    public record Statistics(long hits, long misses) {
+    }
+}
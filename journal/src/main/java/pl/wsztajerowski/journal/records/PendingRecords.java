@@ -0,0 +1,49 @@
+package pl.wsztajerowski.journal.records;
+
+import pl.wsztajerowski.journal.Location;
+
+import java.lang.invoke.VarHandle;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.function.LongSupplier;
+
+import static pl.wsztajerowski.journal.records.Record.createAndValidateRecord;
+
+// copies of records still waiting in memory for the writer, which may reuse that memory while it is copied. The memory
+// of a record is reused only once the writer has written it, so - as with a seqlock - a copy counts only when the
+// record was still unwritten after it was taken; a checksum alone can miss a same-length record reusing the memory
+public final class PendingRecords {
+    private PendingRecords() {
+    }
+
+    // null when the copy is torn, or does not fit the destination content starting at position 0; the record is then
+    // read from the journal file
+    public static Record copy(ByteBuffer pending, LongSupplier writtenPosition, JournalByteBuffer destination, Location location, ChecksumType checksumType, RecordFormat recordFormat) {
+        ByteBuffer targetContentBuffer = destination.getContentBuffer();
+        if (targetContentBuffer.position() != 0) {
+            return null;
+        }
+        int start = pending.position();
+        int length = pending.limit() - start;
+        int headerLength = recordFormat.headerLength();
+        if (length <= headerLength || length - headerLength > targetContentBuffer.remaining()) {
+            return null;
+        }
+        try {
+            ByteBuffer copy = destination.getReadableBuffer(recordFormat, length);
+            copy.put(copy.position(), pending, start, length);
+            VarHandle.acquireFence();
+            if (writtenPosition.getAsLong() > location.offset()) {
+                return null;
+            }
+            RecordHeader recordHeader = RecordHeader.readRecordHeader(copy, recordFormat);
+            if (recordHeader.variableSize() != length - headerLength) {
+                return null;
+            }
+            targetContentBuffer.limit(recordHeader.variableSize());
+            return createAndValidateRecord(checksumType, recordHeader, location.withLength(length), targetContentBuffer);
+        } catch (InvalidRecordHeaderException | InvalidRecordChecksumException | BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
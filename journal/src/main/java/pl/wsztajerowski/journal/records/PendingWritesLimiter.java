@@ -0,0 +1,118 @@
+package pl.wsztajerowski.journal.records;
+
+import pl.wsztajerowski.journal.BackpressurePolicy;
+import pl.wsztajerowski.journal.JournalException;
+import pl.wsztajerowski.journal.PendingWritesLimitExceededException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Bounds bytes and records accepted by a writer but not yet written to the journal file.
+public class PendingWritesLimiter {
+    private final BackpressurePolicy policy;
+    // bytes and records change together, so no producer ever sees one of them updated without the other
+    private final AtomicReference<Pending> pending = new AtomicReference<>(new Pending(0, 0));
+    private final AtomicInteger waitingProducers = new AtomicInteger();
+    private final Object drained = new Object();
+    private volatile boolean closed;
+
+    public PendingWritesLimiter(BackpressurePolicy policy) {
+        this.policy = policy;
+    }
+
+    public void acquire(int bytes) {
+        acquire(1, bytes);
+    }
+
+    public void acquire(int records, long bytes) {
+        if (tryAcquire(records, bytes)) {
+            return;
+        }
+        switch (policy.mode()) {
+            case UNBOUNDED -> {
+            }
+            case REJECT -> throw limitExceeded();
+            case BLOCK, TIMEOUT -> await(records, bytes);
+        }
+    }
+
+    public void release(int records, long bytes) {
+        pending.updateAndGet(current -> new Pending(current.bytes() - bytes, current.records() - records));
+        if (waitingProducers.get() > 0) {
+            synchronized (drained) {
+                drained.notifyAll();
+            }
+        }
+    }
+
+    public long pendingBytes() {
+        return pending.get().bytes();
+    }
+
+    public int pendingRecords() {
+        return pending.get().records();
+    }
+
+    public void close() {
+        closed = true;
+        synchronized (drained) {
+            drained.notifyAll();
+        }
+    }
+
+    // a record or batch larger than the limits is still accepted once nothing else is pending; the new totals are
+    // committed only when within the limits
+    private boolean tryAcquire(int records, long bytes) {
+        boolean unbounded = policy.mode() == BackpressurePolicy.Mode.UNBOUNDED;
+        while (true) {
+            Pending current = pending.get();
+            int totalRecords = current.records() + records;
+            long totalBytes = current.bytes() + bytes;
+            if (!unbounded
+                && (totalRecords > policy.maxPendingRecords() && current.records() > 0
+                || totalBytes > policy.maxPendingBytes() && current.bytes() > 0)) {
+                return false;
+            }
+            if (pending.compareAndSet(current, new Pending(totalBytes, totalRecords))) {
+                return true;
+            }
+        }
+    }
+
+    private PendingWritesLimitExceededException limitExceeded() {
+        Pending current = pending.get();
+        return new PendingWritesLimitExceededException(current.bytes(), current.records());
+    }
+
+    private void await(int records, long bytes) {
+        long deadline = System.nanoTime() + policy.timeoutNanos();
+        waitingProducers.incrementAndGet();
+        try {
+            synchronized (drained) {
+                while (!tryAcquire(records, bytes)) {
+                    if (closed) {
+                        throw new JournalException("Journal is closed");
+                    }
+                    if (policy.mode() == BackpressurePolicy.Mode.BLOCK) {
+                        drained.wait();
+                        continue;
+                    }
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        throw limitExceeded();
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(drained, remainingNanos);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JournalException(e);
+        } finally {
+            waitingProducers.decrementAndGet();
+        }
+    }
+
+    private record Pending(long bytes, int records) {
+    }
+}
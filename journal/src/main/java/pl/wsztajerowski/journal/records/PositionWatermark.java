@@ -0,0 +1,83 @@
+package pl.wsztajerowski.journal.records;
+
+import pl.wsztajerowski.journal.JournalException;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+// Monotonic "written up to" position. Waiters spin briefly, then park until a writer covers their offset.
+public class PositionWatermark {
+    private static final int SPINS_BEFORE_PARK = 1_000;
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private volatile long position;
+    private volatile boolean closed;
+
+    public PositionWatermark(long initialPosition) {
+        this.position = initialPosition;
+    }
+
+    public long get() {
+        return position;
+    }
+
+    // called by a single writer at a time
+    public void advance(long newPosition) {
+        position = newPosition;
+        if (waiters.isEmpty()) {
+            return;
+        }
+        for (Waiter waiter : waiters) {
+            if (waiter.offset() < newPosition) {
+                LockSupport.unpark(waiter.thread());
+            }
+        }
+    }
+
+    // blocks until the byte at offset is below the watermark
+    public void awaitAbove(long offset) {
+        awaitAbove(offset, () -> false);
+    }
+
+    // false when the wait was cancelled; whoever sets cancelled has to unpark the waiting thread afterwards
+    public boolean awaitAbove(long offset, BooleanSupplier cancelled) {
+        for (int spins = 0; spins < SPINS_BEFORE_PARK; spins++) {
+            if (offset < position) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+        Waiter waiter = new Waiter(offset, Thread.currentThread());
+        waiters.add(waiter);
+        try {
+            while (offset >= position) {
+                if (cancelled.getAsBoolean()) {
+                    return false;
+                }
+                if (closed) {
+                    throw new JournalException("Journal is closed");
+                }
+                if (Thread.interrupted()) {
+                    Thread.currentThread().interrupt();
+                    throw new JournalException(new InterruptedException("Interrupted while waiting for offset " + offset));
+                }
+                LockSupport.park(this);
+            }
+            return true;
+        } finally {
+            waiters.remove(waiter);
+        }
+    }
+
+    // wakes up waiters whose offsets will never be written
+    public void close() {
+        closed = true;
+        for (Waiter waiter : waiters) {
+            LockSupport.unpark(waiter.thread());
+        }
+    }
+
+    private record Waiter(long offset, Thread thread) {
+    }
+}
@@ -8,9 +8,14 @@ import static pl.wsztajerowski.journal.records.ChecksumCalculator.computeChecksu
 
 public record Record(RecordHeader recordHeader, Location location, ByteBuffer buffer) {
     public static Record createAndValidateRecord(RecordHeader recordHeader, Location location, ByteBuffer buffer) {
-        var calculatedChecksum = computeChecksum(buffer);
-        if (calculatedChecksum != recordHeader.checksum()) {
-            throw new InvalidRecordChecksumException(calculatedChecksum, recordHeader.checksum());
+        return createAndValidateRecord(ChecksumType.CRC32C, recordHeader, location, buffer);
+    }
+
+    public static Record createAndValidateRecord(ChecksumType checksumType, RecordHeader recordHeader, Location location, ByteBuffer buffer) {
+        var calculatedChecksum = computeChecksum(checksumType, buffer);
+        int expectedChecksum = recordHeader.contentChecksum(checksumType);
+        if (calculatedChecksum != expectedChecksum) {
+            throw new InvalidRecordChecksumException(calculatedChecksum, expectedChecksum);
         }
         return new Record(recordHeader, location, buffer);
     }
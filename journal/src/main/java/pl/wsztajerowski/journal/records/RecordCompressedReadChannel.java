@@ -0,0 +1,193 @@
+package pl.wsztajerowski.journal.records;
+
+import pl.wsztajerowski.journal.JournalException;
+import pl.wsztajerowski.journal.JournalRuntimeIOException;
+import pl.wsztajerowski.journal.Location;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static pl.wsztajerowski.journal.records.ChecksumCalculator.computeChecksum;
+import static pl.wsztajerowski.journal.records.Record.createAndValidateRecord;
+
+// Reads records of a compressed journal. Each thread keeps the last block it decompressed, so neighbouring records
+// are copied out of it without reading and decompressing the block again. The blocks of all threads are tracked, so
+// close ends their codecs' native state and drops their buffers rather than leaving both to the threads.
+public class RecordCompressedReadChannel implements RecordReader {
+    private final FileChannel fileChannel;
+    private final BlockIndex blockIndex;
+    private final CompressionType compressionType;
+    private final ChecksumType checksumType;
+    private final boolean verifyChecksums;
+    private final RecordFormat recordFormat;
+    private final ThreadLocal<DecompressedBlock> threadLocalBlock;
+    private final Set<DecompressedBlock> decompressedBlocks = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    RecordCompressedReadChannel(FileChannel fileChannel, BlockIndex blockIndex, CompressionType compressionType, ChecksumType checksumType, boolean verifyChecksums, RecordFormat recordFormat) {
+        this.fileChannel = fileChannel;
+        this.blockIndex = blockIndex;
+        this.compressionType = compressionType;
+        this.checksumType = checksumType;
+        this.verifyChecksums = verifyChecksums;
+        this.recordFormat = recordFormat;
+        threadLocalBlock = ThreadLocal.withInitial(() -> {
+            DecompressedBlock decompressedBlock = new DecompressedBlock();
+            decompressedBlocks.add(decompressedBlock);
+            return decompressedBlock;
+        });
+    }
+
+    public static RecordCompressedReadChannel open(Path journalPath, BlockIndex blockIndex, CompressionType compressionType, ChecksumType checksumType, boolean verifyChecksums, RecordFormat recordFormat) {
+        try {
+            FileChannel readerChannel = FileChannel.open(journalPath, READ);
+            return new RecordCompressedReadChannel(readerChannel, blockIndex, compressionType, checksumType, verifyChecksums, recordFormat);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void close() throws IOException {
+        closed = true;
+        try {
+            fileChannel.close();
+        } finally {
+            for (DecompressedBlock decompressedBlock : decompressedBlocks) {
+                decompressedBlock.release();
+            }
+            decompressedBlocks.clear();
+        }
+    }
+
+    public Record read(JournalByteBuffer destination, Location location) {
+        ByteBuffer block = recordAt(location.offset());
+        RecordHeader recordHeader = readRecordHeader(block);
+        ByteBuffer targetContentBuffer = destination.getContentBuffer();
+        if (targetContentBuffer.remaining() < recordHeader.variableSize()) {
+            throw new NotEnoughSpaceInBufferException(targetContentBuffer.remaining(), recordHeader.variableSize());
+        }
+        targetContentBuffer.limit(targetContentBuffer.position() + recordHeader.variableSize());
+        targetContentBuffer.put(targetContentBuffer.position(), block, block.position(), recordHeader.variableSize());
+        if (!verifyChecksums) {
+            return new Record(recordHeader, location, targetContentBuffer);
+        }
+        return createAndValidateRecord(checksumType, recordHeader, location, targetContentBuffer);
+    }
+
+    public RecordHeader readHeader(Location location) {
+        return readRecordHeader(recordAt(location.offset()));
+    }
+
+    public void verify(Location location) {
+        ByteBuffer block = recordAt(location.offset());
+        RecordHeader recordHeader = readRecordHeader(block);
+        block.limit(block.position() + recordHeader.variableSize());
+        int calculatedChecksum = computeChecksum(checksumType, block);
+        int expectedChecksum = recordHeader.contentChecksum(checksumType);
+        if (calculatedChecksum != expectedChecksum) {
+            throw new InvalidRecordChecksumException(calculatedChecksum, expectedChecksum);
+        }
+    }
+
+    public RecordCursor scan(long fromOffset, long toOffset, int readAheadSize) {
+        throw new JournalException("Sequential scans are not supported for compressed journals");
+    }
+
+    // view of the decompressed block positioned at the record
+    private ByteBuffer recordAt(long offset) {
+        if (closed) {
+            throw new JournalException("Journal is closed");
+        }
+        BlockIndex.Block block = blockIndex.find(offset);
+        if (block == null) {
+            throw new JournalRuntimeIOException("Cannot read record with offset " + offset + " - no block contains it", new EOFException());
+        }
+        DecompressedBlock decompressedBlock = threadLocalBlock.get();
+        if (decompressedBlock.block != block) {
+            decompressedBlock.load(block);
+        }
+        return decompressedBlock.content.duplicate()
+            .position((int) (offset - block.offset()));
+    }
+
+    // sequence number following the last record of the journal, 0 when it has none
+    public long nextSequence() {
+        if (recordFormat != RecordFormat.V2 || blockIndex.endOffset() == blockIndex.startOffset()) {
+            return 0;
+        }
+        BlockIndex.Block lastBlock = blockIndex.find(blockIndex.endOffset() - 1);
+        ByteBuffer block = recordAt(lastBlock.offset());
+        long lastSequence = 0;
+        while (block.hasRemaining()) {
+            RecordHeader recordHeader = readRecordHeader(block);
+            lastSequence = recordHeader.sequence();
+            block.position(block.position() + recordHeader.variableSize());
+        }
+        return lastSequence + 1;
+    }
+
+    private RecordHeader readRecordHeader(ByteBuffer block) {
+        if (block.remaining() < recordFormat.headerLength()) {
+            throw new JournalRuntimeIOException("Corrupted journal file - record header crosses the end of its block");
+        }
+        RecordHeader recordHeader = RecordHeader.readRecordHeader(block, recordFormat);
+        if (block.remaining() < recordHeader.variableSize()) {
+            throw new JournalRuntimeIOException("Corrupted journal file - record crosses the end of its block");
+        }
+        return recordHeader;
+    }
+
+    private class DecompressedBlock {
+        private final BlockCodec codec = compressionType.newCodec();
+        private ByteBuffer compressed = ByteBuffer.allocateDirect(0);
+        private ByteBuffer content = ByteBuffer.allocateDirect(0);
+        private BlockIndex.Block block;
+
+        private void load(BlockIndex.Block block) {
+            this.block = null;
+            if (compressed.capacity() < block.compressedLength()) {
+                compressed = ByteBuffer.allocateDirect(block.compressedLength());
+            }
+            // one spare byte, so the codec never runs out of room before it sees the end of the stream
+            if (content.capacity() <= block.uncompressedLength()) {
+                content = ByteBuffer.allocateDirect(block.uncompressedLength() + 1);
+            }
+            compressed.clear()
+                .limit(block.compressedLength());
+            try {
+                long position = block.dataPosition();
+                while (compressed.hasRemaining()) {
+                    if (fileChannel.read(compressed, position + compressed.position()) == -1) {
+                        throw new JournalRuntimeIOException("Corrupted journal file - cannot read block at " + block.filePosition(), new EOFException());
+                    }
+                }
+            } catch (IOException e) {
+                throw new JournalRuntimeIOException("Error during reading from fileChannel", e);
+            }
+            compressed.flip();
+            content.clear();
+            codec.decompress(compressed, content);
+            content.flip();
+            if (content.limit() != block.uncompressedLength()) {
+                throw new JournalRuntimeIOException("Corrupted journal file - block at %d decompressed to %d bytes instead of %d"
+                    .formatted(block.filePosition(), content.limit(), block.uncompressedLength()));
+            }
+            this.block = block;
+        }
+
+        // the thread keeps its block after close, so the direct buffers are dropped for the GC to free them
+        private void release() {
+            codec.close();
+            block = null;
+            compressed = ByteBuffer.allocateDirect(0);
+            content = ByteBuffer.allocateDirect(0);
+        }
+    }
+}
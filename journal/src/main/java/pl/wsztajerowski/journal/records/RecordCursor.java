@@ -0,0 +1,172 @@
+package pl.wsztajerowski.journal.records;
+
+import pl.wsztajerowski.journal.JournalException;
+import pl.wsztajerowski.journal.JournalRuntimeIOException;
+import pl.wsztajerowski.journal.Location;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static pl.wsztajerowski.journal.records.Record.createAndValidateRecord;
+
+// Streams the records of a file range in order. A prefetch thread reads the range in large chunks ahead of the consumer,
+// so reading overlaps decoding; records crossing a chunk boundary are assembled in a spill buffer.
+// A returned record, including its content buffer, is valid until the next call to next().
+public class RecordCursor implements Iterator<Record>, AutoCloseable {
+    private static final int CHUNKS = 2;
+    private static final Chunk END = new Chunk(null, 0, null);
+    private static final ByteBuffer CLOSED = ByteBuffer.allocate(0);
+    private final FileChannel fileChannel;
+    private final long endOffset;
+    private final RecordFormat recordFormat;
+    private final ChecksumType checksumType;
+    private final boolean verifyChecksums;
+    private final BlockingQueue<ByteBuffer> freeChunks = new ArrayBlockingQueue<>(CHUNKS + 1);
+    private final BlockingQueue<Chunk> readChunks = new ArrayBlockingQueue<>(CHUNKS + 1);
+    private ByteBuffer chunk;
+    private ByteBuffer spill = ByteBuffer.allocateDirect(0);
+    private long position;
+    private volatile boolean closed;
+
+    RecordCursor(FileChannel fileChannel, long startOffset, long endOffset, int readAheadSize, RecordFormat recordFormat, ChecksumType checksumType, boolean verifyChecksums) {
+        if (readAheadSize <= 0) {
+            throw new IllegalArgumentException("Read-ahead size must be positive - actual: " + readAheadSize);
+        }
+        this.fileChannel = fileChannel;
+        this.endOffset = endOffset;
+        this.recordFormat = recordFormat;
+        this.checksumType = checksumType;
+        this.verifyChecksums = verifyChecksums;
+        this.position = startOffset;
+        for (int i = 0; i < CHUNKS; i++) {
+            freeChunks.add(ByteBuffer.allocateDirect(readAheadSize));
+        }
+        Thread.ofPlatform()
+            .daemon()
+            .name("journal-cursor-prefetch")
+            .start(() -> prefetch(startOffset));
+    }
+
+    private void prefetch(long startOffset) {
+        long offset = startOffset;
+        try {
+            while (offset < endOffset) {
+                ByteBuffer buffer = freeChunks.take();
+                if (closed) {
+                    return;
+                }
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), endOffset - offset));
+                while (buffer.hasRemaining()) {
+                    if (fileChannel.read(buffer, offset + buffer.position()) == -1) {
+                        throw new EOFException("Journal file ends before offset " + endOffset);
+                    }
+                }
+                readChunks.put(new Chunk(buffer.flip(), offset, null));
+                offset += buffer.limit();
+            }
+            readChunks.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            readChunks.offer(new Chunk(null, offset, e));
+        }
+    }
+
+    // offset of the next record
+    public long position() {
+        return position;
+    }
+
+    public boolean hasNext() {
+        return position < endOffset;
+    }
+
+    public Record next() {
+        if (closed) {
+            throw new JournalException("Cursor is closed");
+        }
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        long offset = position;
+        int headerLength = recordFormat.headerLength();
+        if (position + headerLength > endOffset) {
+            throw new InvalidRecordHeaderException("Record header at " + offset + " crosses the end of data");
+        }
+        RecordHeader recordHeader = RecordHeader.readRecordHeader(take(headerLength), recordFormat);
+        if (position + recordHeader.variableSize() > endOffset) {
+            throw new InvalidRecordHeaderException("Record at " + offset + " crosses the end of data");
+        }
+        Location location = new Location(offset, 0, headerLength + recordHeader.variableSize());
+        ByteBuffer content = take(recordHeader.variableSize());
+        if (!verifyChecksums) {
+            return new Record(recordHeader, location, content);
+        }
+        return createAndValidateRecord(checksumType, recordHeader, location, content);
+    }
+
+    // the next length bytes - a slice of the current chunk, or a copy in the spill buffer when they cross chunks
+    private ByteBuffer take(int length) {
+        if (chunk == null || !chunk.hasRemaining()) {
+            nextChunk();
+        }
+        position += length;
+        if (chunk.remaining() >= length) {
+            ByteBuffer slice = chunk.slice(chunk.position(), length);
+            chunk.position(chunk.position() + length);
+            return slice;
+        }
+        if (spill.capacity() < length) {
+            spill = ByteBuffer.allocateDirect(Math.max(length, spill.capacity() * 2));
+        }
+        spill.clear()
+            .limit(length);
+        while (spill.hasRemaining()) {
+            if (!chunk.hasRemaining()) {
+                nextChunk();
+            }
+            int copied = Math.min(spill.remaining(), chunk.remaining());
+            spill.put(spill.position(), chunk, chunk.position(), copied);
+            spill.position(spill.position() + copied);
+            chunk.position(chunk.position() + copied);
+        }
+        return spill.flip();
+    }
+
+    private void nextChunk() {
+        if (chunk != null) {
+            freeChunks.add(chunk);
+            chunk = null;
+        }
+        Chunk next;
+        try {
+            next = readChunks.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JournalException("Interrupted while waiting for journal data", e);
+        }
+        if (next.failure() != null) {
+            throw new JournalRuntimeIOException("Cannot read journal file at " + next.offset(), next.failure());
+        }
+        if (next == END) {
+            throw new JournalRuntimeIOException("Corrupted journal file - data ends before offset " + endOffset);
+        }
+        chunk = next.buffer();
+    }
+
+    // wakes the prefetch thread up instead of interrupting it - an interrupted read would close the shared file channel
+    public void close() {
+        closed = true;
+        freeChunks.offer(CLOSED);
+    }
+
+    private record Chunk(ByteBuffer buffer, long offset, IOException failure) {
+    }
+}
@@ -0,0 +1,28 @@
+package pl.wsztajerowski.journal.records;
+
+// Record header layouts. V2 adds a dense sequence number and the write timestamp, both stamped by the writer thread.
+// The producer checksums the content; the writer XORs that with the checksum of the sequence and timestamp, so the
+// record checksum covers them too.
+public enum RecordFormat {
+    // [ int prefix, int variableSize, int checksum ]
+    V1(3 * Integer.BYTES),
+    // [ int prefix, int variableSize, int checksum, long sequence, long timestampMillis ]
+    V2(3 * Integer.BYTES + 2 * Long.BYTES);
+
+    static final int SEQUENCE_OFFSET = 3 * Integer.BYTES;
+    static final int TIMESTAMP_OFFSET = SEQUENCE_OFFSET + Long.BYTES;
+
+    private final int headerLength;
+
+    RecordFormat(int headerLength) {
+        this.headerLength = headerLength;
+    }
+
+    public int headerLength() {
+        return headerLength;
+    }
+
+    static int maxHeaderLength() {
+        return V2.headerLength;
+    }
+}
@@ -0,0 +1,217 @@
+package pl.wsztajerowski.journal.records;
+
+import pl.wsztajerowski.Exchange;
+import pl.wsztajerowski.MPSCFramework;
+import pl.wsztajerowski.journal.BackpressurePolicy;
+import pl.wsztajerowski.journal.DurabilityPolicy;
+import pl.wsztajerowski.journal.JournalException;
+import pl.wsztajerowski.journal.JournalRuntimeIOException;
+import pl.wsztajerowski.journal.Location;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BooleanSupplier;
+
+public class RecordGroupCommitChannel implements RecordWriter {
+    // a request is a contiguous run of buffers - one record, the parts of one record or a batch of records
+    private static final ByteBuffer[] FLUSH_MARKER = new ByteBuffer[0];
+    private final FilePreallocator preallocator;
+    private final FileChannel fileChannel;
+    private final DurabilityPolicy durabilityPolicy;
+    private final MPSCFramework<ByteBuffer[], Location> framework;
+    private final PendingWritesLimiter pendingWritesLimiter;
+    private final PositionWatermark writtenPosition;
+    // null unless records are in the V2 format or indexed
+    private final RecordSequencer sequencer;
+    // the first failure of a batch write, after which every write fails
+    private volatile Exception failure;
+
+    RecordGroupCommitChannel(FilePreallocator preallocator, DurabilityPolicy durabilityPolicy, long initialPosition, BackpressurePolicy backpressurePolicy, RecordFormat recordFormat, ChecksumType checksumType, long nextSequence, SparseIndex sparseIndex) {
+        this.preallocator = preallocator;
+        this.sequencer = RecordSequencer.create(recordFormat, checksumType, nextSequence, sparseIndex);
+        this.fileChannel = preallocator.channel();
+        this.durabilityPolicy = durabilityPolicy;
+        this.pendingWritesLimiter = new PendingWritesLimiter(backpressurePolicy);
+        this.writtenPosition = new PositionWatermark(initialPosition);
+        this.framework = MPSCFramework.create(this::writeBatch);
+    }
+
+    public static RecordGroupCommitChannel open(Path journalFile, DurabilityPolicy durabilityPolicy) {
+        try {
+            return open(journalFile, durabilityPolicy, Files.size(journalFile), 0, BackpressurePolicy.unbounded());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static RecordGroupCommitChannel open(Path journalFile, DurabilityPolicy durabilityPolicy, long initialPosition, long preallocationSize, BackpressurePolicy backpressurePolicy) {
+        return open(journalFile, durabilityPolicy, initialPosition, preallocationSize, backpressurePolicy, RecordFormat.V1, ChecksumType.CRC32C, 0, null);
+    }
+
+    public static RecordGroupCommitChannel open(Path journalFile, DurabilityPolicy durabilityPolicy, long initialPosition, long preallocationSize, BackpressurePolicy backpressurePolicy, RecordFormat recordFormat, ChecksumType checksumType, long nextSequence, SparseIndex sparseIndex) {
+        if (durabilityPolicy.mode() == DurabilityPolicy.Mode.INTERVAL) {
+            throw new IllegalArgumentException("Group commit write mode supports only NONE and GROUP_COMMIT durability policies");
+        }
+        try {
+            FilePreallocator preallocator = FilePreallocator.open(journalFile, initialPosition, preallocationSize);
+            return new RecordGroupCommitChannel(preallocator, durabilityPolicy, initialPosition, backpressurePolicy, recordFormat, checksumType, nextSequence, sparseIndex);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Location write(ByteBuffer record) {
+        pendingWritesLimiter.acquire(record.remaining());
+        return checkWritten(framework.produce(new ByteBuffer[]{record}));
+    }
+
+    // the parts stay one request, so they are written next to each other by the batch's gathering write
+    public Location writeGathered(ByteBuffer[] parts) {
+        pendingWritesLimiter.acquire(1, size(parts));
+        return checkWritten(framework.produce(parts));
+    }
+
+    // the batch is one request, so the framework places its records in one contiguous range
+    public long[] writeAll(ByteBuffer[] records) {
+        long[] offsets = new long[records.length];
+        if (records.length == 0) {
+            // an empty request would be taken for a flush marker
+            return offsets;
+        }
+        long offset = 0;
+        for (int i = 0; i < records.length; i++) {
+            offsets[i] = offset;
+            offset += records[i].remaining();
+        }
+        pendingWritesLimiter.acquire(1, offset);
+        long batchOffset = checkWritten(framework.produce(records)).offset();
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] += batchOffset;
+        }
+        return offsets;
+    }
+
+    public CompletableFuture<Location> writeAsync(ByteBuffer record) {
+        pendingWritesLimiter.acquire(record.remaining());
+        return framework.produceAsync(new ByteBuffer[]{record})
+            .thenApply(this::checkWritten);
+    }
+
+    public CompletableFuture<Void> flush() {
+        return framework.produceAsync(FLUSH_MARKER)
+            .thenAccept(this::checkWritten);
+    }
+
+    public long writtenPosition() {
+        return writtenPosition.get();
+    }
+
+    public long pendingBytes() {
+        return pendingWritesLimiter.pendingBytes();
+    }
+
+    public void awaitWritten(long offset) {
+        writtenPosition.awaitAbove(offset);
+    }
+
+    public boolean awaitWritten(long offset, BooleanSupplier cancelled) {
+        return writtenPosition.awaitAbove(offset, cancelled);
+    }
+
+    public long nextSequence() {
+        return sequencer == null ? 0 : sequencer.nextSequence();
+    }
+
+    public ByteBuffer findPending(long offset) {
+        return null;
+    }
+
+    public void close() throws IOException {
+        pendingWritesLimiter.close();
+        try {
+            flush().join();
+        } catch (CompletionException e) {
+            // failure was already reported to producers
+        }
+        try {
+            framework.close();
+        } catch (Exception e) {
+            throw new JournalException("Cannot stop group commit framework", e);
+        } finally {
+            writtenPosition.close();
+            preallocator.close(writtenPosition.get());
+        }
+    }
+
+    private static long size(ByteBuffer[] buffers) {
+        long size = 0;
+        for (ByteBuffer buffer : buffers) {
+            size += buffer.remaining();
+        }
+        return size;
+    }
+
+    private Location checkWritten(Location location) {
+        if (location == null) {
+            if (failure instanceof IOException ioFailure) {
+                throw new JournalRuntimeIOException("Group commit write failed", ioFailure);
+            }
+            throw new JournalException("Group commit write failed", failure);
+        }
+        return location;
+    }
+
+    private void writeBatch(Exchange<ByteBuffer[], Location>[] batch) {
+        int numberOfBuffers = 0;
+        for (Exchange<ByteBuffer[], Location> exchange : batch) {
+            numberOfBuffers += exchange.request.length;
+        }
+        ByteBuffer[] buffers = new ByteBuffer[numberOfBuffers];
+        long position = writtenPosition.get();
+        long totalBytesToWrite = 0;
+        int numberOfRecords = 0;
+        boolean syncRequested = durabilityPolicy.mode() == DurabilityPolicy.Mode.GROUP_COMMIT;
+        int bufferIndex = 0;
+        for (Exchange<ByteBuffer[], Location> exchange : batch) {
+            ByteBuffer[] request = exchange.request;
+            long requestSize = size(request);
+            syncRequested |= request.length == 0;
+            numberOfRecords += requestSize > 0 ? 1 : 0;
+            System.arraycopy(request, 0, buffers, bufferIndex, request.length);
+            bufferIndex += request.length;
+            exchange.response = new Location(position + totalBytesToWrite);
+            totalBytesToWrite += requestSize;
+        }
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+            if (sequencer != null) {
+                sequencer.stamp(buffers, buffers.length, position, System.currentTimeMillis());
+            }
+            preallocator.ensureAllocated(position + totalBytesToWrite);
+            long totalBytesWritten = 0;
+            while (totalBytesWritten < totalBytesToWrite) {
+                totalBytesWritten += fileChannel.write(buffers, 0, buffers.length);
+            }
+            if (syncRequested) {
+                fileChannel.force(false);
+            }
+            writtenPosition.advance(position + totalBytesWritten);
+        } catch (Exception e) {
+            // stamping, indexing and preallocation may fail too; nothing may escape into the framework's consumer
+            failure = e;
+            for (Exchange<ByteBuffer[], Location> exchange : batch) {
+                exchange.response = null;
+            }
+        } finally {
+            pendingWritesLimiter.release(numberOfRecords, totalBytesToWrite);
+        }
+    }
+}
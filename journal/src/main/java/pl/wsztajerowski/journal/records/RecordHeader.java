@@ -1,20 +1,54 @@
 package pl.wsztajerowski.journal.records;
 
+import java.nio.ByteBuffer;
+
+import static pl.wsztajerowski.journal.records.ChecksumCalculator.computeChecksum;
+import static pl.wsztajerowski.journal.records.InvalidRecordHeaderException.invalidRecordHeaderPrefix;
 import static pl.wsztajerowski.journal.records.InvalidRecordHeaderException.invalidRecordVariableSize;
 
-public record RecordHeader(int variableSize, int checksum){
-    // v02 record header format: [ int prefix, int variableSize, int checksum ]
+// sequence and timestamp are NO_SEQUENCE for records in the V1 format
+public record RecordHeader(int variableSize, int checksum, long sequence, long timestamp){
+    // record header formats: see RecordFormat
     public static final int RECORD_PREFIX = 0xF0CACC1A;
+    public static final long NO_SEQUENCE = -1;
     private static final int NUMBER_OF_INTS_IN_HEADER = 3;
 
+    public RecordHeader(int variableSize, int checksum) {
+        this(variableSize, checksum, NO_SEQUENCE, NO_SEQUENCE);
+    }
+
+    // checksum the content has to match - V2 checksums are XOR-ed with the checksum of the sequence and timestamp
+    public int contentChecksum(ChecksumType checksumType) {
+        return sequence == NO_SEQUENCE ? checksum : checksum ^ computeChecksum(checksumType, sequence, timestamp);
+    }
+
+    // length of the V1 record header
     public static int recordHeaderLength() {
         return NUMBER_OF_INTS_IN_HEADER * Integer.BYTES;
     }
 
     public static RecordHeader createAndValidateHeader(int variableSize, int checksum) {
+        return createAndValidateHeader(variableSize, checksum, NO_SEQUENCE, NO_SEQUENCE);
+    }
+
+    public static RecordHeader createAndValidateHeader(int variableSize, int checksum, long sequence, long timestamp) {
         if (variableSize <= 0 ){
             throw invalidRecordVariableSize(variableSize);
         }
-        return new RecordHeader(variableSize, checksum);
+        return new RecordHeader(variableSize, checksum, sequence, timestamp);
+    }
+
+    // reads the header at the buffer position, advancing the position past it
+    static RecordHeader readRecordHeader(ByteBuffer headerBuffer, RecordFormat recordFormat) {
+        int prefix = headerBuffer.getInt();
+        if (prefix != RECORD_PREFIX) {
+            throw invalidRecordHeaderPrefix(prefix);
+        }
+        int variableSize = headerBuffer.getInt();
+        int checksum = headerBuffer.getInt();
+        if (recordFormat == RecordFormat.V1) {
+            return createAndValidateHeader(variableSize, checksum);
+        }
+        return createAndValidateHeader(variableSize, checksum, headerBuffer.getLong(), headerBuffer.getLong());
     }
 }
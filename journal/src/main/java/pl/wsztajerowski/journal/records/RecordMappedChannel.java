@@ -0,0 +1,304 @@
+package pl.wsztajerowski.journal.records;
+
+import pl.wsztajerowski.journal.DurabilityPolicy;
+import pl.wsztajerowski.journal.JournalException;
+import pl.wsztajerowski.journal.JournalRuntimeIOException;
+import pl.wsztajerowski.journal.Location;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+// Regions are mapped into arenas of their own, so a region leaving the window is unmapped right away instead of whenever
+// the GC collects its buffer - only the window, not every region ever written, takes address space and map entries.
+public class RecordMappedChannel implements RecordWriter {
+    private static final int SPINS_BEFORE_YIELD = 100;
+    private final FileChannel fileChannel;
+    private final DurabilityPolicy durabilityPolicy;
+    private final long regionSize;
+    private final ConcurrentHashMap<Long, Region> regions = new ConcurrentHashMap<>();
+    private final AtomicLong claimedPosition;
+    private final PositionWatermark committedPosition;
+    private final AtomicInteger writersInFlight = new AtomicInteger();
+    private final Object syncLock = new Object();
+    private volatile long syncedPosition;
+    private volatile boolean closed;
+    private volatile RuntimeException failure;
+
+    RecordMappedChannel(FileChannel fileChannel, DurabilityPolicy durabilityPolicy, long initialPosition, long regionSize) {
+        this.fileChannel = fileChannel;
+        this.durabilityPolicy = durabilityPolicy;
+        this.regionSize = regionSize;
+        this.claimedPosition = new AtomicLong(initialPosition);
+        this.committedPosition = new PositionWatermark(initialPosition);
+        this.syncedPosition = initialPosition;
+    }
+
+    public static RecordMappedChannel open(Path journalFile, DurabilityPolicy durabilityPolicy, long initialPosition, long regionSize) {
+        if (durabilityPolicy.mode() == DurabilityPolicy.Mode.INTERVAL) {
+            throw new IllegalArgumentException("Mapped write mode supports only NONE and GROUP_COMMIT durability policies");
+        }
+        try {
+            FileChannel writerChannel = FileChannel.open(journalFile, READ, WRITE);
+            return new RecordMappedChannel(writerChannel, durabilityPolicy, initialPosition, regionSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Location write(ByteBuffer record) {
+        int size = record.remaining();
+        long offset;
+        enterWriter();
+        try {
+            offset = claimedPosition.getAndAdd(size);
+            copy(record, offset);
+            commit(offset, size);
+        } finally {
+            writersInFlight.decrementAndGet();
+        }
+        if (durabilityPolicy.mode() == DurabilityPolicy.Mode.GROUP_COMMIT) {
+            sync(offset + size);
+        }
+        return new Location(offset);
+    }
+
+    public Location writeGathered(ByteBuffer[] parts) {
+        long size = 0;
+        for (ByteBuffer part : parts) {
+            size += part.remaining();
+        }
+        long offset;
+        enterWriter();
+        try {
+            offset = claimedPosition.getAndAdd(size);
+            long position = offset;
+            for (ByteBuffer part : parts) {
+                copy(part, position);
+                position += part.remaining();
+            }
+            commit(offset, size);
+        } finally {
+            writersInFlight.decrementAndGet();
+        }
+        if (durabilityPolicy.mode() == DurabilityPolicy.Mode.GROUP_COMMIT) {
+            sync(offset + size);
+        }
+        return new Location(offset);
+    }
+
+    public long[] writeAll(ByteBuffer[] records) {
+        long[] offsets = new long[records.length];
+        long size = 0;
+        for (ByteBuffer record : records) {
+            size += record.remaining();
+        }
+        long offset;
+        enterWriter();
+        try {
+            offset = claimedPosition.getAndAdd(size);
+            long position = offset;
+            for (int i = 0; i < records.length; i++) {
+                offsets[i] = position;
+                position += records[i].remaining();
+                copy(records[i], offsets[i]);
+            }
+            commit(offset, size);
+        } finally {
+            writersInFlight.decrementAndGet();
+        }
+        if (durabilityPolicy.mode() == DurabilityPolicy.Mode.GROUP_COMMIT) {
+            sync(offset + size);
+        }
+        return offsets;
+    }
+
+    public CompletableFuture<Location> writeAsync(ByteBuffer record) {
+        try {
+            return CompletableFuture.completedFuture(write(record));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public CompletableFuture<Void> flush() {
+        if (failure != null) {
+            return CompletableFuture.failedFuture(new JournalException("Mapped write failed", failure));
+        }
+        try {
+            sync(committedPosition.get());
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public long writtenPosition() {
+        return committedPosition.get();
+    }
+
+    // producers copy straight into the mapping, so only copies still in progress are pending
+    public long pendingBytes() {
+        return claimedPosition.get() - committedPosition.get();
+    }
+
+    public void awaitWritten(long offset) {
+        committedPosition.awaitAbove(offset);
+    }
+
+    public boolean awaitWritten(long offset, BooleanSupplier cancelled) {
+        return committedPosition.awaitAbove(offset, cancelled);
+    }
+
+    public long nextSequence() {
+        return 0;
+    }
+
+    public ByteBuffer findPending(long offset) {
+        return null;
+    }
+
+    public void close() throws IOException {
+        closed = true;
+        while (writersInFlight.get() != 0) {
+            Thread.yield();
+        }
+        committedPosition.close();
+        try {
+            // records committed before a failed copy are intact, so they are forced even then
+            sync(committedPosition.get());
+            synchronized (syncLock) {
+                for (Region region : regions.values()) {
+                    region.arena().close();
+                }
+                regions.clear();
+            }
+            // mapping extends the file to whole regions, so the unused tail is cut off
+            fileChannel.truncate(committedPosition.get());
+        } finally {
+            fileChannel.close();
+        }
+    }
+
+    // a failed copy leaves a range that is never committed, so every later write would wait behind it
+    private void enterWriter() {
+        writersInFlight.incrementAndGet();
+        if (closed) {
+            writersInFlight.decrementAndGet();
+            throw new JournalException("Journal is closed");
+        }
+        if (failure != null) {
+            writersInFlight.decrementAndGet();
+            throw new JournalException("Mapped write failed", failure);
+        }
+    }
+
+    private void copy(ByteBuffer record, long offset) {
+        try {
+            long position = offset;
+            int sourcePosition = record.position();
+            int remaining = record.remaining();
+            while (remaining > 0) {
+                int regionOffset = (int) (position % regionSize);
+                int length = (int) Math.min(remaining, regionSize - regionOffset);
+                region(position / regionSize).buffer().put(regionOffset, record, sourcePosition, length);
+                sourcePosition += length;
+                position += length;
+                remaining -= length;
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+            // readers waiting for the failed range or anything after it would never be woken up
+            committedPosition.close();
+            throw e;
+        }
+    }
+
+    // records become visible in offset order, whatever order their copies finish in
+    private void commit(long offset, long size) {
+        int spins = 0;
+        while (committedPosition.get() != offset) {
+            if (failure != null) {
+                throw new JournalException("Mapped write failed", failure);
+            }
+            if (++spins < SPINS_BEFORE_YIELD) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        long end = offset + size;
+        if (end / regionSize > offset / regionSize) {
+            retireRegionsBefore(end / regionSize);
+        }
+        committedPosition.advance(end);
+    }
+
+    private Region region(long regionIndex) {
+        return regions.computeIfAbsent(regionIndex, index -> {
+            Arena arena = Arena.ofShared();
+            try {
+                MemorySegment segment = fileChannel.map(FileChannel.MapMode.READ_WRITE, index * regionSize, regionSize, arena);
+                return new Region(arena, segment, segment.asByteBuffer());
+            } catch (IOException e) {
+                arena.close();
+                throw new JournalRuntimeIOException("Cannot map journal region " + index, e);
+            }
+        });
+    }
+
+    // fully committed regions leave the window; forcing them first keeps flush() limited to the mapped ones. No writer
+    // touches them any more, and holding the sync lock keeps a concurrent sync from forcing an unmapped region.
+    private void retireRegionsBefore(long regionIndex) {
+        synchronized (syncLock) {
+            for (Long index : regions.keySet()) {
+                if (index < regionIndex) {
+                    Region region = regions.remove(index);
+                    if (region != null) {
+                        region.segment().force();
+                        region.arena().close();
+                    }
+                }
+            }
+        }
+    }
+
+    private void sync(long position) {
+        if (syncedPosition >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            long from = syncedPosition;
+            if (from >= position) {
+                return;
+            }
+            long to = committedPosition.get();
+            for (long index = from / regionSize; index * regionSize < to; index++) {
+                Region region = regions.get(index);
+                if (region == null) {
+                    continue;
+                }
+                long regionStart = index * regionSize;
+                int forceFrom = (int) (Math.max(from, regionStart) - regionStart);
+                int forceTo = (int) (Math.min(to, regionStart + regionSize) - regionStart);
+                region.segment().asSlice(forceFrom, forceTo - forceFrom).force();
+            }
+            syncedPosition = to;
+        }
+    }
+
+    private record Region(Arena arena, MemorySegment segment, ByteBuffer buffer) {
+    }
+}
@@ -0,0 +1,173 @@
+package pl.wsztajerowski.journal.records;
+
+import pl.wsztajerowski.journal.JournalException;
+import pl.wsztajerowski.journal.JournalRuntimeIOException;
+import pl.wsztajerowski.journal.Location;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static pl.wsztajerowski.journal.records.Record.createAndValidateRecord;
+
+// Views handed out by readView keep their mapping alive until they are garbage collected,
+// so they stay valid after the channel is closed or a region is remapped.
+public class RecordMappedReadChannel implements RecordReader {
+    private final FileChannel fileChannel;
+    private final long regionSize;
+    private final ChecksumType checksumType;
+    private final boolean verifyChecksums;
+    private final RecordFormat recordFormat;
+    private static final int REMAP_STEP = 1 << 20;
+    private final ConcurrentHashMap<Long, MappedByteBuffer> regions = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    RecordMappedReadChannel(FileChannel fileChannel, long regionSize, ChecksumType checksumType, boolean verifyChecksums, RecordFormat recordFormat) {
+        this.fileChannel = fileChannel;
+        this.regionSize = regionSize;
+        this.checksumType = checksumType;
+        this.verifyChecksums = verifyChecksums;
+        this.recordFormat = recordFormat;
+    }
+
+    public static RecordMappedReadChannel open(Path journalPath, long regionSize) {
+        return open(journalPath, regionSize, ChecksumType.CRC32C, true);
+    }
+
+    public static RecordMappedReadChannel open(Path journalPath, long regionSize, ChecksumType checksumType, boolean verifyChecksums) {
+        return open(journalPath, regionSize, checksumType, verifyChecksums, RecordFormat.V1);
+    }
+
+    public static RecordMappedReadChannel open(Path journalPath, long regionSize, ChecksumType checksumType, boolean verifyChecksums, RecordFormat recordFormat) {
+        try {
+            FileChannel readerChannel = FileChannel.open(journalPath, READ);
+            return new RecordMappedReadChannel(readerChannel, regionSize, checksumType, verifyChecksums, recordFormat);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void close() throws IOException {
+        closed = true;
+        regions.clear();
+        fileChannel.close();
+    }
+
+    public Record read(JournalByteBuffer destination, Location location) {
+        Record view = readView(location);
+        ByteBuffer targetContentBuffer = destination.getContentBuffer();
+        int variableSize = view.recordHeader().variableSize();
+        if (targetContentBuffer.remaining() < variableSize) {
+            throw new NotEnoughSpaceInBufferException(targetContentBuffer.remaining(), variableSize);
+        }
+        targetContentBuffer.limit(targetContentBuffer.position() + variableSize);
+        targetContentBuffer.put(targetContentBuffer.position(), view.buffer(), 0, variableSize);
+        return new Record(view.recordHeader(), location, targetContentBuffer);
+    }
+
+    // validates the record in place (unless disabled) and returns a read-only slice of its content
+    public Record readView(Location location) {
+        return readView(location, verifyChecksums);
+    }
+
+    public RecordHeader readHeader(Location location) {
+        if (closed) {
+            throw new JournalException("Journal is closed");
+        }
+        return RecordHeader.readRecordHeader(slice(location.offset(), recordFormat.headerLength()), recordFormat);
+    }
+
+    public RecordCursor scan(long fromOffset, long toOffset, int readAheadSize) {
+        return new RecordCursor(fileChannel, fromOffset, toOffset, readAheadSize, recordFormat, checksumType, verifyChecksums);
+    }
+
+    public void verify(Location location) {
+        readView(location, true);
+    }
+
+    private Record readView(Location location, boolean verifyChecksum) {
+        if (closed) {
+            throw new JournalException("Journal is closed");
+        }
+        int headerLength = recordFormat.headerLength();
+        RecordHeader recordHeader = RecordHeader.readRecordHeader(slice(location.offset(), headerLength), recordFormat);
+        ByteBuffer content = slice(location.offset() + headerLength, recordHeader.variableSize())
+            .asReadOnlyBuffer();
+        if (!verifyChecksum) {
+            return new Record(recordHeader, location, content);
+        }
+        return createAndValidateRecord(checksumType, recordHeader, location, content);
+    }
+
+    private ByteBuffer slice(long offset, int length) {
+        long regionIndex = offset / regionSize;
+        int regionOffset = (int) (offset % regionSize);
+        if (regionOffset + length > regionSize) {
+            // record crosses a region boundary - copied, so no mapping is created for a single record
+            return copy(offset, length);
+        }
+        MappedByteBuffer region = region(regionIndex, regionOffset + length);
+        if (region == null) {
+            return copy(offset, length);
+        }
+        return region.slice(regionOffset, length);
+    }
+
+    // the last region only covers the file as it was when mapped; it is remapped once the file has grown past the
+    // mapping by REMAP_STEP or covers the whole region, reads of the bytes in between are copied - null then
+    private MappedByteBuffer region(long regionIndex, int requiredLength) {
+        MappedByteBuffer region = regions.get(regionIndex);
+        if (region != null && region.capacity() >= requiredLength) {
+            return region;
+        }
+        long regionStart = regionIndex * regionSize;
+        int available = (int) Math.min(regionSize, fileSize() - regionStart);
+        if (available < requiredLength) {
+            throw corruptedFile(regionStart + Math.max(available, 0), requiredLength - Math.max(available, 0));
+        }
+        if (region != null && available < regionSize && available - region.capacity() < REMAP_STEP) {
+            return null;
+        }
+        return regions.compute(regionIndex, (index, current) -> {
+            if (current != null && current.capacity() >= requiredLength) {
+                return current;
+            }
+            try {
+                return fileChannel.map(FileChannel.MapMode.READ_ONLY, regionStart, available);
+            } catch (IOException e) {
+                throw new JournalRuntimeIOException("Cannot map journal file at offset " + regionStart, e);
+            }
+        });
+    }
+
+    private ByteBuffer copy(long offset, int length) {
+        ByteBuffer copy = ByteBuffer.allocate(length);
+        try {
+            while (copy.hasRemaining()) {
+                if (fileChannel.read(copy, offset + copy.position()) < 0) {
+                    throw corruptedFile(offset + copy.position(), copy.remaining());
+                }
+            }
+        } catch (IOException e) {
+            throw new JournalRuntimeIOException("Error during reading from fileChannel", e);
+        }
+        return copy.flip();
+    }
+
+    private static JournalRuntimeIOException corruptedFile(long offset, int missingBytes) {
+        return new JournalRuntimeIOException("Corrupted journal file - cannot read " + missingBytes + " bytes at offset " + offset);
+    }
+
+    private long fileSize() {
+        try {
+            return fileChannel.size();
+        } catch (IOException e) {
+            throw new JournalRuntimeIOException("Error during reading from fileChannel", e);
+        }
+    }
+}
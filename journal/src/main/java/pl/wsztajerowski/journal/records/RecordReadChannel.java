@@ -9,26 +9,53 @@ import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.zip.Checksum;
 
 import static java.nio.file.StandardOpenOption.READ;
-import static pl.wsztajerowski.journal.records.InvalidRecordHeaderException.invalidRecordHeaderPrefix;
 import static pl.wsztajerowski.journal.records.Record.createAndValidateRecord;
-import static pl.wsztajerowski.journal.records.RecordHeader.*;
 
-public class RecordReadChannel implements AutoCloseable {
+public class RecordReadChannel implements RecordReader {
     private static final int PAGE_SIZE = 4096;
+    private static final int MAX_COALESCED_GAP = PAGE_SIZE;
+    private static final int MAX_COALESCED_READ = 1 << 20;
     private final ThreadLocal<ByteBuffer> threadLocalBuffer;
+    private final ThreadLocal<ByteBuffer> threadLocalSpanBuffer = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(MAX_COALESCED_READ));
     private final FileChannel fileChannel;
+    private final ChecksumType checksumType;
+    private final boolean verifyChecksums;
+    private final RecordFormat recordFormat;
+    private final int headerLength;
+    // null unless pages are cached
+    private final PageCache pageCache;
 
-    RecordReadChannel(FileChannel fileChannel) {
+    RecordReadChannel(FileChannel fileChannel, ChecksumType checksumType, boolean verifyChecksums, RecordFormat recordFormat, PageCache pageCache) {
         this.fileChannel = fileChannel;
+        this.pageCache = pageCache;
+        this.checksumType = checksumType;
+        this.verifyChecksums = verifyChecksums;
+        this.recordFormat = recordFormat;
+        this.headerLength = recordFormat.headerLength();
         threadLocalBuffer = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(PAGE_SIZE));
     }
 
     public static RecordReadChannel open(Path journalPath) {
+        return open(journalPath, ChecksumType.CRC32C, true);
+    }
+
+    public static RecordReadChannel open(Path journalPath, ChecksumType checksumType, boolean verifyChecksums) {
+        return open(journalPath, checksumType, verifyChecksums, RecordFormat.V1);
+    }
+
+    public static RecordReadChannel open(Path journalPath, ChecksumType checksumType, boolean verifyChecksums, RecordFormat recordFormat) {
+        return open(journalPath, checksumType, verifyChecksums, recordFormat, null);
+    }
+
+    public static RecordReadChannel open(Path journalPath, ChecksumType checksumType, boolean verifyChecksums, RecordFormat recordFormat, PageCache pageCache) {
         try {
             FileChannel readerChannel = FileChannel.open(journalPath, READ);
-            return new RecordReadChannel(readerChannel);
+            return new RecordReadChannel(readerChannel, checksumType, verifyChecksums, recordFormat, pageCache);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -39,6 +66,12 @@ public class RecordReadChannel implements AutoCloseable {
     }
 
     public Record read(JournalByteBuffer destination, Location location) {
+        if (pageCache != null) {
+            return readCached(destination, location);
+        }
+        if (location.length() > headerLength && destination.getContentBuffer().position() == 0) {
+            return readExact(destination, location);
+        }
         ByteBuffer localByteBuffer = threadLocalBuffer.get();
         localByteBuffer.clear();
         int readBytes = readPage(localByteBuffer, location.offset());
@@ -48,10 +81,10 @@ public class RecordReadChannel implements AutoCloseable {
 
         long offset = location.offset();
         int variableBytesToRead = recordHeader.variableSize();
-        readBytes -= recordHeaderLength();
+        readBytes -= headerLength;
         targetContentBuffer.mark();
         do {
-            boolean readIncompletePageWithRecordHeader = offset == location.offset() && (readBytes != PAGE_SIZE - recordHeaderLength());
+            boolean readIncompletePageWithRecordHeader = offset == location.offset() && (readBytes != PAGE_SIZE - headerLength);
             boolean readIncompletePageWithDataOnly = offset != location.offset() && readBytes != PAGE_SIZE;
             if ( (readIncompletePageWithRecordHeader || readIncompletePageWithDataOnly) && (readBytes < variableBytesToRead) ) {
                 throw new JournalRuntimeIOException("Corrupted journal file - cannot read " + (variableBytesToRead - readBytes) + " bytes");
@@ -67,7 +100,238 @@ public class RecordReadChannel implements AutoCloseable {
             throw new JournalRuntimeIOException("Corrupted journal file - cannot read " + variableBytesToRead + " bytes");
         }
         targetContentBuffer.reset();
-        return createAndValidateRecord(recordHeader, location, targetContentBuffer);
+        if (!verifyChecksums) {
+            return new Record(recordHeader, location, targetContentBuffer);
+        }
+        return createAndValidateRecord(checksumType, recordHeader, location, targetContentBuffer);
+    }
+
+    // the location tells the record length, so the header and content come with one read straight into the destination
+    private Record readExact(JournalByteBuffer destination, Location location) {
+        ByteBuffer targetContentBuffer = destination.getContentBuffer();
+        int variableSize = location.length() - headerLength;
+        if (targetContentBuffer.remaining() < variableSize) {
+            throw new NotEnoughSpaceInBufferException(targetContentBuffer.remaining(), variableSize);
+        }
+        ByteBuffer recordBuffer = destination.getReadableBuffer(recordFormat, location.length());
+        int recordStart = recordBuffer.position();
+        try {
+            while (recordBuffer.hasRemaining()) {
+                if (fileChannel.read(recordBuffer, location.offset() + recordBuffer.position() - recordStart) < 0) {
+                    throw new JournalRuntimeIOException("Corrupted journal file - cannot read " + recordBuffer.remaining() + " bytes", new EOFException());
+                }
+            }
+        } catch (IOException e) {
+            throw new JournalRuntimeIOException("Error during reading from fileChannel", e);
+        }
+        RecordHeader recordHeader = RecordHeader.readRecordHeader(recordBuffer.position(recordStart), recordFormat);
+        if (recordHeader.variableSize() != variableSize) {
+            throw InvalidRecordHeaderException.recordLengthMismatch(location.offset(), recordHeader.variableSize(), variableSize);
+        }
+        targetContentBuffer.limit(variableSize);
+        if (!verifyChecksums) {
+            return new Record(recordHeader, location, targetContentBuffer);
+        }
+        return createAndValidateRecord(checksumType, recordHeader, location, targetContentBuffer);
+    }
+
+    // sorted by offset, records at most MAX_COALESCED_GAP bytes apart are read together with one read of up to
+    // MAX_COALESCED_READ bytes; a location without length is taken to end a page after its offset, and a record that does
+    // not end within its span is read on its own
+    public Record[] readAll(JournalByteBuffer[] destinations, Location[] locations) {
+        if (pageCache != null) {
+            return RecordReader.super.readAll(destinations, locations);
+        }
+        Record[] records = new Record[locations.length];
+        int[] order = sortByOffset(locations);
+        ByteBuffer span = threadLocalSpanBuffer.get();
+        int first = 0;
+        while (first < order.length) {
+            long spanStart = locations[order[first]].offset();
+            long spanEnd = estimatedEnd(locations[order[first]]);
+            int last = first + 1;
+            while (last < order.length) {
+                Location next = locations[order[last]];
+                long nextSpanEnd = Math.max(spanEnd, estimatedEnd(next));
+                if (next.offset() - spanEnd > MAX_COALESCED_GAP || nextSpanEnd - spanStart > MAX_COALESCED_READ) {
+                    break;
+                }
+                spanEnd = nextSpanEnd;
+                last++;
+            }
+            if (spanEnd - spanStart > MAX_COALESCED_READ) {
+                records[order[first]] = read(destinations[order[first]], locations[order[first]]);
+                first++;
+                continue;
+            }
+            readSpan(span.clear().limit((int) (spanEnd - spanStart)), spanStart);
+            for (int i = first; i < last; i++) {
+                int index = order[i];
+                Record record = copyFromSpan(span, spanStart, destinations[index], locations[index]);
+                records[index] = record != null ? record : read(destinations[index], locations[index]);
+            }
+            first = last;
+        }
+        return records;
+    }
+
+    // indexes of the locations in offset order; offset and index share a long sort key whenever the offsets leave room
+    // for the index bits, which spares sorting boxed indexes
+    private static int[] sortByOffset(Location[] locations) {
+        int indexBits = 32 - Integer.numberOfLeadingZeros(locations.length);
+        long maxOffset = 0;
+        for (Location location : locations) {
+            maxOffset = Math.max(maxOffset, location.offset());
+        }
+        int[] order = new int[locations.length];
+        if (maxOffset >>> (63 - indexBits) != 0) {
+            Integer[] boxedOrder = new Integer[locations.length];
+            for (int i = 0; i < boxedOrder.length; i++) {
+                boxedOrder[i] = i;
+            }
+            Arrays.sort(boxedOrder, Comparator.comparingLong(i -> locations[i].offset()));
+            for (int i = 0; i < order.length; i++) {
+                order[i] = boxedOrder[i];
+            }
+            return order;
+        }
+        long[] keys = new long[locations.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = locations[i].offset() << indexBits | i;
+        }
+        Arrays.sort(keys);
+        long indexMask = (1L << indexBits) - 1;
+        for (int i = 0; i < order.length; i++) {
+            order[i] = (int) (keys[i] & indexMask);
+        }
+        return order;
+    }
+
+    private static long estimatedEnd(Location location) {
+        return location.offset() + (location.length() > 0 ? location.length() : PAGE_SIZE);
+    }
+
+    // null when the record does not end within the span
+    private Record copyFromSpan(ByteBuffer span, long spanStart, JournalByteBuffer destination, Location location) {
+        int recordStart = (int) (location.offset() - spanStart);
+        if (recordStart + headerLength > span.limit()) {
+            return null;
+        }
+        RecordHeader recordHeader = RecordHeader.readRecordHeader(span.position(recordStart), recordFormat);
+        if (recordStart + headerLength + recordHeader.variableSize() > span.limit()) {
+            return null;
+        }
+        if (location.length() > 0 && location.length() != headerLength + recordHeader.variableSize()) {
+            throw InvalidRecordHeaderException.recordLengthMismatch(location.offset(), recordHeader.variableSize(), location.length() - headerLength);
+        }
+        ByteBuffer targetContentBuffer = destination.getContentBuffer();
+        validateDestinationBufferSpaceAndSetLimit(targetContentBuffer, recordHeader);
+        targetContentBuffer.put(targetContentBuffer.position(), span, recordStart + headerLength, recordHeader.variableSize());
+        if (!verifyChecksums) {
+            return new Record(recordHeader, location, targetContentBuffer);
+        }
+        return createAndValidateRecord(checksumType, recordHeader, location, targetContentBuffer);
+    }
+
+    // fills the span as far as the file reaches, leaving it flipped
+    private void readSpan(ByteBuffer span, long offset) {
+        try {
+            while (span.hasRemaining()) {
+                if (fileChannel.read(span, offset + span.position()) < 0) {
+                    break;
+                }
+            }
+            span.flip();
+        } catch (IOException e) {
+            throw new JournalRuntimeIOException("Error during reading from fileChannel", e);
+        }
+    }
+
+    // assembles the record from cached pages
+    private Record readCached(JournalByteBuffer destination, Location location) {
+        RecordHeader recordHeader = readHeader(location);
+        ByteBuffer targetContentBuffer = destination.getContentBuffer();
+        validateDestinationBufferSpaceAndSetLimit(targetContentBuffer, recordHeader);
+        targetContentBuffer.mark();
+        pageCache.read(fileChannel, location.offset() + headerLength, targetContentBuffer);
+        targetContentBuffer.reset();
+        if (!verifyChecksums) {
+            return new Record(recordHeader, location, targetContentBuffer);
+        }
+        return createAndValidateRecord(checksumType, recordHeader, location, targetContentBuffer);
+    }
+
+    public RecordHeader readHeader(Location location) {
+        ByteBuffer localByteBuffer = threadLocalBuffer.get();
+        localByteBuffer.clear()
+            .limit(headerLength);
+        if (pageCache != null) {
+            pageCache.read(fileChannel, location.offset(), localByteBuffer);
+            return RecordHeader.readRecordHeader(localByteBuffer.flip(), recordFormat);
+        }
+        return readRecordHeader(localByteBuffer, readPage(localByteBuffer, location.offset()));
+    }
+
+    public RecordCursor scan(long fromOffset, long toOffset, int readAheadSize) {
+        return new RecordCursor(fileChannel, fromOffset, toOffset, readAheadSize, recordFormat, checksumType, verifyChecksums);
+    }
+
+    public void verify(Location location) {
+        ByteBuffer localByteBuffer = threadLocalBuffer.get();
+        localByteBuffer.clear();
+        var recordHeader = readRecordHeader(localByteBuffer, readPage(localByteBuffer, location.offset()));
+        Checksum checksum = ChecksumCalculator.checksum(checksumType);
+        long offset = location.offset() + headerLength;
+        int variableBytesToRead = recordHeader.variableSize();
+        while (variableBytesToRead > 0) {
+            localByteBuffer.clear();
+            localByteBuffer.limit(Math.min(PAGE_SIZE, variableBytesToRead));
+            int readBytes = readPage(localByteBuffer, offset);
+            if (readBytes == 0) {
+                throw new JournalRuntimeIOException("Corrupted journal file - cannot read " + variableBytesToRead + " bytes");
+            }
+            checksum.update(localByteBuffer);
+            offset += readBytes;
+            variableBytesToRead -= readBytes;
+        }
+        int calculatedChecksum = (int) checksum.getValue();
+        int expectedChecksum = recordHeader.contentChecksum(checksumType);
+        if (calculatedChecksum != expectedChecksum) {
+            throw new InvalidRecordChecksumException(calculatedChecksum, expectedChecksum);
+        }
+    }
+
+    public long findEndOfRecords(long startOffset, int readAheadSize) {
+        return scanRecords(startOffset, readAheadSize).endOffset();
+    }
+
+    // end of the last complete record and, for V2 records, the sequence number following the last one; the scan stops at
+    // the first invalid record header, and records with invalid checksums count only when valid records follow them -
+    // otherwise they are the torn tail of a crashed write
+    public RecordsEnd scanRecords(long startOffset, int readAheadSize) {
+        long offset = startOffset;
+        long corruptedFrom = -1;
+        long nextSequence = 0;
+        long fileSize;
+        try {
+            fileSize = fileChannel.size();
+        } catch (IOException e) {
+            throw new JournalRuntimeIOException("Cannot scan journal file", e);
+        }
+        try (RecordCursor cursor = scan(startOffset, fileSize, readAheadSize)) {
+            while (cursor.hasNext()) {
+                try {
+                    nextSequence = cursor.next().recordHeader().sequence() + 1;
+                    corruptedFrom = -1;
+                } catch (InvalidRecordChecksumException e) {
+                    corruptedFrom = corruptedFrom < 0 ? offset : corruptedFrom;
+                }
+                offset = cursor.position();
+            }
+        } catch (InvalidRecordHeaderException e) {
+            // end of valid records
+        }
+        return new RecordsEnd(corruptedFrom < 0 ? offset : corruptedFrom, recordFormat == RecordFormat.V2 ? nextSequence : 0);
     }
 
     private int readPage(ByteBuffer targetBuffer, long offset) {
@@ -91,14 +355,13 @@ public class RecordReadChannel implements AutoCloseable {
     }
 
     private RecordHeader readRecordHeader(ByteBuffer headerBuffer, int readBytes) {
-        if (readBytes < recordHeaderLength()) {
+        if (readBytes < headerLength) {
             throw new JournalRuntimeIOException("Corrupted journal file - number of read bytes is smaller than record header size", new EOFException("Read from outside of channel"));
         }
-        int prefix = headerBuffer.getInt();
-        if (prefix != RECORD_PREFIX) {
-            throw invalidRecordHeaderPrefix(prefix);
-        }
-        return createAndValidateHeader(headerBuffer.getInt(), headerBuffer.getInt());
+        return RecordHeader.readRecordHeader(headerBuffer, recordFormat);
+    }
+
+    public record RecordsEnd(long endOffset, long nextSequence) {
     }
 
 }
@@ -0,0 +1,29 @@
+package pl.wsztajerowski.journal.records;
+
+import pl.wsztajerowski.journal.Location;
+
+import java.io.IOException;
+
+public interface RecordReader extends AutoCloseable {
+    // copies the record content into destination and, unless disabled, validates its checksum
+    Record read(JournalByteBuffer destination, Location location);
+
+    // records at locations[i] copied into destinations[i], in the order of the locations
+    default Record[] readAll(JournalByteBuffer[] destinations, Location[] locations) {
+        Record[] records = new Record[locations.length];
+        for (int i = 0; i < locations.length; i++) {
+            records[i] = read(destinations[i], locations[i]);
+        }
+        return records;
+    }
+
+    RecordHeader readHeader(Location location);
+
+    // validates the record checksum without copying its content out
+    void verify(Location location);
+
+    // streams the records in [fromOffset, toOffset) - toOffset has to be a record boundary within written data
+    RecordCursor scan(long fromOffset, long toOffset, int readAheadSize);
+
+    void close() throws IOException;
+}
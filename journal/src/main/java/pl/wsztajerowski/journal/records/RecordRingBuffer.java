@@ -0,0 +1,318 @@
+package pl.wsztajerowski.journal.records;
+
+import pl.wsztajerowski.journal.JournalException;
+import pl.wsztajerowski.journal.Location;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+public class RecordRingBuffer {
+    // claim word format: [ 20 bits sequence | 44 bits offset ] - one getAndAdd reserves both slot and file range
+    private static final int OFFSET_BITS = 44;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+    private static final long SEQUENCE_INCREMENT = 1L << OFFSET_BITS;
+    private static final int SEQUENCE_MASK = (1 << (Long.SIZE - OFFSET_BITS)) - 1;
+    private static final int SPIN_TRIES = 100;
+    static final int MAX_CAPACITY = 1 << 16;
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicIntegerArray sequences;
+    private final long[] offsets;
+    private final ByteBuffer[] buffers;
+    // slot holds the first part of a record whose remaining parts sit in the following slots
+    private final boolean[] partial;
+    private final CompletableFuture<Location>[] futures;
+    private final AtomicLong virtualPosition;
+    private final PositionWatermark writtenPosition;
+    private final StagingArena stagingArena;
+    private volatile int consumerSequence;
+    // producers check closed only before claiming: a claimed slot is always published, so the drain never stops at a
+    // hole; only once the writer has stopped for good do producers still waiting for their slot give up
+    private volatile boolean closed;
+    private volatile boolean stopped;
+    private volatile Exception failure;
+
+    public RecordRingBuffer(int capacity, long initialPosition) {
+        this(capacity, initialPosition, 0);
+    }
+
+    // with a staging arena offered records are copied, so callers may reuse their buffers as soon as offer returns
+    public RecordRingBuffer(int capacity, long initialPosition, int stagingArenaSize) {
+        if (capacity < 2 || capacity > MAX_CAPACITY || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two between 2 and %d - actual: %d".formatted(MAX_CAPACITY, capacity));
+        }
+        if (initialPosition < 0 || initialPosition > OFFSET_MASK) {
+            throw new IllegalArgumentException("Initial position out of range: " + initialPosition);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.sequences = new AtomicIntegerArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.offsets = new long[capacity];
+        this.buffers = new ByteBuffer[capacity];
+        this.partial = new boolean[capacity];
+        this.futures = newFuturesArray(capacity);
+        this.virtualPosition = new AtomicLong(initialPosition);
+        this.writtenPosition = new PositionWatermark(initialPosition);
+        this.stagingArena = stagingArenaSize > 0 ? new StagingArena(stagingArenaSize) : null;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    // slots taken by a record offered in the given number of parts
+    public int slotsFor(int parts) {
+        return stagingArena != null ? 1 : parts;
+    }
+
+    public long offer(ByteBuffer buffer) {
+        return offer(buffer, null);
+    }
+
+    public long offer(ByteBuffer buffer, CompletableFuture<Location> future) {
+        if (closed) {
+            throw new JournalException("Journal is closed");
+        }
+        int size = buffer.remaining();
+        long claim = virtualPosition.getAndAdd(SEQUENCE_INCREMENT + size);
+        long offset = claimedOffset(claim, size);
+        publish(stage(buffer, offset), future, offset, (int) (claim >>> OFFSET_BITS), false);
+        return offset;
+    }
+
+    // one getAndAdd claims consecutive slots and one contiguous file range for up to capacity buffers
+    public long[] offerAll(ByteBuffer[] buffers) {
+        long[] offsets = new long[buffers.length];
+        for (int from = 0; from < buffers.length; from += capacity) {
+            offerAll(buffers, from, Math.min(buffers.length, from + capacity), offsets);
+        }
+        return offsets;
+    }
+
+    // parts of one record: staged into a single slot, or without staging given consecutive slots for a gathering write
+    public long offerGathered(ByteBuffer[] parts) {
+        if (closed) {
+            throw new JournalException("Journal is closed");
+        }
+        if (stagingArena == null && parts.length > capacity) {
+            throw new IllegalArgumentException("Record has more parts than ring capacity: " + parts.length);
+        }
+        int size = 0;
+        for (ByteBuffer part : parts) {
+            size += part.remaining();
+        }
+        int slots = slotsFor(parts.length);
+        long claim = virtualPosition.getAndAdd(slots * SEQUENCE_INCREMENT + size);
+        long offset = claimedOffset(claim, size);
+        int sequence = (int) (claim >>> OFFSET_BITS);
+        if (stagingArena != null) {
+            publish(stagingArena.stage(parts, offset, size, writtenPosition), null, offset, sequence, false);
+            return offset;
+        }
+        long partOffset = offset;
+        for (int i = 0; i < parts.length; i++) {
+            publish(parts[i], null, partOffset, sequence, i < parts.length - 1);
+            partOffset += parts[i].remaining();
+            sequence = nextSequence(sequence);
+        }
+        return offset;
+    }
+
+    private void offerAll(ByteBuffer[] buffers, int from, int to, long[] offsets) {
+        if (closed) {
+            throw new JournalException("Journal is closed");
+        }
+        long size = 0;
+        for (int i = from; i < to; i++) {
+            size += buffers[i].remaining();
+        }
+        long claim = virtualPosition.getAndAdd((to - from) * SEQUENCE_INCREMENT + size);
+        long offset = claimedOffset(claim, size);
+        int sequence = (int) (claim >>> OFFSET_BITS);
+        for (int i = from; i < to; i++) {
+            publish(stage(buffers[i], offset), null, offset, sequence, false);
+            offsets[i] = offset;
+            offset += buffers[i].remaining();
+            sequence = nextSequence(sequence);
+        }
+    }
+
+    private static long claimedOffset(long claim, long size) {
+        long offset = claim & OFFSET_MASK;
+        if (offset + size > OFFSET_MASK) {
+            throw new JournalException("Journal size limit exceeded - cannot write %d bytes at offset %d".formatted(size, offset));
+        }
+        return offset;
+    }
+
+    private ByteBuffer stage(ByteBuffer buffer, long offset) {
+        return stagingArena != null ? stagingArena.stage(buffer, offset, writtenPosition) : buffer;
+    }
+
+    private void publish(ByteBuffer buffer, CompletableFuture<Location> future, long offset, int sequence, boolean partialRecord) {
+        int index = sequence & mask;
+        int tries = 0;
+        while (sequences.getAcquire(index) != sequence) {
+            if (stopped) {
+                throw new JournalException("Journal is closed", failure);
+            }
+            if (++tries < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        offsets[index] = offset;
+        buffers[index] = buffer;
+        futures[index] = future;
+        partial[index] = partialRecord;
+        sequences.setRelease(index, nextSequence(sequence));
+        if (future != null) {
+            // pairs with the fence in stop: either the writer drains this slot or the future is failed here
+            VarHandle.fullFence();
+            if (stopped && sequences.get(index) == nextSequence(sequence)) {
+                future.completeExceptionally(failure != null ? failure : new JournalException("Journal is closed"));
+            }
+        }
+    }
+
+    public int drain(ByteBuffer[] destination, long maxBytes) {
+        int count = 0;
+        long bytes = 0;
+        int firstSequence = consumerSequence;
+        while (count < destination.length) {
+            int sequence = (firstSequence + count) & SEQUENCE_MASK;
+            int index = sequence & mask;
+            if (sequences.getAcquire(index) != nextSequence(sequence)) {
+                break;
+            }
+            ByteBuffer buffer = buffers[index];
+            if (count > 0 && bytes + buffer.remaining() > maxBytes) {
+                break;
+            }
+            destination[count++] = buffer;
+            bytes += buffer.remaining();
+        }
+        return count;
+    }
+
+    // whether every claimed slot has been published and drained
+    public boolean isDrained() {
+        return consumerSequence == (int) (virtualPosition.get() >>> OFFSET_BITS);
+    }
+
+    // whether the next record is published and can be drained
+    public boolean hasPublished() {
+        int sequence = consumerSequence;
+        return sequences.get(sequence & mask) == nextSequence(sequence);
+    }
+
+    public long offsetAt(int drainedIndex) {
+        return offsets[(consumerSequence + drainedIndex) & mask];
+    }
+
+    public CompletableFuture<Location> futureAt(int drainedIndex) {
+        return futures[(consumerSequence + drainedIndex) & mask];
+    }
+
+    public void release(int count, long bytes) {
+        int firstSequence = consumerSequence;
+        long newWrittenPosition = writtenPosition.get() + bytes;
+        writtenPosition.advance(newWrittenPosition);
+        for (int i = 0; i < count; i++) {
+            int sequence = (firstSequence + i) & SEQUENCE_MASK;
+            int index = sequence & mask;
+            buffers[index] = null;
+            futures[index] = null;
+            sequences.setRelease(index, (sequence + capacity) & SEQUENCE_MASK);
+        }
+        consumerSequence = (firstSequence + count) & SEQUENCE_MASK;
+    }
+
+    public ByteBuffer find(long offset) {
+        int firstSequence = consumerSequence;
+        if (offset < writtenPosition.get()) {
+            return null;
+        }
+        int claimedSequence = (int) (virtualPosition.get() >>> OFFSET_BITS);
+        int pendingRecords = Math.min((claimedSequence - firstSequence) & SEQUENCE_MASK, capacity);
+        for (int i = 0; i < pendingRecords; i++) {
+            int sequence = (firstSequence + i) & SEQUENCE_MASK;
+            int index = sequence & mask;
+            int publishedSequence = nextSequence(sequence);
+            if (sequences.getAcquire(index) != publishedSequence) {
+                continue;
+            }
+            long slotOffset = offsets[index];
+            ByteBuffer buffer = buffers[index];
+            boolean partialRecord = partial[index];
+            if (sequences.getAcquire(index) != publishedSequence || slotOffset > offset) {
+                return null;
+            }
+            if (slotOffset == offset) {
+                // only whole records are served from memory
+                return partialRecord ? null : buffer;
+            }
+        }
+        return null;
+    }
+
+    public boolean isPending(long offset) {
+        return offset >= writtenPosition.get();
+    }
+
+    public long writtenPosition() {
+        return writtenPosition.get();
+    }
+
+    public void awaitWritten(long offset) {
+        writtenPosition.awaitAbove(offset);
+    }
+
+    public boolean awaitWritten(long offset, BooleanSupplier cancelled) {
+        return writtenPosition.awaitAbove(offset, cancelled);
+    }
+
+    // wakes up readers waiting for records that will never be released
+    public void releaseWaiters() {
+        writtenPosition.close();
+    }
+
+    public long claimedPosition() {
+        return virtualPosition.get() & OFFSET_MASK;
+    }
+
+    public void close() {
+        closed = true;
+    }
+
+    // called by the writer once it drains no more; records published later fail their own futures
+    public void stop() {
+        closed = true;
+        stopped = true;
+        VarHandle.fullFence();
+    }
+
+    // stops the buffer before the failed writer drains it for the last time
+    public void fail(Exception cause) {
+        failure = cause;
+        stop();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<Location>[] newFuturesArray(int capacity) {
+        return new CompletableFuture[capacity];
+    }
+
+    private static int nextSequence(int sequence) {
+        return (sequence + 1) & SEQUENCE_MASK;
+    }
+}
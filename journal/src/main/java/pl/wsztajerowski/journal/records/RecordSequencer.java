@@ -0,0 +1,71 @@
+package pl.wsztajerowski.journal.records;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+import static pl.wsztajerowski.journal.records.ChecksumCalculator.computeChecksum;
+import static pl.wsztajerowski.journal.records.RecordFormat.SEQUENCE_OFFSET;
+import static pl.wsztajerowski.journal.records.RecordFormat.TIMESTAMP_OFFSET;
+
+// Numbers records right before the writer writes them: stamps V2 headers with the sequence number and the batch write
+// time, folding both into the record checksum, and adds every interval-th record to the sparse index. Buffers are walked
+// by record sizes, so a buffer may hold several records (merged batches) or a part of one (gathered writes).
+class RecordSequencer {
+    private final RecordFormat recordFormat;
+    // null when records have no checksum; the writer thread's own state, so stamping skips the thread-local lookups
+    private final Checksum stampChecksum;
+    private final ByteBuffer stamp = ByteBuffer.allocate(2 * Long.BYTES);
+    // null when the journal has no index
+    private final SparseIndex index;
+    private long nextSequence;
+    // bytes of the current record that are still to come in the following buffers
+    private long bytesToNextRecord;
+
+    RecordSequencer(RecordFormat recordFormat, ChecksumType checksumType, long nextSequence, SparseIndex index) {
+        this.recordFormat = recordFormat;
+        this.stampChecksum = checksumType == ChecksumType.NONE ? null : checksumType.newChecksum();
+        this.nextSequence = nextSequence;
+        this.index = index;
+    }
+
+    // null when records need no numbering
+    static RecordSequencer create(RecordFormat recordFormat, ChecksumType checksumType, long nextSequence, SparseIndex index) {
+        return recordFormat == RecordFormat.V2 || index != null ? new RecordSequencer(recordFormat, checksumType, nextSequence, index) : null;
+    }
+
+    long nextSequence() {
+        return nextSequence;
+    }
+
+    // offset is the journal offset of the first buffer
+    void stamp(ByteBuffer[] buffers, int count, long offset, long timestampMillis) {
+        long bufferOffset = offset;
+        for (int i = 0; i < count; i++) {
+            ByteBuffer buffer = buffers[i];
+            int position = buffer.position();
+            int limit = buffer.limit();
+            while (position < limit) {
+                if (bytesToNextRecord > 0) {
+                    long skipped = Math.min(bytesToNextRecord, limit - position);
+                    position += (int) skipped;
+                    bytesToNextRecord -= skipped;
+                    continue;
+                }
+                long sequence = nextSequence++;
+                if (recordFormat == RecordFormat.V2) {
+                    buffer.putLong(position + SEQUENCE_OFFSET, sequence);
+                    buffer.putLong(position + TIMESTAMP_OFFSET, timestampMillis);
+                    if (stampChecksum != null) {
+                        int checksumOffset = position + 2 * Integer.BYTES;
+                        buffer.putInt(checksumOffset, buffer.getInt(checksumOffset) ^ computeChecksum(stampChecksum, stamp, sequence, timestampMillis));
+                    }
+                }
+                if (index != null && sequence % index.interval() == 0) {
+                    index.add(sequence, bufferOffset + position - buffer.position());
+                }
+                bytesToNextRecord = recordFormat.headerLength() + buffer.getInt(position + Integer.BYTES);
+            }
+            bufferOffset += limit - buffer.position();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package pl.wsztajerowski.journal.records;
+
+import pl.wsztajerowski.journal.Location;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Delivers records in file order from a start offset, as many as the subscriber has requested, on a thread of its own.
+// A record the writer still holds in memory is copied from there; otherwise the subscription waits until the record is
+// written and reads it from the journal file. Every delivered record gets a heap buffer of its own. The delivery
+// thread is never interrupted - an interrupt during a read closes the journal's shared FileChannel.
+public class RecordSubscription implements Flow.Subscription {
+    private final Flow.Subscriber<? super Record> subscriber;
+    private final RecordReader reader;
+    private final RecordWriter writer;
+    private final ChecksumType checksumType;
+    private final RecordFormat recordFormat;
+    private final Consumer<RecordSubscription> onTermination;
+    private final AtomicLong demand = new AtomicLong();
+    private final Thread deliveryThread;
+    private volatile boolean cancelled;
+    private volatile boolean completed;
+    private volatile Exception failure;
+    private long position;
+
+    private RecordSubscription(Flow.Subscriber<? super Record> subscriber, long fromOffset, RecordReader reader, RecordWriter writer, ChecksumType checksumType, RecordFormat recordFormat, Consumer<RecordSubscription> onTermination) {
+        this.subscriber = subscriber;
+        this.position = fromOffset;
+        this.reader = reader;
+        this.writer = writer;
+        this.checksumType = checksumType;
+        this.recordFormat = recordFormat;
+        this.onTermination = onTermination;
+        this.deliveryThread = Thread.ofPlatform()
+            .daemon()
+            .name("journal-subscription")
+            .unstarted(this::deliver);
+    }
+
+    public static RecordSubscription create(Flow.Subscriber<? super Record> subscriber, long fromOffset, RecordReader reader, RecordWriter writer, ChecksumType checksumType, RecordFormat recordFormat, Consumer<RecordSubscription> onTermination) {
+        return new RecordSubscription(subscriber, fromOffset, reader, writer, checksumType, recordFormat, onTermination);
+    }
+
+    public void start() {
+        subscriber.onSubscribe(this);
+        deliveryThread.start();
+    }
+
+    public void request(long n) {
+        if (n <= 0) {
+            failure = new IllegalArgumentException("Number of requested records must be positive - actual: " + n);
+            cancelled = true;
+        } else {
+            demand.accumulateAndGet(n, (current, requested) -> current + requested < 0 ? Long.MAX_VALUE : current + requested);
+        }
+        LockSupport.unpark(deliveryThread);
+    }
+
+    public void cancel() {
+        cancelled = true;
+        LockSupport.unpark(deliveryThread);
+    }
+
+    // ends the subscription with onComplete
+    public void complete() {
+        completed = true;
+        cancel();
+    }
+
+    // waits until the delivery thread stops reading from the journal, unless called from that thread
+    public void awaitTermination() {
+        if (Thread.currentThread() == deliveryThread) {
+            return;
+        }
+        try {
+            deliveryThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deliver() {
+        try {
+            while (!cancelled) {
+                if (demand.get() == 0) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                Record record = nextRecord();
+                if (record == null) {
+                    continue;
+                }
+                subscriber.onNext(record);
+                demand.decrementAndGet();
+                position += recordFormat.headerLength() + record.recordHeader().variableSize();
+            }
+        } catch (RuntimeException e) {
+            if (!cancelled) {
+                failure = e;
+            }
+        } finally {
+            onTermination.accept(this);
+        }
+        if (failure != null) {
+            subscriber.onError(failure);
+        } else if (completed) {
+            subscriber.onComplete();
+        }
+    }
+
+    // null when the subscription was cancelled while waiting for the record
+    private Record nextRecord() {
+        Location location = new Location(position);
+        if (position >= writer.writtenPosition()) {
+            Record pending = copyPending(location);
+            if (pending != null) {
+                return pending;
+            }
+            // parked until the writer covers the record, or until cancel unparks the thread
+            if (!writer.awaitWritten(position, () -> cancelled)) {
+                return null;
+            }
+        }
+        RecordHeader recordHeader = reader.readHeader(location);
+        JournalByteBuffer destination = JournalByteBufferFactory.heap().allocate(recordHeader.variableSize());
+        return reader.read(destination, location.withLength(recordFormat.headerLength() + recordHeader.variableSize()));
+    }
+
+    private Record copyPending(Location location) {
+        if (recordFormat != RecordFormat.V1) {
+            // sequence numbers and timestamps are assigned while writing
+            return null;
+        }
+        ByteBuffer pending = writer.findPending(location.offset());
+        if (pending == null) {
+            return null;
+        }
+        JournalByteBuffer destination = JournalByteBufferFactory.heap().allocate(Math.max(0, pending.remaining() - recordFormat.headerLength()));
+        return PendingRecords.copy(pending, writer::writtenPosition, destination, location, checksumType, recordFormat);
+    }
+}
@@ -1,33 +1,105 @@
 package pl.wsztajerowski.journal.records;
 
+import pl.wsztajerowski.journal.BackpressurePolicy;
+import pl.wsztajerowski.journal.BytesUtils;
+import pl.wsztajerowski.journal.DurabilityPolicy;
 import pl.wsztajerowski.journal.JournalException;
 import pl.wsztajerowski.journal.JournalRuntimeIOException;
+import pl.wsztajerowski.journal.Location;
+import pl.wsztajerowski.journal.WaitStrategy;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
-import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
 
-public class RecordWriteChannel implements AutoCloseable, Runnable {
+import static pl.wsztajerowski.journal.records.ChecksumCalculator.computeChecksum;
+
+public class RecordWriteChannel implements RecordWriter, Runnable {
     private static final long WRITE_CHUNK_SIZE = 524_288L;
-    private final ConcurrentNavigableMap<Long, ByteBuffer> queue;
+    // a random read decompresses a whole block, so blocks are kept smaller than write chunks
+    private static final long COMPRESSED_BLOCK_SIZE = 65_536L;
+    private static final int IDLE_SPINS = 100;
+    private static final int IDLE_YIELDS = 100;
+    private static final long MIN_PARK_NANOS = 1_000L;
+    private final RecordRingBuffer queue;
+    private final FilePreallocator preallocator;
     private final FileChannel fileChannel;
+    private final DurabilityPolicy durabilityPolicy;
+    private final WaitStrategy waitStrategy;
+    private final PendingWritesLimiter pendingWritesLimiter;
+    private final boolean boundedPendingWrites;
+    // null unless the journal is compressed
+    private final BlockCodec blockCodec;
+    private final BlockIndex blockIndex;
+    // null unless records are in the V2 format or indexed
+    private final RecordSequencer sequencer;
+    private final ByteBuffer blockHeader = ByteBuffer.allocateDirect(BlockIndex.CHECKSUMMED_BLOCK_HEADER_LENGTH);
+    private ByteBuffer uncompressedBlock;
+    private ByteBuffer compressedBlock;
     private final AtomicBoolean isClosed = new AtomicBoolean(false);
+    private final AtomicBoolean isRunning = new AtomicBoolean(false);
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final Queue<FlushRequest> flushRequests = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<RecordWriteTask> pendingAcknowledgements = new ArrayDeque<>();
+    private volatile Thread writerThread;
+    private volatile boolean writerParked;
+    private long unsyncedBytes;
+    private long lastSyncNanos;
 
-    RecordWriteChannel(FileChannel fileChannel, ConcurrentNavigableMap<Long, ByteBuffer> queue) {
-        this.fileChannel = fileChannel;
+    RecordWriteChannel(FilePreallocator preallocator, RecordRingBuffer queue, DurabilityPolicy durabilityPolicy, WaitStrategy waitStrategy, BackpressurePolicy backpressurePolicy, CompressionType compressionType, BlockIndex blockIndex, RecordFormat recordFormat, ChecksumType checksumType, long nextSequence, SparseIndex sparseIndex) {
+        this.preallocator = preallocator;
+        this.fileChannel = preallocator.channel();
         this.queue = queue;
+        this.durabilityPolicy = durabilityPolicy;
+        this.waitStrategy = waitStrategy;
+        this.pendingWritesLimiter = new PendingWritesLimiter(backpressurePolicy);
+        // without limits the ring positions already tell the pending bytes, so producers skip the limiter
+        this.boundedPendingWrites = backpressurePolicy.mode() != BackpressurePolicy.Mode.UNBOUNDED;
+        this.blockIndex = blockIndex;
+        this.sequencer = RecordSequencer.create(recordFormat, checksumType, nextSequence, sparseIndex);
+        if (compressionType == CompressionType.NONE) {
+            this.blockCodec = null;
+        } else {
+            this.blockCodec = compressionType.newCodec();
+            this.uncompressedBlock = ByteBuffer.allocateDirect((int) COMPRESSED_BLOCK_SIZE);
+            this.compressedBlock = ByteBuffer.allocateDirect((int) COMPRESSED_BLOCK_SIZE);
+        }
+    }
+
+    public static RecordWriteChannel open(Path journalFile, RecordRingBuffer queue) {
+        return open(journalFile, queue, DurabilityPolicy.none());
+    }
+
+    public static RecordWriteChannel open(Path journalFile, RecordRingBuffer queue, DurabilityPolicy durabilityPolicy) {
+        return open(journalFile, queue, durabilityPolicy, 0);
+    }
+
+    public static RecordWriteChannel open(Path journalFile, RecordRingBuffer queue, DurabilityPolicy durabilityPolicy, long preallocationSize) {
+        return open(journalFile, queue, durabilityPolicy, preallocationSize, WaitStrategy.backoff(), BackpressurePolicy.unbounded());
+    }
+
+    public static RecordWriteChannel open(Path journalFile, RecordRingBuffer queue, DurabilityPolicy durabilityPolicy, long preallocationSize, WaitStrategy waitStrategy, BackpressurePolicy backpressurePolicy) {
+        return open(journalFile, queue, durabilityPolicy, preallocationSize, waitStrategy, backpressurePolicy, CompressionType.NONE, null, RecordFormat.V1, ChecksumType.CRC32C, 0, null);
     }
 
-    public static RecordWriteChannel open(Path journalFile, ConcurrentNavigableMap<Long, ByteBuffer> queue) {
+    // with compression the queue positions are uncompressed offsets and blockIndex tells where the file data ends
+    public static RecordWriteChannel open(Path journalFile, RecordRingBuffer queue, DurabilityPolicy durabilityPolicy, long preallocationSize, WaitStrategy waitStrategy, BackpressurePolicy backpressurePolicy, CompressionType compressionType, BlockIndex blockIndex, RecordFormat recordFormat, ChecksumType checksumType, long nextSequence, SparseIndex sparseIndex) {
         try {
-            FileChannel writerChannel = FileChannel.open(journalFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
-            writerChannel.position(writerChannel.size());
-            return new RecordWriteChannel(writerChannel, queue);
+            long filePosition = compressionType == CompressionType.NONE ? queue.writtenPosition() : blockIndex.fileEndPosition();
+            FilePreallocator preallocator = FilePreallocator.open(journalFile, filePosition, preallocationSize);
+            return new RecordWriteChannel(preallocator, queue, durabilityPolicy, waitStrategy, backpressurePolicy, compressionType, blockIndex, recordFormat, checksumType, nextSequence, sparseIndex);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -35,54 +107,367 @@ public class RecordWriteChannel implements AutoCloseable, Runnable {
 
     public void close() throws IOException {
         isClosed.set(true);
-        fileChannel.close();
+        queue.close();
+        pendingWritesLimiter.close();
+        wakeUpWriter();
+        try {
+            if (isRunning.compareAndSet(false, true)) {
+                // writer thread has not started yet, so records offered so far are written by the closing thread
+                writeLoop();
+            } else {
+                stopped.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            queue.releaseWaiters();
+            if (blockCodec != null) {
+                blockCodec.close();
+            }
+            preallocator.close(blockCodec == null ? queue.writtenPosition() : blockIndex.fileEndPosition());
+        }
+    }
+
+    public Location write(ByteBuffer record) {
+        Location location = new Location(offer(record, null));
+        wakeUpWriter();
+        return location;
+    }
+
+    public CompletableFuture<Location> writeAsync(ByteBuffer record) {
+        CompletableFuture<Location> future = new CompletableFuture<>();
+        offer(record, future);
+        wakeUpWriter();
+        return future;
+    }
+
+    public Location writeGathered(ByteBuffer[] parts) {
+        if (blockCodec != null && queue.slotsFor(parts.length) > 1) {
+            // a block holds whole records only, so the parts are merged instead of taking a slot each
+            return write(BytesUtils.merge(parts));
+        }
+        Location location;
+        if (!boundedPendingWrites) {
+            location = new Location(queue.offerGathered(parts));
+        } else {
+            int slots = queue.slotsFor(parts.length);
+            long size = 0;
+            for (ByteBuffer part : parts) {
+                size += part.remaining();
+            }
+            // the writer releases the limiter per drained slot
+            pendingWritesLimiter.acquire(slots, size);
+            try {
+                location = new Location(queue.offerGathered(parts));
+            } catch (RuntimeException e) {
+                pendingWritesLimiter.release(slots, size);
+                throw e;
+            }
+        }
+        wakeUpWriter();
+        return location;
+    }
+
+    // batches longer than the ring capacity are split into contiguous ranges of at most capacity records
+    public long[] writeAll(ByteBuffer[] records) {
+        long[] offsets;
+        if (!boundedPendingWrites) {
+            offsets = queue.offerAll(records);
+        } else {
+            long size = 0;
+            for (ByteBuffer record : records) {
+                size += record.remaining();
+            }
+            pendingWritesLimiter.acquire(records.length, size);
+            try {
+                offsets = queue.offerAll(records);
+            } catch (RuntimeException e) {
+                pendingWritesLimiter.release(records.length, size);
+                throw e;
+            }
+        }
+        wakeUpWriter();
+        return offsets;
+    }
+
+    public long pendingBytes() {
+        return queue.claimedPosition() - queue.writtenPosition();
+    }
+
+    private long offer(ByteBuffer record, CompletableFuture<Location> future) {
+        if (!boundedPendingWrites) {
+            return queue.offer(record, future);
+        }
+        int size = record.remaining();
+        pendingWritesLimiter.acquire(size);
+        try {
+            return queue.offer(record, future);
+        } catch (RuntimeException e) {
+            pendingWritesLimiter.release(1, size);
+            throw e;
+        }
+    }
+
+    public CompletableFuture<Void> flush() {
+        return flush(queue.claimedPosition());
+    }
+
+    public long writtenPosition() {
+        return queue.writtenPosition();
+    }
+
+    public void awaitWritten(long offset) {
+        queue.awaitWritten(offset);
+    }
+
+    public boolean awaitWritten(long offset, BooleanSupplier cancelled) {
+        return queue.awaitWritten(offset, cancelled);
+    }
+
+    public long nextSequence() {
+        return sequencer == null ? 0 : sequencer.nextSequence();
+    }
+
+    public ByteBuffer findPending(long offset) {
+        return queue.find(offset);
+    }
+
+    private CompletableFuture<Void> flush(long position) {
+        var request = new FlushRequest(position, new CompletableFuture<>());
+        if (isClosed.get()) {
+            request.future().completeExceptionally(new JournalException("Journal is closed"));
+            return request.future();
+        }
+        flushRequests.add(request);
+        wakeUpWriter();
+        return request.future();
     }
 
     public void run() {
+        if (isRunning.compareAndSet(false, true)) {
+            writeLoop();
+        }
+    }
+
+    private void writeLoop() {
+        writerThread = Thread.currentThread();
+        lastSyncNanos = System.nanoTime();
+        ByteBuffer[] buffers = new ByteBuffer[queue.capacity()];
+        long chunkSize = blockCodec == null ? WRITE_CHUNK_SIZE : COMPRESSED_BLOCK_SIZE;
+        int idleIterations = 0;
         try {
-            long lastWrittenPosition = fileChannel.position() + WRITE_CHUNK_SIZE;
-            while (!Thread.currentThread().isInterrupted() && !isClosed.get()) {
-                if (queue.isEmpty()) {
-                    Thread.onSpinWait();
+            while (!Thread.currentThread().isInterrupted()) {
+                int numberOfBuffers = queue.drain(buffers, chunkSize);
+                if (numberOfBuffers == 0) {
+                    // records claimed before close are still being published
+                    if (isClosed.get() && queue.isDrained()) {
+                        break;
+                    }
+                    syncOnIntervalElapsed();
+                    completeFlushRequests();
+                    idle(idleIterations++);
                     continue;
                 }
-                Long lastPositionToWrite = queue.lowerKey(lastWrittenPosition);
-                var recordsToWrite = queue.headMap(lastPositionToWrite, true);
-                if (recordsToWrite.isEmpty()) {
+                idleIterations = 0;
+                writeBatch(buffers, numberOfBuffers);
+                completeFlushRequests();
+            }
+            sync();
+            completeFlushRequests();
+            FlushRequest request;
+            while ((request = flushRequests.poll()) != null) {
+                request.future().completeExceptionally(new JournalException("Journal is closed"));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            failPendingRequests(buffers, e);
+            Thread.currentThread().interrupt();
+            throw new JournalException("Error writing to FileChannel", e);
+        } finally {
+            queue.stop();
+            stopped.countDown();
+        }
+    }
+
+    private void idle(int idleIterations) {
+        switch (waitStrategy.mode()) {
+            case BUSY_SPIN -> Thread.onSpinWait();
+            case YIELD -> Thread.yield();
+            case BACKOFF -> {
+                if (idleIterations < IDLE_SPINS) {
                     Thread.onSpinWait();
-                    continue;
+                } else if (idleIterations < IDLE_SPINS + IDLE_YIELDS) {
+                    Thread.yield();
+                } else {
+                    int parkRound = Math.min(idleIterations - IDLE_SPINS - IDLE_YIELDS, 30);
+                    LockSupport.parkNanos(Math.min(MIN_PARK_NANOS << parkRound, waitStrategy.maxParkNanos()));
                 }
-                try {
-                    ByteBuffer[] buffers = recordsToWrite.values().toArray(new ByteBuffer[recordsToWrite.size()]);
-                    int totalBytesToWrite = 0;
-                    for (ByteBuffer buffer : buffers) {
-                        totalBytesToWrite += buffer.remaining();
-                    }
-//                System.out.println("Empty buffers: " + emptyBuffers);
-//                System.out.println("Expecting write " + expectedBytes + " bytes to " + recordsToWrite.firstKey());
-//                System.out.println("File position before write: " + fileChannel.position());
-//                long writtenBytes = fileChannel.write(buffers);
-//                System.out.println("File position after write: " + fileChannel.position());
-                    long totalBytesWritten = 0;
-                    while (totalBytesWritten < totalBytesToWrite) {
-                        totalBytesWritten += fileChannel.write(buffers);
-                    }
+            }
+            case BLOCKING -> {
+                writerParked = true;
+                // re-checked after publishing writerParked, so a producer either sees it or its work is seen here
+                if (!queue.hasPublished() && flushRequests.isEmpty() && !isClosed.get()) {
+                    LockSupport.parkNanos(this, waitStrategy.maxParkNanos());
+                }
+                writerParked = false;
+            }
+        }
+    }
 
-                    if (totalBytesWritten != totalBytesToWrite) {
-                        throw new JournalRuntimeIOException("Written bytes mismatch - expected: " + totalBytesToWrite + ", actual: " + totalBytesWritten);
-                    }
+    private void wakeUpWriter() {
+        if (waitStrategy.mode() != WaitStrategy.Mode.BLOCKING) {
+            return;
+        }
+        // orders the producer's publication before reading writerParked
+        VarHandle.fullFence();
+        if (writerParked) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    private void writeBatch(ByteBuffer[] buffers, int numberOfBuffers) throws IOException {
+        long totalBytesToWrite = 0;
+        for (int i = 0; i < numberOfBuffers; i++) {
+            totalBytesToWrite += buffers[i].remaining();
+        }
+        if (sequencer != null) {
+            sequencer.stamp(buffers, numberOfBuffers, queue.offsetAt(0), System.currentTimeMillis());
+        }
+        long totalBytesWritten = blockCodec == null
+            ? writeRecords(buffers, numberOfBuffers, totalBytesToWrite)
+            : writeBlock(buffers, numberOfBuffers, totalBytesToWrite);
+
+        if (totalBytesWritten != totalBytesToWrite) {
+            throw new JournalRuntimeIOException("Written bytes mismatch - expected: " + totalBytesToWrite + ", actual: " + totalBytesWritten);
+        }
 
-                    recordsToWrite.keySet().removeIf( key -> true );
-                    lastWrittenPosition += WRITE_CHUNK_SIZE;
+        for (int i = 0; i < numberOfBuffers; i++) {
+            CompletableFuture<Location> future = queue.futureAt(i);
+            if (future != null) {
+                pendingAcknowledgements.add(new RecordWriteTask(new Location(queue.offsetAt(i)), future));
+            }
+        }
+        Arrays.fill(buffers, 0, numberOfBuffers, null);
+        queue.release(numberOfBuffers, totalBytesWritten);
+        if (boundedPendingWrites) {
+            pendingWritesLimiter.release(numberOfBuffers, totalBytesWritten);
+        }
+        unsyncedBytes += totalBytesWritten;
 
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    Thread.currentThread().interrupt();
-                    throw new JournalException("Error writing to FileChannel", e);
+        switch (durabilityPolicy.mode()) {
+            case NONE -> acknowledgePendingWrites();
+            case GROUP_COMMIT -> sync();
+            case INTERVAL -> {
+                if (unsyncedBytes >= durabilityPolicy.intervalBytes()) {
+                    sync();
+                } else {
+                    syncOnIntervalElapsed();
                 }
             }
-        } catch (IOException e) {
-            throw new JournalRuntimeIOException(e);
+        }
+    }
+
+    private long writeRecords(ByteBuffer[] buffers, int numberOfBuffers, long totalBytesToWrite) throws IOException {
+        preallocator.ensureAllocated(fileChannel.position() + totalBytesToWrite);
+        long totalBytesWritten = 0;
+        while (totalBytesWritten < totalBytesToWrite) {
+            totalBytesWritten += fileChannel.write(buffers, 0, numberOfBuffers);
+        }
+        return totalBytesWritten;
+    }
+
+    // the drained chunk becomes one compressed block; returns the uncompressed bytes, which is what the queue counts
+    private long writeBlock(ByteBuffer[] buffers, int numberOfBuffers, long totalBytesToWrite) throws IOException {
+        if (uncompressedBlock.capacity() < totalBytesToWrite) {
+            // a single record larger than a block
+            uncompressedBlock = ByteBuffer.allocateDirect((int) totalBytesToWrite);
+        }
+        uncompressedBlock.clear();
+        for (int i = 0; i < numberOfBuffers; i++) {
+            uncompressedBlock.put(buffers[i]);
+        }
+        compressedBlock = blockCodec.compress(uncompressedBlock.flip(), compressedBlock);
+        long offset = queue.offsetAt(0);
+        long filePosition = fileChannel.position();
+        int compressedLength = compressedBlock.remaining();
+        blockHeader.clear()
+            .putInt(BlockIndex.BLOCK_PREFIX)
+            .putLong(offset)
+            .putInt((int) totalBytesToWrite)
+            .putInt(compressedLength);
+        if (blockIndex.checksummed()) {
+            blockHeader.putInt(computeChecksum(compressedBlock));
+        }
+        blockHeader.flip();
+        ByteBuffer[] frame = {blockHeader, compressedBlock};
+        int frameHeaderLength = blockIndex.frameHeaderLength();
+        long frameLength = frameHeaderLength + compressedLength;
+        preallocator.ensureAllocated(filePosition + frameLength);
+        long frameBytesWritten = 0;
+        while (frameBytesWritten < frameLength) {
+            frameBytesWritten += fileChannel.write(frame);
+        }
+        // indexed before the queue releases the records, so a reader never sees a written record without its block
+        blockIndex.add(new BlockIndex.Block(offset, (int) totalBytesToWrite, filePosition, frameHeaderLength, compressedLength));
+        return totalBytesToWrite;
+    }
+
+    private void syncOnIntervalElapsed() throws IOException {
+        if (durabilityPolicy.mode() == DurabilityPolicy.Mode.INTERVAL
+            && unsyncedBytes > 0
+            && System.nanoTime() - lastSyncNanos >= durabilityPolicy.intervalNanos()) {
+            sync();
+        }
+    }
+
+    private void sync() throws IOException {
+        if (unsyncedBytes > 0) {
+            fileChannel.force(false);
+            unsyncedBytes = 0;
+        }
+        lastSyncNanos = System.nanoTime();
+        acknowledgePendingWrites();
+    }
+
+    private void acknowledgePendingWrites() {
+        RecordWriteTask task;
+        while ((task = pendingAcknowledgements.poll()) != null) {
+            task.complete();
+        }
+    }
+
+    private void completeFlushRequests() throws IOException {
+        FlushRequest request;
+        while ((request = flushRequests.peek()) != null && request.position() <= queue.writtenPosition()) {
+            sync();
+            flushRequests.poll();
+            request.future().complete(null);
+        }
+    }
+
+    private void failPendingRequests(ByteBuffer[] buffers, Exception cause) {
+        queue.fail(cause);
+        pendingWritesLimiter.close();
+        int numberOfBuffers;
+        while ((numberOfBuffers = queue.drain(buffers, Long.MAX_VALUE)) > 0) {
+            for (int i = 0; i < numberOfBuffers; i++) {
+                CompletableFuture<Location> future = queue.futureAt(i);
+                if (future != null) {
+                    future.completeExceptionally(cause);
+                }
+            }
+            Arrays.fill(buffers, 0, numberOfBuffers, null);
+            queue.release(numberOfBuffers, 0);
+        }
+        // nothing below the claimed position will be written anymore
+        queue.releaseWaiters();
+        RecordWriteTask task;
+        while ((task = pendingAcknowledgements.poll()) != null) {
+            task.completeExceptionally(cause);
+        }
+        FlushRequest request;
+        while ((request = flushRequests.poll()) != null) {
+            request.future().completeExceptionally(cause);
         }
     }
 
@@ -94,4 +479,6 @@ public class RecordWriteChannel implements AutoCloseable, Runnable {
         }
     }
 
+    private record FlushRequest(long position, CompletableFuture<Void> future) {
+    }
 }
@@ -2,10 +2,13 @@ package pl.wsztajerowski.journal.records;
 
 import pl.wsztajerowski.journal.Location;
 
-import java.nio.ByteBuffer;
 import java.util.concurrent.CompletableFuture;
 
-public record RecordWriteTask(ByteBuffer byteBuffer, CompletableFuture<Location> future) {
+public record RecordWriteTask(Location location, CompletableFuture<Location> future) {
+    public void complete() {
+        this.future.complete(location);
+    }
+
     public void completeExceptionally(Exception e) {
         this.future.completeExceptionally(e);
     }
@@ -0,0 +1,43 @@
+package pl.wsztajerowski.journal.records;
+
+import pl.wsztajerowski.journal.Location;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+public interface RecordWriter extends AutoCloseable {
+    Location write(ByteBuffer record);
+
+    CompletableFuture<Location> writeAsync(ByteBuffer record);
+
+    // parts of a single record, header included, written without merging them first
+    Location writeGathered(ByteBuffer[] parts);
+
+    // places the records one after another in a contiguous range and returns their offsets
+    long[] writeAll(ByteBuffer[] records);
+
+    // completes once everything written before the call is forced to disk
+    CompletableFuture<Void> flush();
+
+    // records placed below this position can be read from the journal file
+    long writtenPosition();
+
+    // bytes accepted by the writer but not yet written to the journal file
+    long pendingBytes();
+
+    // blocks until the record at offset can be read from the journal file
+    void awaitWritten(long offset);
+
+    // false when the wait was cancelled; whoever sets cancelled has to unpark the waiting thread afterwards
+    boolean awaitWritten(long offset, BooleanSupplier cancelled);
+
+    // sequence number of the next record, 0 when the writer does not number records; exact once the writer is closed
+    long nextSequence();
+
+    // record still waiting in memory for the writer, or null
+    ByteBuffer findPending(long offset);
+
+    void close() throws IOException;
+}
@@ -0,0 +1,162 @@
+package pl.wsztajerowski.journal.records;
+
+import pl.wsztajerowski.journal.JournalRuntimeIOException;
+import pl.wsztajerowski.journal.Location;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+// Sparse record number -> offset index kept next to the journal file, like Kafka's .index. The writer thread appends
+// an entry for every interval-th record; readers binary search the mapped entries. The mapping grows by doubling and the
+// zeros after the last entry are cut off on close.
+// Entry format: [ long recordNumber, long offset ]
+public class SparseIndex implements AutoCloseable {
+    static final int ENTRY_LENGTH = 2 * Long.BYTES;
+    private static final int INITIAL_CAPACITY = 4096;
+    private final FileChannel fileChannel;
+    private final int interval;
+    private volatile MappedByteBuffer entries;
+    private volatile int entryCount;
+
+    private SparseIndex(FileChannel fileChannel, int interval, MappedByteBuffer entries, int entryCount) {
+        this.fileChannel = fileChannel;
+        this.interval = interval;
+        this.entries = entries;
+        this.entryCount = entryCount;
+    }
+
+    public static Path indexPath(Path journalPath) {
+        return journalPath.resolveSibling(journalPath.getFileName() + ".index");
+    }
+
+    // keeps the entries of an existing index up to the first one that does not continue the previous ones
+    public static SparseIndex open(Path indexPath, int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Index interval must be positive - actual: " + interval);
+        }
+        try {
+            FileChannel fileChannel = FileChannel.open(indexPath, CREATE, READ, WRITE);
+            try {
+                int storedEntries = (int) Math.min(fileChannel.size() / ENTRY_LENGTH, Integer.MAX_VALUE / ENTRY_LENGTH);
+                int capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(storedEntries, 1)) << 1);
+                MappedByteBuffer entries = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * ENTRY_LENGTH);
+                int entryCount = 0;
+                while (entryCount < storedEntries && continuesEntries(entries, entryCount)) {
+                    entryCount++;
+                }
+                return new SparseIndex(fileChannel, interval, entries, entryCount);
+            } catch (IOException | RuntimeException e) {
+                fileChannel.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean continuesEntries(MappedByteBuffer entries, int index) {
+        long recordNumber = entries.getLong(index * ENTRY_LENGTH);
+        long offset = entries.getLong(index * ENTRY_LENGTH + Long.BYTES);
+        if (index == 0) {
+            // the journal header comes first, so no record starts at offset 0
+            return recordNumber >= 0 && offset > 0;
+        }
+        return recordNumber > entries.getLong((index - 1) * ENTRY_LENGTH)
+            && offset > entries.getLong((index - 1) * ENTRY_LENGTH + Long.BYTES);
+    }
+
+    public int interval() {
+        return interval;
+    }
+
+    // drops entries of records at or past endOffset, e.g. records lost with the tail of the journal file
+    public void truncate(long endOffset) {
+        int count = entryCount;
+        while (count > 0 && entries.getLong((count - 1) * ENTRY_LENGTH + Long.BYTES) >= endOffset) {
+            count--;
+        }
+        entryCount = count;
+    }
+
+    // called by the writer thread only
+    void add(long recordNumber, long offset) {
+        int count = entryCount;
+        MappedByteBuffer mapped = entries;
+        if ((count + 1) * ENTRY_LENGTH > mapped.capacity()) {
+            try {
+                mapped = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, 2L * mapped.capacity());
+            } catch (IOException e) {
+                throw new JournalRuntimeIOException("Cannot grow record index", e);
+            }
+            entries = mapped;
+        }
+        mapped.putLong(count * ENTRY_LENGTH, recordNumber);
+        mapped.putLong(count * ENTRY_LENGTH + Long.BYTES, offset);
+        entryCount = count + 1;
+    }
+
+    // brings the index up to endOffset - rebuilding it when the index file was missing - and returns the number of records
+    public long catchUp(RecordReader reader, RecordFormat recordFormat, long startOffset, long endOffset) {
+        truncate(endOffset);
+        Entry lastEntry = lastEntry();
+        long recordNumber = lastEntry == null ? 0 : lastEntry.recordNumber();
+        long offset = lastEntry == null ? startOffset : lastEntry.offset();
+        while (offset < endOffset) {
+            if (recordNumber % interval == 0 && (lastEntry == null || recordNumber > lastEntry.recordNumber())) {
+                add(recordNumber, offset);
+            }
+            offset += recordFormat.headerLength() + reader.readHeader(new Location(offset)).variableSize();
+            recordNumber++;
+        }
+        return recordNumber;
+    }
+
+    // the last indexed record, or null for an empty index
+    public Entry lastEntry() {
+        int count = entryCount;
+        return count == 0 ? null : entryAt(entries, count - 1);
+    }
+
+    // the indexed record closest to recordNumber from below, or null if there is none
+    public Entry floor(long recordNumber) {
+        int count = entryCount;
+        MappedByteBuffer mapped = entries;
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleRecordNumber = mapped.getLong(middle * ENTRY_LENGTH);
+            if (middleRecordNumber <= recordNumber) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high < 0 ? null : entryAt(mapped, high);
+    }
+
+    private static Entry entryAt(MappedByteBuffer mapped, int index) {
+        return new Entry(mapped.getLong(index * ENTRY_LENGTH), mapped.getLong(index * ENTRY_LENGTH + Long.BYTES));
+    }
+
+    public void close() throws IOException {
+        try {
+            if (fileChannel.isOpen()) {
+                entries.force();
+                fileChannel.truncate((long) entryCount * ENTRY_LENGTH);
+            }
+        } finally {
+            fileChannel.close();
+        }
+    }
+
+    public record Entry(long recordNumber, long offset) {
+    }
+}
@@ -0,0 +1,48 @@
+package pl.wsztajerowski.journal.records;
+
+import java.nio.ByteBuffer;
+
+// Off-heap byte ring holding copies of pending records. A record is placed at its file offset modulo the arena size,
+// so its space is free again as soon as the writer has written everything before it - no per-record bookkeeping.
+// A record that would wrap past the end of the ring gets a heap copy instead, so every staged record stays one
+// contiguous slice; with records much smaller than the arena that is a rare case.
+class StagingArena {
+    private final ByteBuffer arena;
+    private final int size;
+
+    StagingArena(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Staging arena size must be positive - actual: " + size);
+        }
+        this.arena = ByteBuffer.allocateDirect(size);
+        this.size = size;
+    }
+
+    // copies the record, waiting until the writer has released the space it is going to take
+    ByteBuffer stage(ByteBuffer record, long offset, PositionWatermark writtenPosition) {
+        int length = record.remaining();
+        return slot(offset, length, writtenPosition)
+            .put(0, record, record.position(), length);
+    }
+
+    // copies the parts of one record next to each other, so the record takes a single slot
+    ByteBuffer stage(ByteBuffer[] parts, long offset, int length, PositionWatermark writtenPosition) {
+        ByteBuffer staged = slot(offset, length, writtenPosition);
+        int position = 0;
+        for (ByteBuffer part : parts) {
+            staged.put(position, part, part.position(), part.remaining());
+            position += part.remaining();
+        }
+        return staged;
+    }
+
+    private ByteBuffer slot(long offset, int length, PositionWatermark writtenPosition) {
+        int arenaOffset = (int) (offset % size);
+        if (arenaOffset + length > size) {
+            // records wrapping past the arena end, or larger than the arena, get a copy of their own
+            return ByteBuffer.allocate(length);
+        }
+        writtenPosition.awaitAbove(offset + length - size - 1);
+        return arena.slice(arenaOffset, length);
+    }
+}
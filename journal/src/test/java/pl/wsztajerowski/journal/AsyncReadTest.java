@@ -0,0 +1,122 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+import pl.wsztajerowski.journal.records.NotEnoughSpaceInBufferException;
+import pl.wsztajerowski.journal.records.RecordFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+import static java.nio.file.Files.createTempFile;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchException;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class AsyncReadTest {
+    private Path dataFilePath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataFilePath = createTempFile("journal", ".dat");
+    }
+
+    static Stream<JournalOptions> options() {
+        return Stream.of(
+            JournalOptions.defaultOptions(),
+            JournalOptions.defaultOptions().readThreads(1),
+            JournalOptions.defaultOptions().recordFormat(RecordFormat.V2),
+            JournalOptions.defaultOptions().writeMode(WriteMode.GROUP_COMMIT),
+            JournalOptions.defaultOptions().writeMode(WriteMode.MAPPED),
+            JournalOptions.defaultOptions().readMode(ReadMode.MAPPED)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("options")
+    void written_record_is_read_asynchronously(JournalOptions options) throws IOException {
+        // given
+        try (Journal sut = Journal.open(dataFilePath, false, options)) {
+            var location = sut.write(wrapInJournalByteBuffer("Hello World"));
+            sut.flush();
+
+            // when
+            CompletableFuture<ByteBuffer> future = sut.readAsync(createJournalByteBuffer(64), location);
+
+            // then
+            assertThat(readAsUtf8(future.join()))
+                .isEqualTo("Hello World");
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("options")
+    void records_read_right_after_their_writes_have_written_content(JournalOptions options) throws IOException {
+        // given
+        try (Journal sut = Journal.open(dataFilePath, false, options)) {
+            List<CompletableFuture<ByteBuffer>> futures = new ArrayList<>();
+
+            // when
+            for (int i = 0; i < 1_000; i++) {
+                var location = sut.write(wrapInJournalByteBuffer("Record " + i));
+                futures.add(sut.readAsync(createJournalByteBuffer(64), location));
+            }
+
+            // then
+            for (int i = 0; i < futures.size(); i++) {
+                assertThat(readAsUtf8(futures.get(i).join()))
+                    .isEqualTo("Record " + i);
+            }
+        }
+    }
+
+    @Test
+    void read_into_too_small_buffer_completes_exceptionally() throws IOException {
+        // given
+        try (Journal sut = Journal.open(dataFilePath, false)) {
+            var location = sut.write(wrapInJournalByteBuffer("Hello World"));
+            sut.flush();
+            JournalByteBuffer buffer = createJournalByteBuffer(4);
+
+            // when
+            Exception exception = catchException(() -> sut.readAsync(buffer, location).join());
+
+            // then
+            assertThat(exception)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(NotEnoughSpaceInBufferException.class);
+        }
+    }
+
+    @Test
+    void read_from_closed_journal_completes_exceptionally() throws IOException {
+        // given
+        Journal sut = Journal.open(dataFilePath, false);
+        var location = sut.write(wrapInJournalByteBuffer("Hello World"));
+        sut.close();
+
+        // when
+        Exception exception = catchException(() -> sut.readAsync(createJournalByteBuffer(64), location).join());
+
+        // then
+        assertThat(exception)
+            .isInstanceOf(CompletionException.class)
+            .cause()
+            .isInstanceOf(JournalException.class)
+            .hasMessageContaining("Journal is closed");
+    }
+}
@@ -0,0 +1,82 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+
+import static java.nio.file.Files.createTempFile;
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.RecordHeader.recordHeaderLength;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class BatchWriteTest {
+    private Path dataFilePath;
+    private Journal sut;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataFilePath = createTempFile("journal", ".dat");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (sut != null) {
+            sut.close();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(WriteMode.class)
+    void batch_is_written_in_one_contiguous_range(WriteMode writeMode) {
+        // given
+        sut = Journal.open(dataFilePath, false, JournalOptions.defaultOptions().writeMode(writeMode));
+        sut.write(wrapInJournalByteBuffer("Before batch"));
+        JournalByteBuffer[] batch = IntStream.range(0, 50)
+            .mapToObj(i -> wrapInJournalByteBuffer("Record %02d".formatted(i)))
+            .toArray(JournalByteBuffer[]::new);
+
+        // when
+        long[] offsets = sut.writeAll(batch);
+
+        // then
+        assertThat(offsets)
+            .hasSize(50);
+        for (int i = 0; i < offsets.length; i++) {
+            if (i > 0) {
+                assertThat(offsets[i])
+                    .isEqualTo(offsets[i - 1] + recordHeaderLength() + "Record 00".length());
+            }
+            assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), new Location(offsets[i]))))
+                .isEqualTo("Record %02d".formatted(i));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(WriteMode.class)
+    void empty_batch_writes_nothing(WriteMode writeMode) {
+        // given
+        sut = Journal.open(dataFilePath, false, JournalOptions.defaultOptions().writeMode(writeMode));
+        var location = sut.write(wrapInJournalByteBuffer("Hello World"));
+
+        // when
+        long[] offsets = sut.writeAll();
+        var next = sut.write(wrapInJournalByteBuffer("Next"));
+
+        // then
+        assertThat(offsets)
+            .isEmpty();
+        assertThat(next.offset())
+            .isEqualTo(location.offset() + recordHeaderLength() + "Hello World".length());
+    }
+}
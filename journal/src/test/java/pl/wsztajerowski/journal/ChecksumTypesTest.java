@@ -0,0 +1,92 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import pl.wsztajerowski.journal.records.ChecksumType;
+import pl.wsztajerowski.journal.records.InvalidRecordChecksumException;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.readAllBytes;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchException;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.RecordHeader.recordHeaderLength;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class ChecksumTypesTest {
+
+    @ParameterizedTest
+    @EnumSource(ChecksumType.class)
+    void reopened_journal_uses_checksum_type_recorded_in_header(ChecksumType checksumType) throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        Location location;
+        try (Journal journal = Journal.open(journalPath, false, JournalOptions.defaultOptions().checksumType(checksumType))) {
+            location = journal.write(wrapInJournalByteBuffer("Hello World"));
+        }
+
+        // when
+        try (Journal sut = Journal.open(journalPath, false)) {
+            var next = sut.write(wrapInJournalByteBuffer("Next"));
+
+            // then
+            assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), location)))
+                .isEqualTo("Hello World");
+            assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), next)))
+                .isEqualTo("Next");
+        }
+    }
+
+    @Test
+    void non_default_checksum_type_is_recorded_in_v4_header() throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+
+        // when
+        Journal.open(journalPath, false, JournalOptions.defaultOptions().checksumType(ChecksumType.NONE))
+            .close();
+
+        // then
+        assertThat(readAllBytes(journalPath))
+            .hasSize(28)
+            .asHexString()
+            .isEqualTo("CAFEBABE0FF1CE0400000000" + "000000000000001C" + "0000000000000000");
+    }
+
+    @Test
+    void corrupted_record_read_without_verification_fails_deferred_verification() throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        Location location;
+        try (Journal journal = Journal.open(journalPath, false)) {
+            location = journal.write(wrapInJournalByteBuffer("Hello World"));
+            // a corrupted last record would be cut off on open as a torn tail
+            journal.write(wrapInJournalByteBuffer("Next"));
+        }
+        try (RandomAccessFile file = new RandomAccessFile(journalPath.toFile(), "rw")) {
+            file.seek(location.offset() + recordHeaderLength());
+            file.write('J');
+        }
+
+        try (Journal sut = Journal.open(journalPath, false, JournalOptions.defaultOptions().verifyChecksums(false))) {
+            // when
+            var content = readAsUtf8(sut.read(createJournalByteBuffer(64), location));
+            Exception exception = catchException(() -> sut.verify(location));
+
+            // then
+            assertThat(content)
+                .isEqualTo("Jello World");
+            assertThat(exception)
+                .isInstanceOf(InvalidRecordChecksumException.class);
+        }
+    }
+}
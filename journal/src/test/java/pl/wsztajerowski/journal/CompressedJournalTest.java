@@ -0,0 +1,136 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.wsztajerowski.journal.records.CompressionType;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.readAllBytes;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchException;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class CompressedJournalTest {
+
+    @Test
+    void records_of_compressed_blocks_are_read_by_their_locations() throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        JournalByteBuffer[] batch = IntStream.range(0, 1000)
+            .mapToObj(i -> wrapInJournalByteBuffer("Compressible record %04d".formatted(i)))
+            .toArray(JournalByteBuffer[]::new);
+
+        try (Journal sut = Journal.open(journalPath, false, JournalOptions.defaultOptions().compression(CompressionType.DEFLATE))) {
+            // when
+            long[] offsets = sut.writeAll(batch);
+            var gathered = sut.write(ByteBuffer.wrap("Hello ".getBytes(UTF_8)), ByteBuffer.wrap("World".getBytes(UTF_8)));
+            sut.flush();
+
+            // then
+            for (int i = 0; i < offsets.length; i++) {
+                assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), new Location(offsets[i]))))
+                    .isEqualTo("Compressible record %04d".formatted(i));
+            }
+            assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), gathered)))
+                .isEqualTo("Hello World");
+            assertThat(Files.size(journalPath))
+                .isLessThan(sut.writtenPosition() / 2);
+        }
+    }
+
+    @Test
+    void closed_compressed_journal_does_not_read_from_released_blocks() throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        Journal sut = Journal.open(journalPath, false, JournalOptions.defaultOptions().compression(CompressionType.DEFLATE));
+        var location = sut.write(wrapInJournalByteBuffer("Hello World"));
+        sut.flush();
+        sut.read(createJournalByteBuffer(64), location);
+
+        // when
+        sut.close();
+
+        // then
+        Exception exception = catchException(() -> sut.read(createJournalByteBuffer(64), location));
+        assertThat(exception)
+            .isInstanceOf(JournalException.class)
+            .hasMessageContaining("closed");
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 65_536})
+    void reopened_compressed_journal_continues_after_last_block(long preallocationSize) throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        JournalOptions options = JournalOptions.defaultOptions()
+            .compression(CompressionType.DEFLATE)
+            .preallocationSize(preallocationSize);
+        Location location;
+        long writtenPosition;
+        try (Journal journal = Journal.open(journalPath, false, options)) {
+            location = journal.write(wrapInJournalByteBuffer("Hello World"));
+            journal.flush();
+            writtenPosition = journal.writtenPosition();
+        }
+
+        // when
+        try (Journal sut = Journal.open(journalPath, false, options)) {
+            var next = sut.write(wrapInJournalByteBuffer("Next"));
+
+            // then
+            assertThat(next.offset())
+                .isEqualTo(writtenPosition);
+            assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), location)))
+                .isEqualTo("Hello World");
+            assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), next)))
+                .isEqualTo("Next");
+        }
+    }
+
+    @Test
+    void compression_is_recorded_in_v4_header() throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+
+        // when
+        Journal.open(journalPath, false, JournalOptions.defaultOptions().compression(CompressionType.DEFLATE))
+            .close();
+
+        // then
+        assertThat(readAllBytes(journalPath))
+            .hasSize(28)
+            .asHexString()
+            .isEqualTo("CAFEBABE0FF1CE0400010001" + "000000000000001C" + "0000000000000000");
+    }
+
+    @Test
+    void compressed_journal_requires_ring_buffer_write_mode() throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        JournalOptions options = JournalOptions.defaultOptions()
+            .compression(CompressionType.DEFLATE)
+            .writeMode(WriteMode.GROUP_COMMIT);
+
+        // when
+        Exception exception = catchException(() -> Journal.open(journalPath, false, options));
+
+        // then
+        assertThat(exception)
+            .isInstanceOf(JournalException.class)
+            .hasMessageContaining("ring buffer write mode");
+    }
+}
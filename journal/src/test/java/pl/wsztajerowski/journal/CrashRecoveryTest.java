@@ -0,0 +1,251 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import pl.wsztajerowski.journal.records.CompressionType;
+import pl.wsztajerowski.journal.records.RecordFormat;
+import pl.wsztajerowski.journal.records.RecordHeader;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static java.nio.file.Files.createTempFile;
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.wsztajerowski.journal.FilesTestUtils.appendToFile;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.RecordHeader.recordHeaderLength;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class CrashRecoveryTest {
+    // the checkpoint follows the prefix, schema version and record format of the header
+    private static final int CHECKPOINT_POSITION = 3 * Integer.BYTES;
+    private Path dataFilePath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataFilePath = createTempFile("journal", ".dat");
+    }
+
+    static Stream<JournalOptions> options() {
+        return Stream.of(
+            JournalOptions.defaultOptions(),
+            JournalOptions.defaultOptions().readAheadSize(16),
+            JournalOptions.defaultOptions().preallocationSize(65_536),
+            JournalOptions.defaultOptions().writeMode(WriteMode.GROUP_COMMIT),
+            JournalOptions.defaultOptions().writeMode(WriteMode.MAPPED),
+            JournalOptions.defaultOptions().recordFormat(RecordFormat.V2).indexInterval(2)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("options")
+    void torn_record_is_cut_off_on_open(JournalOptions options) throws IOException {
+        // given
+        Location last;
+        try (Journal journal = Journal.open(dataFilePath, false, options)) {
+            journal.write(wrapInJournalByteBuffer("Record 0"));
+            journal.write(wrapInJournalByteBuffer("Record 1"));
+            last = journal.write(wrapInJournalByteBuffer("Record 2"));
+        }
+        long endOfRecords = last.offset() + options.recordFormat().headerLength() + "Record 2".length();
+        dropCleanCloseCheckpoint();
+        // header of a record whose content never reached the file
+        appendToFile(dataFilePath, RecordHeader.RECORD_PREFIX);
+        appendToFile(dataFilePath, 100);
+        appendToFile(dataFilePath, "torn");
+
+        // when
+        try (Journal sut = Journal.open(dataFilePath, false, options)) {
+            var next = sut.write(wrapInJournalByteBuffer("Next"));
+
+            // then
+            assertThat(next.offset())
+                .isEqualTo(endOfRecords);
+            assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), last)))
+                .isEqualTo("Record 2");
+            assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), next)))
+                .isEqualTo("Next");
+        }
+    }
+
+    @Test
+    void last_record_with_invalid_checksum_is_cut_off_on_open() throws IOException {
+        // given
+        Location last;
+        try (Journal journal = Journal.open(dataFilePath, false)) {
+            journal.write(wrapInJournalByteBuffer("Record 0"));
+            last = journal.write(wrapInJournalByteBuffer("Record 1"));
+        }
+        dropCleanCloseCheckpoint();
+        corrupt(last);
+
+        // when
+        try (Journal sut = Journal.open(dataFilePath, false)) {
+            // then
+            assertThat(Files.size(dataFilePath))
+                .isEqualTo(last.offset());
+            assertThat(sut.write(wrapInJournalByteBuffer("Next")))
+                .isEqualTo(last);
+        }
+    }
+
+    @Test
+    void record_with_invalid_checksum_followed_by_valid_records_is_kept() throws IOException {
+        // given
+        Location corrupted;
+        Location last;
+        try (Journal journal = Journal.open(dataFilePath, false)) {
+            corrupted = journal.write(wrapInJournalByteBuffer("Record 0"));
+            last = journal.write(wrapInJournalByteBuffer("Record 1"));
+        }
+        dropCleanCloseCheckpoint();
+        corrupt(corrupted);
+
+        // when
+        try (Journal sut = Journal.open(dataFilePath, false)) {
+            var next = sut.write(wrapInJournalByteBuffer("Next"));
+
+            // then
+            assertThat(next.offset())
+                .isEqualTo(last.offset() + recordHeaderLength() + "Record 1".length());
+        }
+    }
+
+    @Test
+    void garbage_after_index_checkpoint_is_cut_off_and_sequence_continues() throws IOException {
+        // given
+        JournalOptions options = JournalOptions.defaultOptions()
+            .recordFormat(RecordFormat.V2)
+            .indexInterval(4);
+        try (Journal journal = Journal.open(dataFilePath, false, options)) {
+            for (int i = 0; i < 10; i++) {
+                journal.write(wrapInJournalByteBuffer("Record " + i));
+            }
+        }
+        dropCleanCloseCheckpoint();
+        appendToFile(dataFilePath, "garbage");
+
+        // when
+        try (Journal sut = Journal.open(dataFilePath, false, options)) {
+            var next = sut.write(wrapInJournalByteBuffer("Next"));
+
+            // then
+            assertThat(sut.readRecord(createJournalByteBuffer(64), next).recordHeader().sequence())
+                .isEqualTo(10);
+            assertThat(sut.locate(10))
+                .isEqualTo(next);
+        }
+    }
+
+    @Test
+    void records_of_cleanly_closed_journal_are_not_scanned_on_open() throws IOException {
+        // given
+        Location last;
+        try (Journal journal = Journal.open(dataFilePath, false)) {
+            journal.write(wrapInJournalByteBuffer("Record 0"));
+            last = journal.write(wrapInJournalByteBuffer("Record 1"));
+        }
+        long endOfRecords = Files.size(dataFilePath);
+        // a scan would cut off the last record
+        corrupt(last);
+
+        // when
+        try (Journal sut = Journal.open(dataFilePath, false)) {
+            var next = sut.write(wrapInJournalByteBuffer("Next"));
+
+            // then
+            assertThat(next.offset())
+                .isEqualTo(endOfRecords);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("options")
+    void open_journal_has_no_clean_close_checkpoint(JournalOptions options) throws IOException {
+        // given
+        Journal.open(dataFilePath, false, options)
+            .close();
+
+        // when
+        try (Journal sut = Journal.open(dataFilePath, false, options)) {
+            sut.write(wrapInJournalByteBuffer("Record"));
+
+            // then
+            assertThat(Arrays.copyOfRange(Files.readAllBytes(dataFilePath), CHECKPOINT_POSITION, Journal.journalHeaderLength()))
+                .containsOnly(0);
+        }
+        assertThat(readCheckpointEndOffset())
+            .isEqualTo(Files.size(dataFilePath));
+    }
+
+    @Test
+    void torn_compressed_block_is_cut_off_on_open() throws IOException {
+        // given
+        JournalOptions options = JournalOptions.defaultOptions()
+            .compression(CompressionType.DEFLATE);
+        Location last;
+        try (Journal journal = Journal.open(dataFilePath, false, options)) {
+            journal.write(wrapInJournalByteBuffer("Record 0"));
+            last = journal.write(wrapInJournalByteBuffer("Record 1"));
+        }
+        long fileSize = Files.size(dataFilePath);
+        long endOfRecords = last.offset() + recordHeaderLength() + "Record 1".length();
+        dropCleanCloseCheckpoint();
+        // frame header of a block whose compressed records never reached the preallocated space
+        appendToFile(dataFilePath, ByteBuffer.allocate(24)
+            .putInt(0xB10CCAFE)
+            .putLong(endOfRecords)
+            .putInt(64)
+            .putInt(32)
+            .putInt(0x12345678)
+            .array());
+        appendToFile(dataFilePath, new byte[32]);
+
+        // when
+        try (Journal sut = Journal.open(dataFilePath, false, options)) {
+            // then
+            assertThat(Files.size(dataFilePath))
+                .isEqualTo(fileSize);
+            var next = sut.write(wrapInJournalByteBuffer("Next"));
+            assertThat(next.offset())
+                .isEqualTo(endOfRecords);
+            assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), last)))
+                .isEqualTo("Record 1");
+            assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), next)))
+                .isEqualTo("Next");
+        }
+    }
+
+    // a crash leaves the journal without the checkpoint saved by a clean close
+    private void dropCleanCloseCheckpoint() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(dataFilePath.toFile(), "rw")) {
+            file.seek(CHECKPOINT_POSITION);
+            file.write(new byte[2 * Long.BYTES]);
+        }
+    }
+
+    private long readCheckpointEndOffset() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(dataFilePath.toFile(), "r")) {
+            file.seek(CHECKPOINT_POSITION);
+            return file.readLong();
+        }
+    }
+
+    private void corrupt(Location location) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(dataFilePath.toFile(), "rw")) {
+            file.seek(location.offset() + recordHeaderLength());
+            file.write('X');
+        }
+    }
+}
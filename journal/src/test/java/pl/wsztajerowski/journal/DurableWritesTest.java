@@ -0,0 +1,102 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.size;
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class DurableWritesTest {
+    private Journal sut;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (sut != null) {
+            sut.close();
+        }
+    }
+
+    static Stream<DurabilityPolicy> durabilityPolicies() {
+        return Stream.of(
+            DurabilityPolicy.none(),
+            DurabilityPolicy.groupCommit(),
+            DurabilityPolicy.interval(Duration.ofMillis(5), 1024)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("durabilityPolicies")
+    void acknowledged_write_is_readable(DurabilityPolicy durabilityPolicy) throws Exception {
+        // given
+        sut = openJournal(durabilityPolicy);
+        List<CompletableFuture<Location>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            futures.add(sut.writeAsync(wrapInJournalByteBuffer("Record %03d".formatted(i))));
+        }
+
+        // then
+        for (int i = 0; i < futures.size(); i++) {
+            Location location = futures.get(i).get(1, TimeUnit.SECONDS);
+            assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), location)))
+                .isEqualTo("Record %03d".formatted(i));
+        }
+    }
+
+    @Test
+    void interval_policy_acknowledges_writes_when_idle_interval_elapses() throws Exception {
+        // given
+        sut = openJournal(DurabilityPolicy.interval(Duration.ofMillis(20), Long.MAX_VALUE));
+
+        // when
+        CompletableFuture<Location> future = sut.writeAsync(wrapInJournalByteBuffer("Hello"));
+
+        // then
+        assertThat(future.get(1, TimeUnit.SECONDS))
+            .isEqualTo(new Location(Journal.journalHeaderLength()));
+    }
+
+    @Test
+    void flush_returns_after_all_previous_writes_are_on_disk() throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        sut = Journal.open(journalPath, false, JournalOptions.defaultOptions()
+            .durabilityPolicy(DurabilityPolicy.interval(Duration.ofHours(1), Long.MAX_VALUE)));
+        var content = "Hello World";
+        sut.write(wrapInJournalByteBuffer(content));
+        CompletableFuture<Location> future = sut.writeAsync(wrapInJournalByteBuffer(content));
+
+        // when
+        sut.flush();
+
+        // then
+        assertThat(size(journalPath))
+            .isEqualTo(Journal.journalHeaderLength() + 2L * (12 + content.length()));
+        assertThat(future)
+            .isCompleted();
+    }
+
+    private static Journal openJournal(DurabilityPolicy durabilityPolicy) throws IOException {
+        return Journal.open(createTempFile("journal", ".dat"), false, JournalOptions.defaultOptions()
+            .durabilityPolicy(durabilityPolicy));
+    }
+}
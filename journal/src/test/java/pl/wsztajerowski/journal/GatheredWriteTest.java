@@ -0,0 +1,85 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createTempFile;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchException;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.RecordHeader.recordHeaderLength;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class GatheredWriteTest {
+    private Path dataFilePath;
+    private Journal sut;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataFilePath = createTempFile("journal", ".dat");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (sut != null) {
+            sut.close();
+        }
+    }
+
+    static Stream<JournalOptions> options() {
+        return Stream.of(
+            // without staging, the default, every fragment goes to the gathering write as a buffer of its own
+            JournalOptions.defaultOptions(),
+            JournalOptions.defaultOptions().stagingArenaSize(1 << 16),
+            JournalOptions.defaultOptions().writeMode(WriteMode.GROUP_COMMIT),
+            JournalOptions.defaultOptions().writeMode(WriteMode.MAPPED)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("options")
+    void fragments_are_read_back_as_one_record(JournalOptions options) {
+        // given
+        sut = Journal.open(dataFilePath, false, options);
+        ByteBuffer envelope = ByteBuffer.allocateDirect(8)
+            .put("[header]".getBytes(UTF_8))
+            .flip();
+        ByteBuffer body = ByteBuffer.wrap("Hello World".getBytes(UTF_8));
+
+        // when
+        var location = sut.write(envelope, body);
+        var next = sut.write(wrapInJournalByteBuffer("Next"));
+
+        // then
+        assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), location)))
+            .isEqualTo("[header]Hello World");
+        assertThat(next.offset())
+            .isEqualTo(location.offset() + recordHeaderLength() + "[header]Hello World".length());
+    }
+
+    @Test
+    void record_without_content_is_rejected() {
+        // given
+        sut = Journal.open(dataFilePath, false);
+
+        // when
+        Exception exception = catchException(() -> sut.write(ByteBuffer.allocate(0), ByteBuffer.allocate(0)));
+
+        // then
+        assertThat(exception)
+            .hasMessageContaining("no data to write");
+    }
+}
@@ -0,0 +1,118 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.size;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchException;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class GroupCommitJournalTest {
+    private Journal sut;
+    private Path dataFilePath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataFilePath = createTempFile("journal", ".dat");
+        sut = Journal.open(dataFilePath, false, JournalOptions.defaultOptions()
+            .writeMode(WriteMode.GROUP_COMMIT)
+            .durabilityPolicy(DurabilityPolicy.groupCommit()));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        sut.close();
+    }
+
+    @Test
+    void write_returns_location_of_record_already_on_disk() throws IOException {
+        // given
+        var content = "Hello World";
+
+        // when
+        var location = sut.write(wrapInJournalByteBuffer(content));
+
+        // then
+        assertThat(size(dataFilePath))
+            .isEqualTo(location.offset() + 12 + content.length());
+        assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), location)))
+            .isEqualTo(content);
+    }
+
+    @Test
+    void concurrent_producers_read_their_own_writes() throws InterruptedException {
+        // given
+        Map<Location, String> writes = new ConcurrentHashMap<>();
+        int producers = 4;
+        int recordsPerProducer = 250;
+
+        // when
+        try (ExecutorService executor = newFixedThreadPool(producers)) {
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                executor.submit(() -> {
+                    for (int i = 0; i < recordsPerProducer; i++) {
+                        String content = "Producer %d record %03d".formatted(producer, i);
+                        writes.put(sut.write(wrapInJournalByteBuffer(content)), content);
+                    }
+                });
+            }
+            executor.shutdown();
+            assertThat(executor.awaitTermination(30, TimeUnit.SECONDS))
+                .isTrue();
+        }
+
+        // then
+        assertThat(writes)
+            .hasSize(producers * recordsPerProducer);
+        writes.forEach((location, content) ->
+            assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), location)))
+                .isEqualTo(content));
+    }
+
+    @Test
+    void async_write_is_acknowledged_after_flush() throws Exception {
+        // given
+        var future = sut.writeAsync(wrapInJournalByteBuffer("Hello"));
+
+        // when
+        sut.flush();
+
+        // then
+        assertThat(future.get(1, TimeUnit.SECONDS))
+            .isEqualTo(new Location(Journal.journalHeaderLength()));
+    }
+
+    @Test
+    void group_commit_mode_rejects_interval_durability_policy() throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        JournalOptions options = JournalOptions.defaultOptions()
+            .writeMode(WriteMode.GROUP_COMMIT)
+            .durabilityPolicy(DurabilityPolicy.interval(Duration.ofMillis(1), 1));
+
+        // when
+        Exception exception = catchException(() -> Journal.open(journalPath, false, options));
+
+        // then
+        assertThat(exception)
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,109 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.size;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchException;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.RecordHeader.recordHeaderLength;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class MappedJournalTest {
+    // small regions make records straddle region boundaries
+    private static final long REGION_SIZE = 100;
+    private Journal sut;
+    private Path dataFilePath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataFilePath = createTempFile("journal", ".dat");
+        sut = openJournal(DurabilityPolicy.groupCommit());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        sut.close();
+    }
+
+    @Test
+    void concurrent_producers_read_their_own_writes() throws InterruptedException {
+        // given
+        Map<Location, String> writes = new ConcurrentHashMap<>();
+        int producers = 4;
+        int recordsPerProducer = 250;
+
+        // when
+        try (ExecutorService executor = newFixedThreadPool(producers)) {
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                executor.submit(() -> {
+                    for (int i = 0; i < recordsPerProducer; i++) {
+                        String content = "Producer %d record %03d".formatted(producer, i);
+                        writes.put(sut.write(wrapInJournalByteBuffer(content)), content);
+                    }
+                });
+            }
+            executor.shutdown();
+            assertThat(executor.awaitTermination(30, TimeUnit.SECONDS))
+                .isTrue();
+        }
+
+        // then
+        assertThat(writes)
+            .hasSize(producers * recordsPerProducer);
+        writes.forEach((location, content) ->
+            assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), location)))
+                .isEqualTo(content));
+    }
+
+    @Test
+    void close_trims_mapped_regions_to_end_of_records() throws IOException {
+        // given
+        var content = "Hello World";
+        var location = sut.write(wrapInJournalByteBuffer(content));
+
+        // when
+        sut.close();
+
+        // then
+        assertThat(size(dataFilePath))
+            .isEqualTo(location.offset() + recordHeaderLength() + content.length());
+        sut = openJournal(DurabilityPolicy.none());
+        assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), location)))
+            .isEqualTo(content);
+    }
+
+    @Test
+    void mapped_mode_rejects_interval_durability_policy() {
+        // when
+        Exception exception = catchException(() -> openJournal(DurabilityPolicy.interval(Duration.ofMillis(1), 1)));
+
+        // then
+        assertThat(exception)
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Journal openJournal(DurabilityPolicy durabilityPolicy) {
+        return Journal.open(dataFilePath, false, JournalOptions.defaultOptions()
+            .writeMode(WriteMode.MAPPED)
+            .mappedRegionSize(REGION_SIZE)
+            .durabilityPolicy(durabilityPolicy));
+    }
+}
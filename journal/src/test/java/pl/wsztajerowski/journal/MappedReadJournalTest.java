@@ -0,0 +1,133 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import pl.wsztajerowski.journal.records.InvalidRecordChecksumException;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.Files.createTempFile;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchException;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.RecordHeader.recordHeaderLength;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class MappedReadJournalTest {
+    // small regions make records straddle region boundaries
+    private static final long REGION_SIZE = 64;
+    private Journal sut;
+    private Path dataFilePath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataFilePath = createTempFile("journal", ".dat");
+        sut = openJournal(ReadMode.MAPPED);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        sut.close();
+    }
+
+    @Test
+    void read_view_returns_read_only_record_content() {
+        // given
+        var location = sut.write(wrapInJournalByteBuffer("Hello World"));
+
+        // when
+        ByteBuffer view = sut.readView(location);
+
+        // then
+        assertThat(view.isReadOnly())
+            .isTrue();
+        assertThat(readAsUtf8(view))
+            .isEqualTo("Hello World");
+    }
+
+    @Test
+    void records_crossing_region_boundaries_are_readable_while_file_grows() {
+        // given
+        List<Location> locations = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 50; i++) {
+            locations.add(sut.write(wrapInJournalByteBuffer("Record %03d".formatted(i))));
+            assertThat(readAsUtf8(sut.readView(locations.getLast())))
+                .isEqualTo("Record %03d".formatted(i));
+        }
+
+        // then
+        for (int i = 0; i < locations.size(); i++) {
+            assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), locations.get(i))))
+                .isEqualTo("Record %03d".formatted(i));
+        }
+    }
+
+    @Test
+    void read_view_stays_valid_after_journal_is_closed() throws IOException {
+        // given
+        var location = sut.write(wrapInJournalByteBuffer("Hello World"));
+        ByteBuffer view = sut.readView(location);
+
+        // when
+        sut.close();
+
+        // then
+        assertThat(readAsUtf8(view))
+            .isEqualTo("Hello World");
+    }
+
+    @Test
+    void read_view_validates_record_checksum() throws IOException {
+        // given
+        var location = sut.write(wrapInJournalByteBuffer("Hello World"));
+        // a corrupted last record would be cut off on open as a torn tail
+        sut.write(wrapInJournalByteBuffer("Next"));
+        sut.close();
+        try (RandomAccessFile file = new RandomAccessFile(dataFilePath.toFile(), "rw")) {
+            file.seek(location.offset() + recordHeaderLength());
+            file.write('J');
+        }
+        sut = openJournal(ReadMode.MAPPED);
+
+        // when
+        Exception exception = catchException(() -> sut.readView(location));
+
+        // then
+        assertThat(exception)
+            .isInstanceOf(InvalidRecordChecksumException.class);
+    }
+
+    @Test
+    void read_view_requires_mapped_read_mode() throws IOException {
+        // given
+        sut.close();
+        sut = openJournal(ReadMode.CHANNEL);
+        var location = sut.write(wrapInJournalByteBuffer("Hello World"));
+
+        // when
+        Exception exception = catchException(() -> sut.readView(location));
+
+        // then
+        assertThat(exception)
+            .isInstanceOf(JournalException.class)
+            .hasMessageContaining("mapped read mode");
+    }
+
+    private Journal openJournal(ReadMode readMode) {
+        return Journal.open(dataFilePath, false, JournalOptions.defaultOptions()
+            .readMode(readMode)
+            .mappedRegionSize(REGION_SIZE));
+    }
+}
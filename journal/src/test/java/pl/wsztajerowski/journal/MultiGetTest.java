@@ -0,0 +1,174 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import pl.wsztajerowski.journal.records.CompressionType;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+import pl.wsztajerowski.journal.records.NotEnoughSpaceInBufferException;
+import pl.wsztajerowski.journal.records.RecordFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.nio.file.Files.createTempFile;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchException;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class MultiGetTest {
+    private Path dataFilePath;
+    private Journal sut;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataFilePath = createTempFile("journal", ".dat");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (sut != null) {
+            sut.close();
+        }
+    }
+
+    static Stream<JournalOptions> options() {
+        return Stream.of(
+            JournalOptions.defaultOptions(),
+            JournalOptions.defaultOptions().recordFormat(RecordFormat.V2),
+            JournalOptions.defaultOptions().preallocationSize(65_536),
+            JournalOptions.defaultOptions().pageCacheSize(1 << 20),
+            JournalOptions.defaultOptions().readMode(ReadMode.MAPPED),
+            JournalOptions.defaultOptions().compression(CompressionType.DEFLATE)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("options")
+    void records_are_returned_in_order_of_locations(JournalOptions options) {
+        // given
+        sut = Journal.open(dataFilePath, false, options);
+        List<Location> written = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            written.add(sut.write(payload(sizeOf(i), i)));
+        }
+        List<Integer> records = IntStream.range(0, written.size()).boxed().collect(Collectors.toList());
+        Collections.shuffle(records, new Random(42));
+        List<Location> locations = records.stream().map(written::get).toList();
+        List<JournalByteBuffer> destinations = records.stream().map(i -> createJournalByteBuffer(sizeOf(i))).toList();
+
+        // when
+        List<ByteBuffer> contents = sut.readAll(locations, destinations);
+
+        // then
+        for (int i = 0; i < records.size(); i++) {
+            int record = records.get(i);
+            assertThat(contents.get(i).remaining())
+                .isEqualTo(sizeOf(record));
+            assertThat(contents.get(i).get(contents.get(i).limit() - 1))
+                .isEqualTo((byte) record);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("options")
+    void records_are_read_by_offset_only_locations(JournalOptions options) {
+        // given
+        sut = Journal.open(dataFilePath, false, options);
+        long[] offsets = sut.writeAll(
+            wrapInJournalByteBuffer("First"),
+            wrapInJournalByteBuffer("Second"),
+            wrapInJournalByteBuffer("Third"));
+        List<Location> locations = List.of(new Location(offsets[2]), new Location(offsets[0]), new Location(offsets[1]));
+
+        // when
+        List<ByteBuffer> contents = sut.readAll(locations, destinations(3, 64));
+
+        // then
+        assertThat(contents.stream().map(FilesTestUtils::readAsUtf8))
+            .containsExactly("Third", "First", "Second");
+    }
+
+    @Test
+    void same_location_is_read_into_each_destination() {
+        // given
+        sut = Journal.open(dataFilePath, false);
+        var location = sut.write(wrapInJournalByteBuffer("Hello World"));
+
+        // when
+        List<ByteBuffer> contents = sut.readAll(List.of(location, location), destinations(2, 64));
+
+        // then
+        assertThat(readAsUtf8(contents.get(0)))
+            .isEqualTo("Hello World");
+        assertThat(readAsUtf8(contents.get(1)))
+            .isEqualTo("Hello World");
+    }
+
+    @Test
+    void too_small_destination_throws_exception() {
+        // given
+        sut = Journal.open(dataFilePath, false);
+        var first = sut.write(wrapInJournalByteBuffer("First"));
+        var second = sut.write(wrapInJournalByteBuffer("Second record"));
+
+        // when
+        Exception exception = catchException(() -> sut.readAll(List.of(first, second), List.of(createJournalByteBuffer(64), createJournalByteBuffer(4))));
+
+        // then
+        assertThat(exception)
+            .isInstanceOf(NotEnoughSpaceInBufferException.class);
+    }
+
+    @Test
+    void number_of_destinations_has_to_match_number_of_locations() {
+        // given
+        sut = Journal.open(dataFilePath, false);
+        var location = sut.write(wrapInJournalByteBuffer("Hello World"));
+
+        // when
+        Exception exception = catchException(() -> sut.readAll(List.of(location, location), destinations(1, 64)));
+
+        // then
+        assertThat(exception)
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // mostly small records next to each other, with records larger than a coalesced read in between
+    private static int sizeOf(int record) {
+        return record % 50 == 7 ? 1_500_000 : 100 + record * 37;
+    }
+
+    private static List<JournalByteBuffer> destinations(int count, int size) {
+        List<JournalByteBuffer> destinations = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            destinations.add(createJournalByteBuffer(size));
+        }
+        return destinations;
+    }
+
+    private static JournalByteBuffer payload(int size, int value) {
+        JournalByteBuffer buffer = createJournalByteBuffer(size);
+        ByteBuffer content = buffer.getContentBuffer();
+        while (content.hasRemaining()) {
+            content.put((byte) value);
+        }
+        content.flip();
+        return buffer;
+    }
+}
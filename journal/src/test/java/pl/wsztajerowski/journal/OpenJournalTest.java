@@ -39,7 +39,7 @@ class OpenJournalTest {
         // then
         byte[] bytes = readAllBytes(journalPath);
         assertThat(bytes)
-            .hasSize(8)
+            .hasSize(Journal.journalHeaderLength())
             .asHexString()
             .containsSequence(journalHeaderPrefixInHexString(), journalCurrentSchemaVersionInHexString());
     }
@@ -0,0 +1,156 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+import pl.wsztajerowski.journal.records.PageCache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import static java.nio.file.Files.createTempFile;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchException;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class PageCachedJournalTest {
+    private Path dataFilePath;
+    private Journal sut;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataFilePath = createTempFile("journal", ".dat");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (sut != null) {
+            sut.close();
+        }
+    }
+
+    static Stream<JournalOptions> options() {
+        return Stream.of(
+            JournalOptions.defaultOptions().pageCacheSize(1 << 20),
+            // preallocated pages are read before the records filling them are written
+            JournalOptions.defaultOptions().pageCacheSize(1 << 20).preallocationSize(65_536),
+            JournalOptions.defaultOptions().pageCacheSize(1 << 20).writeMode(WriteMode.MAPPED)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("options")
+    void record_written_into_cached_page_is_read(JournalOptions options) {
+        // given
+        sut = Journal.open(dataFilePath, false, options);
+        var first = sut.write(wrapInJournalByteBuffer("First"));
+        readAsUtf8(sut.read(createJournalByteBuffer(64), first));
+
+        // when
+        var second = sut.write(wrapInJournalByteBuffer("Second"));
+        var content = readAsUtf8(sut.read(createJournalByteBuffer(64), second));
+
+        // then
+        assertThat(content)
+            .isEqualTo("Second");
+    }
+
+    @Test
+    void repeated_reads_hit_cached_pages() {
+        // given
+        sut = Journal.open(dataFilePath, false, JournalOptions.defaultOptions().pageCacheSize(1 << 20));
+        var location = sut.write(payload(10_000, 7));
+        sut.read(createJournalByteBuffer(10_000), location);
+        PageCache.Statistics before = sut.pageCacheStatistics();
+
+        // when
+        ByteBuffer content = sut.read(createJournalByteBuffer(10_000), location);
+
+        // then
+        assertThat(content.remaining())
+            .isEqualTo(10_000);
+        assertThat(content.get(9_999))
+            .isEqualTo((byte) 7);
+        PageCache.Statistics after = sut.pageCacheStatistics();
+        assertThat(after.misses())
+            .isEqualTo(before.misses());
+        assertThat(after.hits())
+            .isGreaterThan(before.hits());
+    }
+
+    @Test
+    void concurrent_readers_of_journal_larger_than_cache_read_written_records() throws Exception {
+        // given
+        sut = Journal.open(dataFilePath, false, JournalOptions.defaultOptions().pageCacheSize(64 * 1024));
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            locations.add(sut.write(payload(1_000 + i, i)));
+        }
+
+        // when
+        List<Future<Integer>> readers = new ArrayList<>();
+        try (ExecutorService executor = newFixedThreadPool(4)) {
+            for (int reader = 0; reader < 4; reader++) {
+                readers.add(executor.submit(() -> {
+                    JournalByteBuffer buffer = createJournalByteBuffer(2_000);
+                    int mismatches = 0;
+                    for (int read = 0; read < 2_000; read++) {
+                        int i = ThreadLocalRandom.current().nextInt(locations.size());
+                        buffer.getContentBuffer().clear();
+                        ByteBuffer content = sut.read(buffer, locations.get(i));
+                        if (content.remaining() != 1_000 + i || content.get(content.limit() - 1) != (byte) i) {
+                            mismatches++;
+                        }
+                    }
+                    return mismatches;
+                }));
+            }
+        }
+
+        // then
+        for (Future<Integer> reader : readers) {
+            assertThat(reader.get())
+                .isZero();
+        }
+        assertThat(sut.pageCacheStatistics().misses())
+            .isPositive();
+    }
+
+    @Test
+    void page_cache_requires_channel_read_mode() {
+        // when
+        Exception exception = catchException(() -> Journal.open(dataFilePath, false, JournalOptions.defaultOptions()
+            .pageCacheSize(1 << 20)
+            .readMode(ReadMode.MAPPED)));
+
+        // then
+        assertThat(exception)
+            .hasMessageContaining("Page cache requires channel read mode");
+    }
+
+    private static JournalByteBuffer payload(int size, int value) {
+        JournalByteBuffer buffer = createJournalByteBuffer(size);
+        ByteBuffer content = buffer.getContentBuffer();
+        while (content.hasRemaining()) {
+            content.put((byte) value);
+        }
+        content.flip();
+        return buffer;
+    }
+}
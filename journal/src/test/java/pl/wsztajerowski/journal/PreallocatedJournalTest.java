@@ -0,0 +1,101 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.size;
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.wsztajerowski.journal.FilesTestUtils.appendToFile;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.RecordHeader.recordHeaderLength;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class PreallocatedJournalTest {
+    private static final long PREALLOCATION_SIZE = 65_536;
+    private Path journalPath;
+    private Journal sut;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        journalPath = createTempFile("preallocated-journal", ".dat");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (sut != null) {
+            sut.close();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = WriteMode.class, names = {"RING_BUFFER", "GROUP_COMMIT"})
+    void file_grows_in_preallocated_extents(WriteMode writeMode) throws IOException {
+        // given
+        sut = openJournal(writeMode, true);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            sut.write(wrapInJournalByteBuffer("Record %03d".formatted(i)));
+        }
+        sut.flush();
+
+        // then
+        assertThat(size(journalPath))
+            .isEqualTo(PREALLOCATION_SIZE);
+    }
+
+    @ParameterizedTest
+    @EnumSource(WriteMode.class)
+    void close_trims_file_to_end_of_records(WriteMode writeMode) throws IOException {
+        // given
+        sut = openJournal(writeMode, true);
+        sut.write(wrapInJournalByteBuffer("Record"));
+
+        // when
+        sut.close();
+        sut = null;
+
+        // then
+        assertThat(size(journalPath))
+            .isEqualTo(Journal.journalHeaderLength() + recordHeaderLength() + "Record".length());
+    }
+
+    @ParameterizedTest
+    @EnumSource(WriteMode.class)
+    void reopened_journal_appends_after_last_record_instead_of_unused_space(WriteMode writeMode) throws IOException {
+        // given
+        sut = openJournal(writeMode, true);
+        Location first = sut.write(wrapInJournalByteBuffer("First"));
+        sut.close();
+        // simulates preallocated space left behind by a crash
+        appendToFile(journalPath, new byte[4096]);
+
+        // when
+        sut = openJournal(writeMode, false);
+        Location second = sut.write(wrapInJournalByteBuffer("Second"));
+
+        // then
+        assertThat(second.offset())
+            .isEqualTo(first.offset() + recordHeaderLength() + "First".length());
+        assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), first)))
+            .isEqualTo("First");
+        assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), second)))
+            .isEqualTo("Second");
+    }
+
+    private Journal openJournal(WriteMode writeMode, boolean truncateFile) {
+        return Journal.open(journalPath, truncateFile, JournalOptions.defaultOptions()
+            .writeMode(writeMode)
+            .preallocationSize(PREALLOCATION_SIZE));
+    }
+}
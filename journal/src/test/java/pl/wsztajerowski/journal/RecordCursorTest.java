@@ -0,0 +1,132 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import pl.wsztajerowski.journal.records.CompressionType;
+import pl.wsztajerowski.journal.records.Record;
+import pl.wsztajerowski.journal.records.RecordCursor;
+import pl.wsztajerowski.journal.records.RecordFormat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.nio.file.Files.createTempFile;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchException;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class RecordCursorTest {
+
+    // read-ahead chunks smaller than a record, so records and headers cross chunk boundaries
+    static Stream<JournalOptions> options() {
+        return Stream.of(
+            JournalOptions.defaultOptions(),
+            JournalOptions.defaultOptions().readAheadSize(7),
+            JournalOptions.defaultOptions().readAheadSize(64).recordFormat(RecordFormat.V2),
+            JournalOptions.defaultOptions().readAheadSize(64).preallocationSize(65_536),
+            JournalOptions.defaultOptions().readAheadSize(64).readMode(ReadMode.MAPPED),
+            JournalOptions.defaultOptions().readAheadSize(64).writeMode(WriteMode.MAPPED)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("options")
+    void cursor_streams_records_in_file_order(JournalOptions options) throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        try (Journal sut = Journal.open(journalPath, false, options)) {
+            List<Location> locations = write(sut, 50);
+
+            // when
+            List<String> contents = new ArrayList<>();
+            List<Location> scannedLocations = new ArrayList<>();
+            try (RecordCursor cursor = sut.scan(locations.getFirst())) {
+                cursor.forEachRemaining(record -> {
+                    contents.add(readAsUtf8(record.buffer()));
+                    scannedLocations.add(record.location());
+                });
+            }
+
+            // then
+            assertThat(contents)
+                .hasSize(50)
+                .startsWith("Record 0", "Record 1")
+                .endsWith("Record 49");
+            assertThat(scannedLocations)
+                .isEqualTo(locations);
+        }
+    }
+
+    @Test
+    void cursor_starts_at_given_location() throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        try (Journal sut = Journal.open(journalPath, false, JournalOptions.defaultOptions().readAheadSize(16))) {
+            List<Location> locations = write(sut, 10);
+
+            // when
+            List<String> contents = new ArrayList<>();
+            try (RecordCursor cursor = sut.scan(locations.get(7))) {
+                cursor.forEachRemaining(record -> contents.add(readAsUtf8(record.buffer())));
+            }
+
+            // then
+            assertThat(contents)
+                .containsExactly("Record 7", "Record 8", "Record 9");
+        }
+    }
+
+    @Test
+    void cursor_stops_at_end_of_data_written_before_scan() throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        try (Journal sut = Journal.open(journalPath, false)) {
+            List<Location> locations = write(sut, 3);
+
+            // when
+            List<Record> records = new ArrayList<>();
+            try (RecordCursor cursor = sut.scan(locations.getFirst())) {
+                Location later = sut.write(wrapInJournalByteBuffer("Written later"));
+                sut.awaitWritten(later);
+                cursor.forEachRemaining(records::add);
+            }
+
+            // then
+            assertThat(records)
+                .hasSize(3);
+        }
+    }
+
+    @Test
+    void compressed_journal_cannot_be_scanned() throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        try (Journal sut = Journal.open(journalPath, false, JournalOptions.defaultOptions().compression(CompressionType.DEFLATE))) {
+            List<Location> locations = write(sut, 3);
+
+            // when
+            Exception exception = catchException(() -> sut.scan(locations.getFirst()));
+
+            // then
+            assertThat(exception)
+                .hasMessageContaining("not supported for compressed journals");
+        }
+    }
+
+    private static List<Location> write(Journal journal, int count) {
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            locations.add(journal.write(wrapInJournalByteBuffer("Record " + i)));
+        }
+        journal.awaitWritten(locations.getLast());
+        return locations;
+    }
+}
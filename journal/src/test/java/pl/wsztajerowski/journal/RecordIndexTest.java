@@ -0,0 +1,133 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import pl.wsztajerowski.journal.records.CompressionType;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+import pl.wsztajerowski.journal.records.RecordFormat;
+import pl.wsztajerowski.journal.records.SparseIndex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createTempFile;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchException;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class RecordIndexTest {
+
+    static Stream<JournalOptions> options() {
+        return Stream.of(
+            JournalOptions.defaultOptions(),
+            JournalOptions.defaultOptions().stagingArenaSize(1 << 16),
+            JournalOptions.defaultOptions().preallocationSize(65_536),
+            JournalOptions.defaultOptions().compression(CompressionType.DEFLATE),
+            JournalOptions.defaultOptions().recordFormat(RecordFormat.V2),
+            JournalOptions.defaultOptions().writeMode(WriteMode.GROUP_COMMIT)
+        ).map(options -> options.indexInterval(4));
+    }
+
+    @ParameterizedTest
+    @MethodSource("options")
+    void records_are_located_by_number(JournalOptions options) throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        List<Location> locations = new ArrayList<>();
+
+        try (Journal sut = Journal.open(journalPath, false, options)) {
+            // when
+            locations.add(sut.write(wrapInJournalByteBuffer("Single")));
+            locations.add(sut.write(ByteBuffer.wrap("Gathered ".getBytes(UTF_8)), ByteBuffer.wrap("record".getBytes(UTF_8))));
+            for (long offset : sut.writeAll(batch(0, 48))) {
+                locations.add(new Location(offset));
+            }
+            sut.flush();
+
+            // then
+            for (int i = 0; i < locations.size(); i++) {
+                assertThat(sut.locate(i))
+                    .isEqualTo(locations.get(i));
+            }
+        }
+        assertThat(Files.size(SparseIndex.indexPath(journalPath)))
+            .isEqualTo(13 * 2 * Long.BYTES);
+    }
+
+    @ParameterizedTest
+    @MethodSource("options")
+    void missing_index_is_rebuilt_from_journal_file(JournalOptions options) throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        try (Journal journal = Journal.open(journalPath, false, options)) {
+            journal.writeAll(batch(0, 10));
+        }
+        Files.delete(SparseIndex.indexPath(journalPath));
+
+        // when
+        try (Journal sut = Journal.open(journalPath, false, options)) {
+            sut.writeAll(batch(10, 10));
+            sut.flush();
+
+            // then
+            for (int i = 0; i < 20; i++) {
+                assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), sut.locate(i))))
+                    .isEqualTo("Record %02d".formatted(i));
+            }
+        }
+    }
+
+    @Test
+    void locating_record_not_written_yet_fails() throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        try (Journal sut = Journal.open(journalPath, false, JournalOptions.defaultOptions().indexInterval(4))) {
+            sut.writeAll(batch(0, 5));
+            sut.flush();
+
+            // when
+            Exception exception = catchException(() -> sut.locate(5));
+
+            // then
+            assertThat(exception)
+                .isInstanceOf(JournalException.class)
+                .hasMessageContaining("not written yet");
+        }
+    }
+
+    @Test
+    void locating_records_requires_index() throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        try (Journal sut = Journal.open(journalPath, false)) {
+            sut.write(wrapInJournalByteBuffer("Hello World"));
+
+            // when
+            Exception exception = catchException(() -> sut.locate(0));
+
+            // then
+            assertThat(exception)
+                .isInstanceOf(JournalException.class)
+                .hasMessageContaining("requires a record index");
+        }
+    }
+
+    private static JournalByteBuffer[] batch(int from, int size) {
+        return IntStream.range(from, from + size)
+            .mapToObj(i -> wrapInJournalByteBuffer("Record %02d".formatted(i)))
+            .toArray(JournalByteBuffer[]::new);
+    }
+}
@@ -0,0 +1,140 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import pl.wsztajerowski.journal.records.CompressionType;
+import pl.wsztajerowski.journal.records.RecordFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static java.nio.file.Files.createTempFile;
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class RecordLengthLocationTest {
+    private Path dataFilePath;
+    private Journal sut;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataFilePath = createTempFile("journal", ".dat");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (sut != null) {
+            sut.close();
+        }
+    }
+
+    static Stream<JournalOptions> options() {
+        return Stream.of(
+            JournalOptions.defaultOptions(),
+            JournalOptions.defaultOptions().recordFormat(RecordFormat.V2),
+            JournalOptions.defaultOptions().writeMode(WriteMode.GROUP_COMMIT),
+            JournalOptions.defaultOptions().writeMode(WriteMode.MAPPED),
+            JournalOptions.defaultOptions().readMode(ReadMode.MAPPED),
+            JournalOptions.defaultOptions().compression(CompressionType.DEFLATE)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("options")
+    void written_location_carries_record_length(JournalOptions options) {
+        // given
+        sut = Journal.open(dataFilePath, false, options);
+        String content = "7".repeat(10_000);
+
+        // when
+        var location = sut.write(wrapInJournalByteBuffer(content));
+
+        // then
+        assertThat(location.length())
+            .isEqualTo(options.recordFormat().headerLength() + content.length());
+        assertThat(readAsUtf8(sut.read(createJournalByteBuffer(10_000), location)))
+            .isEqualTo(content);
+    }
+
+    @ParameterizedTest
+    @MethodSource("options")
+    void location_of_offset_only_is_read_like_written_one(JournalOptions options) {
+        // given
+        sut = Journal.open(dataFilePath, false, options);
+        sut.write(wrapInJournalByteBuffer("First"));
+        var written = sut.write(wrapInJournalByteBuffer("Second"));
+        var offsetOnly = new Location(written.offset());
+
+        // when
+        var content = readAsUtf8(sut.read(createJournalByteBuffer(64), offsetOnly));
+
+        // then
+        assertThat(content)
+            .isEqualTo("Second");
+        assertThat(offsetOnly)
+            .isEqualTo(written)
+            .hasSameHashCodeAs(written);
+    }
+
+    @ParameterizedTest
+    @MethodSource("options")
+    void async_written_location_carries_record_length(JournalOptions options) {
+        // given
+        sut = Journal.open(dataFilePath, false, options);
+
+        // when
+        var location = sut.writeAsync(wrapInJournalByteBuffer("Hello World")).join();
+
+        // then
+        assertThat(location.length())
+            .isEqualTo(options.recordFormat().headerLength() + "Hello World".length());
+        assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), location)))
+            .isEqualTo("Hello World");
+    }
+
+    @Test
+    void gathered_location_carries_length_of_all_fragments() {
+        // given
+        sut = Journal.open(dataFilePath, false);
+
+        // when
+        var location = sut.write(
+            ByteBuffer.wrap("[header]".getBytes(StandardCharsets.UTF_8)),
+            ByteBuffer.wrap("Hello World".getBytes(StandardCharsets.UTF_8)));
+
+        // then
+        assertThat(location.length())
+            .isEqualTo(RecordFormat.V1.headerLength() + "[header]Hello World".length());
+        assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), location)))
+            .isEqualTo("[header]Hello World");
+    }
+
+    @Test
+    void scanned_locations_carry_record_length() {
+        // given
+        sut = Journal.open(dataFilePath, false);
+        var written = sut.write(wrapInJournalByteBuffer("Hello World"));
+        sut.flush();
+
+        // when
+        Location scanned;
+        try (var cursor = sut.scan(written)) {
+            scanned = cursor.next().location();
+        }
+
+        // then
+        assertThat(scanned.length())
+            .isEqualTo(written.length());
+    }
+}
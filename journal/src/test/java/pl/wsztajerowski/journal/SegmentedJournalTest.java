@@ -0,0 +1,226 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import pl.wsztajerowski.journal.records.RecordHeader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.Files.createTempDirectory;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchException;
+import static pl.wsztajerowski.journal.FilesTestUtils.appendToFile;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class SegmentedJournalTest {
+    private static final long SEGMENT_SIZE = 1024;
+    private Path directory;
+    private SegmentedJournal sut;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = createTempDirectory("segmented-journal");
+        sut = openJournal();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        sut.close();
+    }
+
+    @Test
+    void full_segment_rolls_over_to_next_segment_file() throws IOException {
+        // given
+        List<Location> locations = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            locations.add(sut.write(wrapInJournalByteBuffer("Record %03d".formatted(i))));
+        }
+
+        // then
+        assertThat(locations)
+            .extracting(Location::segmentId)
+            .isSorted()
+            .contains(0, 1, 2);
+        assertThat(locations)
+            .allMatch(location -> location.offset() < SEGMENT_SIZE);
+        for (int i = 0; i < locations.size(); i++) {
+            assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), locations.get(i))))
+                .isEqualTo("Record %03d".formatted(i));
+        }
+    }
+
+    @Test
+    void concurrent_writers_read_their_writes_across_segments() throws InterruptedException {
+        // given
+        Map<Location, String> writes = new ConcurrentHashMap<>();
+        int producers = 4;
+        int recordsPerProducer = 200;
+
+        // when
+        try (ExecutorService executor = newFixedThreadPool(producers)) {
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                executor.submit(() -> {
+                    for (int i = 0; i < recordsPerProducer; i++) {
+                        String content = "Producer %d record %03d".formatted(producer, i);
+                        writes.put(sut.write(wrapInJournalByteBuffer(content)), content);
+                    }
+                });
+            }
+            executor.shutdown();
+            assertThat(executor.awaitTermination(30, TimeUnit.SECONDS))
+                .isTrue();
+        }
+
+        // then
+        assertThat(writes)
+            .hasSize(producers * recordsPerProducer);
+        writes.forEach((location, content) ->
+            assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), location)))
+                .isEqualTo(content));
+    }
+
+    @Test
+    void reopened_journal_reads_records_from_all_segments() throws IOException {
+        // given
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            locations.add(sut.write(wrapInJournalByteBuffer("Record %03d".formatted(i))));
+        }
+        sut.close();
+
+        // when
+        sut = openJournal();
+        Location appended = sut.write(wrapInJournalByteBuffer("Appended"));
+
+        // then
+        assertThat(appended.segmentId())
+            .isGreaterThanOrEqualTo(locations.getLast().segmentId());
+        assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), locations.getFirst())))
+            .isEqualTo("Record 000");
+        assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), appended)))
+            .isEqualTo("Appended");
+    }
+
+    @Test
+    void torn_tail_of_segment_written_before_active_one_is_cut_off_on_open() throws IOException {
+        // given
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            locations.add(sut.write(wrapInJournalByteBuffer("Record %03d".formatted(i))));
+        }
+        sut.close();
+        Location lastInSealed = locations.stream()
+            .filter(location -> location.segmentId() == locations.getLast().segmentId() - 1)
+            .toList()
+            .getLast();
+        Path sealedSegment = directory.resolve("%010d.journal".formatted(lastInSealed.segmentId()));
+        long endOfRecords = Files.size(sealedSegment);
+        // header of a record whose content never reached the file
+        appendToFile(sealedSegment, RecordHeader.RECORD_PREFIX);
+        appendToFile(sealedSegment, 100);
+        appendToFile(sealedSegment, "torn");
+
+        // when
+        sut = openJournal();
+
+        // then
+        assertThat(Files.size(sealedSegment))
+            .isEqualTo(endOfRecords);
+        assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), lastInSealed)))
+            .isEqualTo("Record %03d".formatted(locations.indexOf(lastInSealed)));
+    }
+
+    @Test
+    void deleted_segments_are_removed_from_directory() throws IOException {
+        // given
+        Location last = null;
+        for (int i = 0; i < 100; i++) {
+            last = sut.write(wrapInJournalByteBuffer("Record %03d".formatted(i)));
+        }
+        sut.flush();
+
+        // when
+        sut.deleteSegmentsBefore(last);
+
+        // then
+        Exception exception = catchException(() -> sut.read(createJournalByteBuffer(64), new Location(8, 0)));
+        assertThat(exception)
+            .isInstanceOf(JournalException.class)
+            .hasMessageContaining("Segment 0 does not exist");
+        assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), last)))
+            .isEqualTo("Record 099");
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.map(path -> path.getFileName().toString()))
+                .doesNotContain("0000000000.journal");
+        }
+    }
+
+    @Test
+    void reads_racing_segment_deletion_fail_only_for_deleted_segment() throws InterruptedException {
+        // given
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            locations.add(sut.write(wrapInJournalByteBuffer("Record %03d".formatted(i))));
+        }
+        sut.flush();
+        List<Location> firstSegment = locations.stream()
+            .filter(location -> location.segmentId() == 0)
+            .toList();
+        List<Exception> failures = new CopyOnWriteArrayList<>();
+        CountDownLatch readersStarted = new CountDownLatch(4);
+
+        // when
+        try (ExecutorService executor = newFixedThreadPool(4)) {
+            for (int r = 0; r < 4; r++) {
+                executor.submit(() -> {
+                    readersStarted.countDown();
+                    for (int i = 0; i < 10_000; i++) {
+                        try {
+                            sut.read(createJournalByteBuffer(64), firstSegment.get(i % firstSegment.size()));
+                        } catch (Exception e) {
+                            failures.add(e);
+                            return;
+                        }
+                    }
+                });
+            }
+            readersStarted.await();
+            sut.deleteSegmentsBefore(locations.getLast());
+            executor.shutdown();
+            assertThat(executor.awaitTermination(30, TimeUnit.SECONDS))
+                .isTrue();
+        }
+
+        // then
+        assertThat(failures)
+            .allSatisfy(failure -> assertThat(failure)
+                .isExactlyInstanceOf(JournalException.class)
+                .hasMessageContaining("Segment 0"));
+    }
+
+    private SegmentedJournal openJournal() {
+        return SegmentedJournal.open(directory, JournalOptions.defaultOptions()
+            .segmentSize(SEGMENT_SIZE));
+    }
+}
@@ -0,0 +1,189 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import pl.wsztajerowski.journal.records.CompressionType;
+import pl.wsztajerowski.journal.records.InvalidRecordChecksumException;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+import pl.wsztajerowski.journal.records.Record;
+import pl.wsztajerowski.journal.records.RecordFormat;
+import pl.wsztajerowski.journal.records.RecordHeader;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.readAllBytes;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchException;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.RecordHeader.recordHeaderLength;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class SequencedRecordsTest {
+
+    static Stream<JournalOptions> options() {
+        return Stream.of(
+            // without staging, the default, gathered fragments reach the writer as separate buffers
+            JournalOptions.defaultOptions(),
+            JournalOptions.defaultOptions().stagingArenaSize(1 << 16),
+            JournalOptions.defaultOptions().preallocationSize(65_536),
+            JournalOptions.defaultOptions().compression(CompressionType.DEFLATE),
+            JournalOptions.defaultOptions().writeMode(WriteMode.GROUP_COMMIT)
+        ).map(options -> options.recordFormat(RecordFormat.V2));
+    }
+
+    @ParameterizedTest
+    @MethodSource("options")
+    void writer_numbers_records_densely_in_file_order(JournalOptions options) throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        long before = System.currentTimeMillis();
+        List<Location> locations = new ArrayList<>();
+
+        try (Journal sut = Journal.open(journalPath, false, options)) {
+            // when
+            locations.add(sut.write(wrapInJournalByteBuffer("Single")));
+            locations.add(sut.write(ByteBuffer.wrap("Gathered ".getBytes(UTF_8)), ByteBuffer.wrap("record".getBytes(UTF_8))));
+            for (long offset : sut.writeAll(batch(10))) {
+                locations.add(new Location(offset));
+            }
+            locations.add(sut.write(wrapInJournalByteBuffer("Last")));
+            sut.flush();
+
+            // then
+            for (int i = 0; i < locations.size(); i++) {
+                RecordHeader header = sut.readRecord(createJournalByteBuffer(64), locations.get(i)).recordHeader();
+                assertThat(header.sequence())
+                    .isEqualTo(i);
+                assertThat(header.timestamp())
+                    .isBetween(before, System.currentTimeMillis());
+            }
+            assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), locations.get(1))))
+                .isEqualTo("Gathered record");
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("options")
+    void reopened_journal_continues_sequence(JournalOptions options) throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        try (Journal journal = Journal.open(journalPath, false, options)) {
+            journal.writeAll(batch(5));
+        }
+
+        // when
+        try (Journal sut = Journal.open(journalPath, false, options)) {
+            var location = sut.write(wrapInJournalByteBuffer("Next"));
+            Record record = sut.readRecord(createJournalByteBuffer(64), location);
+
+            // then
+            assertThat(record.recordHeader().sequence())
+                .isEqualTo(5);
+            assertThat(readAsUtf8(record.buffer()))
+                .isEqualTo("Next");
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("writeModes")
+    void corrupted_sequence_fails_checksum_verification(WriteMode writeMode) throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        JournalOptions options = JournalOptions.defaultOptions()
+            .recordFormat(RecordFormat.V2)
+            .writeMode(writeMode);
+        Location location;
+        try (Journal journal = Journal.open(journalPath, false, options)) {
+            location = journal.write(wrapInJournalByteBuffer("Hello World"));
+            // a corrupted last record would be cut off on open as a torn tail
+            journal.write(wrapInJournalByteBuffer("Next"));
+        }
+        try (RandomAccessFile file = new RandomAccessFile(journalPath.toFile(), "rw")) {
+            // the low byte of the sequence number
+            file.seek(location.offset() + recordHeaderLength() + Long.BYTES - 1);
+            file.write(7);
+        }
+
+        try (Journal sut = Journal.open(journalPath, false, options.verifyChecksums(false))) {
+            // when
+            Exception exception = catchException(() -> sut.verify(location));
+
+            // then
+            assertThat(exception)
+                .isInstanceOf(InvalidRecordChecksumException.class);
+        }
+    }
+
+    static Stream<WriteMode> writeModes() {
+        return Stream.of(WriteMode.RING_BUFFER, WriteMode.GROUP_COMMIT);
+    }
+
+    @Test
+    void v2_records_are_recorded_in_v5_header() throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+
+        // when
+        Journal.open(journalPath, false, JournalOptions.defaultOptions().recordFormat(RecordFormat.V2))
+            .close();
+
+        // then
+        assertThat(readAllBytes(journalPath))
+            .hasSize(28)
+            .asHexString()
+            .isEqualTo("CAFEBABE0FF1CE0500000001" + "000000000000001C" + "0000000000000000");
+    }
+
+    @Test
+    void v1_records_have_no_sequence() throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        try (Journal sut = Journal.open(journalPath, false)) {
+            var location = sut.write(wrapInJournalByteBuffer("Hello World"));
+
+            // when
+            RecordHeader header = sut.readRecord(createJournalByteBuffer(64), location).recordHeader();
+
+            // then
+            assertThat(header.sequence())
+                .isEqualTo(RecordHeader.NO_SEQUENCE);
+        }
+    }
+
+    @Test
+    void v2_records_require_writer_thread() throws IOException {
+        // given
+        Path journalPath = createTempFile("journal", ".dat");
+        JournalOptions options = JournalOptions.defaultOptions()
+            .recordFormat(RecordFormat.V2)
+            .writeMode(WriteMode.MAPPED);
+
+        // when
+        Exception exception = catchException(() -> Journal.open(journalPath, false, options));
+
+        // then
+        assertThat(exception)
+            .isInstanceOf(JournalException.class)
+            .hasMessageContaining("V2 records");
+    }
+
+    private static JournalByteBuffer[] batch(int size) {
+        return IntStream.range(0, size)
+            .mapToObj(i -> wrapInJournalByteBuffer("Record %02d".formatted(i)))
+            .toArray(JournalByteBuffer[]::new);
+    }
+}
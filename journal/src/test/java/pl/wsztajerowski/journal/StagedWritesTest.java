@@ -0,0 +1,95 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import pl.wsztajerowski.journal.records.JournalByteBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createTempFile;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class StagedWritesTest {
+
+    @Test
+    void buffer_reused_right_after_write_does_not_change_pending_records() throws IOException {
+        // given
+        Path dataFilePath = createTempFile("journal", ".dat");
+        JournalByteBuffer buffer = createJournalByteBuffer(64);
+        List<Location> locations = new ArrayList<>();
+        JournalOptions options = JournalOptions.defaultOptions()
+            .stagingArenaSize(1 << 16);
+
+        try (Journal sut = Journal.open(dataFilePath, false, options)) {
+            // when
+            for (int i = 0; i < 1_000; i++) {
+                locations.add(sut.write(fill(buffer, "Record %04d".formatted(i))));
+            }
+
+            // then
+            for (int i = 0; i < locations.size(); i++) {
+                assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), locations.get(i))))
+                    .isEqualTo("Record %04d".formatted(i));
+            }
+        }
+    }
+
+    @Test
+    void records_wrapping_around_small_staging_arena_are_written_intact() throws Exception {
+        // given
+        Path dataFilePath = createTempFile("journal", ".dat");
+        JournalOptions options = JournalOptions.defaultOptions()
+            .stagingArenaSize(100);
+        Map<Location, String> writes = new ConcurrentHashMap<>();
+        int producers = 4;
+        int recordsPerProducer = 250;
+
+        try (Journal sut = Journal.open(dataFilePath, false, options)) {
+            // when
+            try (ExecutorService executor = newFixedThreadPool(producers)) {
+                for (int p = 0; p < producers; p++) {
+                    int producer = p;
+                    executor.submit(() -> {
+                        JournalByteBuffer buffer = createJournalByteBuffer(64);
+                        for (int i = 0; i < recordsPerProducer; i++) {
+                            String content = "Producer %d record %03d".formatted(producer, i);
+                            writes.put(sut.write(fill(buffer, content)), content);
+                        }
+                    });
+                }
+                executor.shutdown();
+                assertThat(executor.awaitTermination(30, TimeUnit.SECONDS))
+                    .isTrue();
+            }
+
+            // then
+            assertThat(writes)
+                .hasSize(producers * recordsPerProducer);
+            writes.forEach((location, content) ->
+                assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), location)))
+                    .isEqualTo(content));
+        }
+    }
+
+    private static JournalByteBuffer fill(JournalByteBuffer buffer, String content) {
+        ByteBuffer contentBuffer = buffer.clear()
+            .getContentBuffer();
+        contentBuffer.put(content.getBytes(UTF_8));
+        contentBuffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,231 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import pl.wsztajerowski.journal.records.CompressionType;
+import pl.wsztajerowski.journal.records.Record;
+import pl.wsztajerowski.journal.records.RecordFormat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.Files.createTempFile;
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class SubscriptionTest {
+    private Path dataFilePath;
+    private Journal sut;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataFilePath = createTempFile("journal", ".dat");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (sut != null) {
+            sut.close();
+        }
+    }
+
+    static Stream<JournalOptions> options() {
+        return Stream.of(
+            JournalOptions.defaultOptions(),
+            JournalOptions.defaultOptions().stagingArenaSize(1 << 16),
+            JournalOptions.defaultOptions().recordFormat(RecordFormat.V2),
+            JournalOptions.defaultOptions().compression(CompressionType.DEFLATE),
+            JournalOptions.defaultOptions().writeMode(WriteMode.GROUP_COMMIT),
+            JournalOptions.defaultOptions().writeMode(WriteMode.MAPPED)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("options")
+    void records_are_delivered_in_write_order(JournalOptions options) throws InterruptedException {
+        // given
+        sut = Journal.open(dataFilePath, false, options);
+        Location first = sut.write(wrapInJournalByteBuffer("Record 0"));
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        sut.subscribe(first).subscribe(subscriber);
+
+        // when
+        subscriber.request(Long.MAX_VALUE);
+        for (int i = 1; i < 100; i++) {
+            sut.write(wrapInJournalByteBuffer("Record " + i));
+        }
+
+        // then
+        List<String> contents = subscriber.take(100);
+        for (int i = 0; i < contents.size(); i++) {
+            assertThat(contents.get(i))
+                .isEqualTo("Record " + i);
+        }
+    }
+
+    @Test
+    void records_are_delivered_only_on_demand() throws InterruptedException {
+        // given
+        sut = Journal.open(dataFilePath, false);
+        Location first = sut.write(wrapInJournalByteBuffer("Record 0"));
+        for (int i = 1; i < 5; i++) {
+            sut.write(wrapInJournalByteBuffer("Record " + i));
+        }
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        sut.subscribe(first).subscribe(subscriber);
+
+        // when
+        subscriber.request(2);
+        List<String> requested = subscriber.take(2);
+
+        // then
+        assertThat(requested)
+            .containsExactly("Record 0", "Record 1");
+        assertThat(subscriber.records.poll(200, TimeUnit.MILLISECONDS))
+            .isNull();
+
+        // when
+        subscriber.request(3);
+
+        // then
+        assertThat(subscriber.take(3))
+            .containsExactly("Record 2", "Record 3", "Record 4");
+    }
+
+    @Test
+    void subscription_starts_at_given_location() throws InterruptedException {
+        // given
+        sut = Journal.open(dataFilePath, false);
+        sut.write(wrapInJournalByteBuffer("Record 0"));
+        Location second = sut.write(wrapInJournalByteBuffer("Record 1"));
+        sut.write(wrapInJournalByteBuffer("Record 2"));
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+
+        // when
+        sut.subscribe(second).subscribe(subscriber);
+        subscriber.request(Long.MAX_VALUE);
+
+        // then
+        assertThat(subscriber.take(2))
+            .containsExactly("Record 1", "Record 2");
+    }
+
+    @Test
+    void subscribers_complete_when_journal_is_closed() throws IOException, InterruptedException {
+        // given
+        sut = Journal.open(dataFilePath, false);
+        Location first = sut.write(wrapInJournalByteBuffer("Record 0"));
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        sut.subscribe(first).subscribe(subscriber);
+        subscriber.request(Long.MAX_VALUE);
+        subscriber.take(1);
+
+        // when
+        sut.close();
+        sut = null;
+
+        // then
+        assertThat(subscriber.deliveryThread.isAlive())
+            .as("close returns after the delivery thread stopped")
+            .isFalse();
+        assertThat(subscriber.completed.await(5, TimeUnit.SECONDS))
+            .isTrue();
+        assertThat(subscriber.error)
+            .isNull();
+    }
+
+    @Test
+    void cancelled_subscription_waiting_on_idle_journal_stops_its_thread() throws InterruptedException {
+        // given
+        sut = Journal.open(dataFilePath, false);
+        Location first = sut.write(wrapInJournalByteBuffer("Record 0"));
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        sut.subscribe(first).subscribe(subscriber);
+        subscriber.request(Long.MAX_VALUE);
+        subscriber.take(1);
+        Thread.sleep(100);
+
+        // when
+        subscriber.subscription.cancel();
+
+        // then
+        subscriber.deliveryThread.join(5_000);
+        assertThat(subscriber.deliveryThread.isAlive())
+            .isFalse();
+    }
+
+    @Test
+    void non_positive_request_fails_subscription() throws InterruptedException {
+        // given
+        sut = Journal.open(dataFilePath, false);
+        Location first = sut.write(wrapInJournalByteBuffer("Record 0"));
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        sut.subscribe(first).subscribe(subscriber);
+
+        // when
+        subscriber.request(0);
+
+        // then
+        assertThat(subscriber.completed.await(5, TimeUnit.SECONDS))
+            .isTrue();
+        assertThat(subscriber.error)
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static class CollectingSubscriber implements Flow.Subscriber<Record> {
+        private final BlockingQueue<String> records = new LinkedBlockingQueue<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable error;
+        private volatile Thread deliveryThread;
+
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        public void onNext(Record record) {
+            deliveryThread = Thread.currentThread();
+            records.add(readAsUtf8(record.buffer()));
+        }
+
+        public void onError(Throwable throwable) {
+            error = throwable;
+            completed.countDown();
+        }
+
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        void request(long n) {
+            subscription.request(n);
+        }
+
+        List<String> take(int count) throws InterruptedException {
+            List<String> taken = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String record = records.poll(5, TimeUnit.SECONDS);
+                assertThat(record)
+                    .as("record %d", i)
+                    .isNotNull();
+                taken.add(record);
+            }
+            return taken;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package pl.wsztajerowski.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.Files.createTempFile;
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class WaitStrategiesTest {
+    private Journal sut;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (sut != null) {
+            sut.close();
+        }
+    }
+
+    static Stream<WaitStrategy> waitStrategies() {
+        return Stream.of(
+            WaitStrategy.busySpin(),
+            WaitStrategy.yielding(),
+            WaitStrategy.backoff(),
+            // long park proves that producers wake the writer up
+            WaitStrategy.blocking(Duration.ofMinutes(1))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("waitStrategies")
+    void write_after_idle_period_is_acknowledged(WaitStrategy waitStrategy) throws Exception {
+        // given
+        sut = openJournal(waitStrategy);
+        Thread.sleep(50);
+
+        // when
+        var location = sut.writeAsync(wrapInJournalByteBuffer("Hello World"))
+            .get(1, TimeUnit.SECONDS);
+
+        // then
+        assertThat(readAsUtf8(sut.read(createJournalByteBuffer(64), location)))
+            .isEqualTo("Hello World");
+    }
+
+    @ParameterizedTest
+    @MethodSource("waitStrategies")
+    void flush_and_close_wake_up_idle_writer(WaitStrategy waitStrategy) throws Exception {
+        // given
+        sut = openJournal(waitStrategy);
+        Thread.sleep(50);
+
+        // when
+        long start = System.nanoTime();
+        sut.flush();
+        sut.close();
+        sut = null;
+
+        // then
+        assertThat(Duration.ofNanos(System.nanoTime() - start))
+            .isLessThan(Duration.ofSeconds(1));
+    }
+
+    private Journal openJournal(WaitStrategy waitStrategy) throws IOException {
+        Path dataFilePath = createTempFile("journal", ".dat");
+        return Journal.open(dataFilePath, false, JournalOptions.defaultOptions()
+            .waitStrategy(waitStrategy));
+    }
+}
@@ -0,0 +1,47 @@
+package pl.wsztajerowski.journal.records;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.wsztajerowski.journal.records.ChecksumCalculator.computeChecksum;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class ChecksumTypeTest {
+
+    @ParameterizedTest
+    @EnumSource(ChecksumType.class)
+    void checksum_of_fragments_equals_checksum_of_whole_buffer(ChecksumType checksumType) {
+        // given
+        byte[] content = "Fragments of a record split into more than one buffer".getBytes(UTF_8);
+        ByteBuffer whole = ByteBuffer.allocateDirect(content.length).put(content).flip();
+        ByteBuffer[] fragments = {
+            ByteBuffer.wrap(content, 0, 5).slice(),
+            ByteBuffer.wrap(content, 5, 20).slice(),
+            ByteBuffer.wrap(content, 25, content.length - 25).slice()
+        };
+
+        // when
+        int fragmentsChecksum = computeChecksum(checksumType, fragments);
+
+        // then
+        assertThat(fragmentsChecksum)
+            .isEqualTo(computeChecksum(checksumType, whole));
+        assertThat(whole.remaining())
+            .isEqualTo(content.length);
+    }
+
+    @Test
+    void ids_round_trip() {
+        for (ChecksumType checksumType : ChecksumType.values()) {
+            assertThat(ChecksumType.fromId(checksumType.id()))
+                .isEqualTo(checksumType);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package pl.wsztajerowski.journal.records;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import pl.wsztajerowski.journal.Journal;
+import pl.wsztajerowski.journal.JournalOptions;
+
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createTempFile;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class JournalByteBufferPoolTest {
+
+    static Stream<JournalByteBufferFactory> factories() {
+        return Stream.of(
+            JournalByteBufferFactory.heap(),
+            JournalByteBufferFactory.direct(),
+            JournalByteBufferFactory.memorySegment(Arena.ofAuto())
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("factories")
+    void records_written_from_pooled_buffers_are_read_back(JournalByteBufferFactory factory) throws Exception {
+        // given
+        Path dataFilePath = createTempFile("journal", ".dat");
+        var sut = JournalByteBufferPool.create(factory);
+
+        // staging lets the buffer go back to the pool as soon as write returns
+        JournalOptions options = JournalOptions.defaultOptions()
+            .stagingArenaSize(1 << 16);
+
+        try (Journal journal = Journal.open(dataFilePath, false, options)) {
+            // when
+            JournalByteBuffer writeBuffer = sut.acquire(11);
+            writeBuffer.getContentBuffer()
+                .put("Hello World".getBytes(UTF_8))
+                .flip();
+            var location = journal.write(writeBuffer);
+            sut.release(writeBuffer);
+            JournalByteBuffer readBuffer = sut.acquire(11);
+            ByteBuffer content = journal.read(readBuffer, location);
+
+            // then
+            byte[] bytes = new byte[content.remaining()];
+            content.get(bytes);
+            assertThat(new String(bytes, UTF_8))
+                .isEqualTo("Hello World");
+            assertThat(readBuffer)
+                .isSameAs(writeBuffer);
+        }
+    }
+
+    @Test
+    void acquire_rounds_capacity_up_to_size_class_and_reuses_released_buffer() {
+        // given
+        var sut = JournalByteBufferPool.create(JournalByteBufferFactory.heap());
+        JournalByteBuffer released = sut.acquire(100);
+        released.getContentBuffer()
+            .position(10)
+            .limit(20);
+
+        // when
+        sut.release(released);
+        JournalByteBuffer acquired = sut.acquire(128);
+
+        // then
+        assertThat(acquired)
+            .isSameAs(released);
+        assertThat(acquired.getContentBuffer().capacity())
+            .isEqualTo(128);
+        assertThat(acquired.getContentBuffer().position())
+            .isZero();
+        assertThat(acquired.getContentBuffer().remaining())
+            .isEqualTo(128);
+    }
+
+    @Test
+    void buffers_outside_size_classes_are_not_pooled() {
+        // given
+        var sut = JournalByteBufferPool.create(JournalByteBufferFactory.heap());
+        JournalByteBuffer oversized = sut.acquire(2 << 20);
+        JournalByteBuffer unaligned = JournalByteBufferFactory.heap().allocate(100);
+
+        // when
+        sut.release(oversized);
+        sut.release(unaligned);
+
+        // then
+        assertThat(sut.acquire(2 << 20))
+            .isNotSameAs(oversized);
+        assertThat(sut.acquire(100))
+            .isNotSameAs(unaligned);
+    }
+}
@@ -0,0 +1,107 @@
+package pl.wsztajerowski.journal.records;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import pl.wsztajerowski.journal.Location;
+
+import java.nio.ByteBuffer;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.wsztajerowski.journal.FilesTestUtils.readAsUtf8;
+import static pl.wsztajerowski.journal.FilesTestUtils.wrapInJournalByteBuffer;
+import static pl.wsztajerowski.journal.records.ByteBufferFactory.newJournalBuffer;
+import static pl.wsztajerowski.journal.records.JournalByteBufferFactory.createJournalByteBuffer;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class PendingRecordsTest {
+    private static final LongSupplier NOTHING_WRITTEN = () -> 0;
+
+    @Test
+    void pending_record_is_copied_into_destination() {
+        // given
+        ByteBuffer pending = pendingRecord("Hello World");
+
+        // when
+        Record record = PendingRecords.copy(pending, NOTHING_WRITTEN, createJournalByteBuffer(64), new Location(8), ChecksumType.CRC32C, RecordFormat.V1);
+
+        // then
+        assertThat(readAsUtf8(record.buffer()))
+            .isEqualTo("Hello World");
+        assertThat(record.location().length())
+            .isEqualTo(RecordFormat.V1.headerLength() + "Hello World".length());
+    }
+
+    @Test
+    void pending_record_being_overwritten_is_not_copied() {
+        // given
+        ByteBuffer pending = pendingRecord("Hello World");
+        pending.put(pending.limit() - 1, (byte) 'X');
+
+        // when
+        Record record = PendingRecords.copy(pending, NOTHING_WRITTEN, createJournalByteBuffer(64), new Location(8), ChecksumType.CRC32C, RecordFormat.V1);
+
+        // then
+        assertThat(record)
+            .isNull();
+    }
+
+    @Test
+    void pending_record_written_meanwhile_is_not_copied_even_without_checksum() {
+        // given
+        ByteBuffer pending = wrapInJournalByteBuffer("Hello World").getWritableBuffer(ChecksumType.NONE, RecordFormat.V1);
+        LongSupplier writtenPosition = () -> 8 + pending.remaining();
+
+        // when
+        Record record = PendingRecords.copy(pending, writtenPosition, createJournalByteBuffer(64), new Location(8), ChecksumType.NONE, RecordFormat.V1);
+
+        // then
+        assertThat(record)
+            .isNull();
+    }
+
+    @Test
+    void pending_record_partly_written_is_not_copied() {
+        // given
+        ByteBuffer pending = pendingRecord("Hello World");
+        pending.position(pending.position() + 4);
+
+        // when
+        Record record = PendingRecords.copy(pending, NOTHING_WRITTEN, createJournalByteBuffer(64), new Location(8), ChecksumType.CRC32C, RecordFormat.V1);
+
+        // then
+        assertThat(record)
+            .isNull();
+    }
+
+    @Test
+    void pending_record_is_not_copied_into_content_not_starting_at_zero() {
+        // given
+        ByteBuffer pending = pendingRecord("Hello World");
+
+        // when
+        Record record = PendingRecords.copy(pending, NOTHING_WRITTEN, newJournalBuffer(16, 64, 64), new Location(8), ChecksumType.CRC32C, RecordFormat.V1);
+
+        // then
+        assertThat(record)
+            .isNull();
+    }
+
+    @Test
+    void pending_record_is_not_copied_into_too_small_destination() {
+        // given
+        ByteBuffer pending = pendingRecord("Hello World");
+
+        // when
+        Record record = PendingRecords.copy(pending, NOTHING_WRITTEN, createJournalByteBuffer(4), new Location(8), ChecksumType.CRC32C, RecordFormat.V1);
+
+        // then
+        assertThat(record)
+            .isNull();
+    }
+
+    private static ByteBuffer pendingRecord(String content) {
+        return wrapInJournalByteBuffer(content).getWritableBuffer(ChecksumType.CRC32C, RecordFormat.V1);
+    }
+}
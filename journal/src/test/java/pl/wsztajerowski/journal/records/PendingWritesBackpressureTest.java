@@ -0,0 +1,139 @@
+package pl.wsztajerowski.journal.records;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import pl.wsztajerowski.journal.BackpressurePolicy;
+import pl.wsztajerowski.journal.DurabilityPolicy;
+import pl.wsztajerowski.journal.Location;
+import pl.wsztajerowski.journal.PendingWritesLimitExceededException;
+import pl.wsztajerowski.journal.WaitStrategy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.Files.createTempFile;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchException;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class PendingWritesBackpressureTest {
+    private static final int RECORD_SIZE = 100;
+    private static final long MAX_PENDING_BYTES = 1_000;
+    private RecordWriteChannel sut;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        sut.close();
+    }
+
+    @Test
+    void stalled_writer_keeps_pending_bytes_within_limit() throws Exception {
+        // given
+        sut = openChannel(BackpressurePolicy.block(MAX_PENDING_BYTES, 1_000));
+        int producers = 4;
+        int recordsPerProducer = 100;
+        AtomicLong maxPendingBytes = new AtomicLong();
+        List<Future<?>> producerTasks = new ArrayList<>();
+
+        try (ExecutorService executor = newFixedThreadPool(producers)) {
+            for (int p = 0; p < producers; p++) {
+                producerTasks.add(executor.submit(() -> {
+                    for (int i = 0; i < recordsPerProducer; i++) {
+                        sut.writeAsync(ByteBuffer.allocate(RECORD_SIZE));
+                        maxPendingBytes.accumulateAndGet(sut.pendingBytes(), Math::max);
+                    }
+                }));
+            }
+            Thread.sleep(200);
+            boolean producersBlocked = producerTasks.stream().noneMatch(Future::isDone);
+
+            // when
+            CompletableFuture.runAsync(sut);
+            for (Future<?> producerTask : producerTasks) {
+                producerTask.get(10, TimeUnit.SECONDS);
+            }
+            sut.flush().get(10, TimeUnit.SECONDS);
+
+            // then
+            assertThat(producersBlocked)
+                .isTrue();
+            assertThat(maxPendingBytes.get())
+                .isLessThanOrEqualTo(MAX_PENDING_BYTES);
+            assertThat(sut.pendingBytes())
+                .isZero();
+            assertThat(sut.writtenPosition())
+                .isEqualTo((long) producers * recordsPerProducer * RECORD_SIZE);
+        }
+    }
+
+    @Test
+    void reject_policy_fails_write_over_limit() {
+        // given
+        sut = openChannel(BackpressurePolicy.reject(MAX_PENDING_BYTES, 1_000));
+        for (int i = 0; i < MAX_PENDING_BYTES / RECORD_SIZE; i++) {
+            sut.writeAsync(ByteBuffer.allocate(RECORD_SIZE));
+        }
+
+        // when
+        Exception exception = catchException(() -> sut.writeAsync(ByteBuffer.allocate(RECORD_SIZE)));
+
+        // then
+        assertThat(exception)
+            .isInstanceOf(PendingWritesLimitExceededException.class);
+        assertThat(sut.pendingBytes())
+            .isEqualTo(MAX_PENDING_BYTES);
+    }
+
+    @Test
+    void timeout_policy_fails_write_when_records_limit_does_not_drain_in_time() {
+        // given
+        sut = openChannel(BackpressurePolicy.timeout(Long.MAX_VALUE, 2, Duration.ofMillis(50)));
+        sut.writeAsync(ByteBuffer.allocate(RECORD_SIZE));
+        sut.writeAsync(ByteBuffer.allocate(RECORD_SIZE));
+
+        // when
+        Exception exception = catchException(() -> sut.writeAsync(ByteBuffer.allocate(RECORD_SIZE)));
+
+        // then
+        assertThat(exception)
+            .isInstanceOf(PendingWritesLimitExceededException.class);
+    }
+
+    @Test
+    void record_larger_than_limit_is_accepted_when_nothing_is_pending() throws Exception {
+        // given
+        sut = openChannel(BackpressurePolicy.reject(MAX_PENDING_BYTES, 1_000));
+
+        // when
+        CompletableFuture<Location> future = sut.writeAsync(ByteBuffer.allocate((int) MAX_PENDING_BYTES * 2));
+
+        // then
+        assertThat(sut.pendingBytes())
+            .isEqualTo(MAX_PENDING_BYTES * 2);
+        CompletableFuture.runAsync(sut);
+        assertThat(future.get(10, TimeUnit.SECONDS))
+            .isEqualTo(new Location(0));
+    }
+
+    // the writer is not started, so nothing drains until a test runs it
+    private static RecordWriteChannel openChannel(BackpressurePolicy backpressurePolicy) {
+        try {
+            Path dataFilePath = createTempFile("journal", ".dat");
+            return RecordWriteChannel.open(dataFilePath, new RecordRingBuffer(1024, 0), DurabilityPolicy.none(), 0, WaitStrategy.backoff(), backpressurePolicy);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package pl.wsztajerowski.journal.records;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import pl.wsztajerowski.journal.BackpressurePolicy;
+import pl.wsztajerowski.journal.PendingWritesLimitExceededException;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class PendingWritesLimiterTest {
+
+    @Test
+    void rejected_producers_do_not_make_others_exceed_limits() throws InterruptedException {
+        // given
+        PendingWritesLimiter sut = new PendingWritesLimiter(BackpressurePolicy.reject(200, 10));
+        sut.acquire(100);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread rejectedProducer = Thread.ofPlatform().start(() -> {
+            while (running.get()) {
+                try {
+                    sut.acquire(200);
+                } catch (PendingWritesLimitExceededException e) {
+                    // expected - only 100 bytes are free
+                }
+            }
+        });
+        AtomicInteger wrongRejections = new AtomicInteger();
+
+        // when
+        for (int i = 0; i < 100_000; i++) {
+            try {
+                sut.acquire(100);
+                sut.release(1, 100);
+            } catch (PendingWritesLimitExceededException e) {
+                wrongRejections.incrementAndGet();
+            }
+        }
+        running.set(false);
+        rejectedProducer.join();
+
+        // then
+        assertThat(wrongRejections)
+            .hasValue(0);
+        assertThat(sut.pendingBytes())
+            .isEqualTo(100);
+        assertThat(sut.pendingRecords())
+            .isEqualTo(1);
+    }
+}
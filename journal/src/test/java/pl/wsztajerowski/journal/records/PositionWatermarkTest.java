@@ -0,0 +1,64 @@
+package pl.wsztajerowski.journal.records;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import pl.wsztajerowski.journal.JournalException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchException;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class PositionWatermarkTest {
+
+    @Test
+    void await_returns_immediately_for_covered_offset() {
+        // given
+        var sut = new PositionWatermark(100);
+
+        // when
+        sut.awaitAbove(99);
+
+        // then
+        assertThat(sut.get())
+            .isEqualTo(100L);
+    }
+
+    @Test
+    void parked_waiter_is_woken_once_its_offset_is_covered() throws Exception {
+        // given
+        var sut = new PositionWatermark(0);
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> sut.awaitAbove(10));
+
+        // when
+        sut.advance(10);
+        Exception notCovered = catchException(() -> waiter.get(100, TimeUnit.MILLISECONDS));
+        sut.advance(11);
+
+        // then
+        assertThat(notCovered)
+            .isInstanceOf(TimeoutException.class);
+        waiter.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void close_wakes_up_waiters_with_exception() {
+        // given
+        var sut = new PositionWatermark(0);
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> sut.awaitAbove(10));
+
+        // when
+        sut.close();
+
+        // then
+        Exception exception = catchException(() -> waiter.get(1, TimeUnit.SECONDS));
+        assertThat(exception)
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(JournalException.class);
+    }
+}
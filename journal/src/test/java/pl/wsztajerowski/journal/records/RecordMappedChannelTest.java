@@ -0,0 +1,73 @@
+package pl.wsztajerowski.journal.records;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import pl.wsztajerowski.journal.DurabilityPolicy;
+import pl.wsztajerowski.journal.JournalException;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.size;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchException;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class RecordMappedChannelTest {
+    private static final long REGION_SIZE = 100;
+    private RecordMappedChannel sut;
+    private Path dataFilePath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataFilePath = createTempFile("journal", ".dat");
+        sut = RecordMappedChannel.open(dataFilePath, DurabilityPolicy.none(), 0, REGION_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (sut != null) {
+            sut.close();
+        }
+    }
+
+    @Test
+    void writes_after_failed_copy_fail_fast_and_committed_records_survive_close() throws IOException {
+        // given
+        sut.write(ByteBuffer.allocate(10));
+        Exception copyFailure = catchException(() -> sut.write(releasedBuffer()));
+
+        // when
+        Exception nextWrite = catchException(() -> sut.write(ByteBuffer.allocate(10)));
+
+        // then
+        assertThat(copyFailure)
+            .isInstanceOf(IllegalStateException.class);
+        assertThat(nextWrite)
+            .isInstanceOf(JournalException.class)
+            .hasMessageContaining("Mapped write failed")
+            .hasCause(copyFailure);
+        assertThat(catchException(() -> sut.flush().join()))
+            .hasRootCause(copyFailure);
+        assertThat(catchException(() -> sut.awaitWritten(10)))
+            .hasMessageContaining("Journal is closed");
+        sut.close();
+        sut = null;
+        assertThat(size(dataFilePath))
+            .isEqualTo(10);
+    }
+
+    // reading from a buffer whose memory was released fails with IllegalStateException
+    private static ByteBuffer releasedBuffer() {
+        Arena arena = Arena.ofConfined();
+        ByteBuffer buffer = arena.allocate(10).asByteBuffer();
+        arena.close();
+        return buffer;
+    }
+}
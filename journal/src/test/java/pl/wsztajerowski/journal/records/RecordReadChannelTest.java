@@ -144,4 +144,91 @@ class RecordReadChannelTest {
             .contains("Test value");
     }
 
-}
\ No newline at end of file
+    @ParameterizedTest
+    @MethodSource("validReadBuffersSource")
+    void read_record_by_location_with_length_returns_expected_content(JournalByteBuffer outputBuffer) throws IOException {
+        // given
+        long offset = validJournal(dataFilePath)
+            .recordTestDataProvider()
+            .saveVariable("Test value");
+        var location = new Location(offset, 0, RecordHeader.recordHeaderLength() + "Test value".length());
+
+        // when
+        var record = sut.read(outputBuffer, location);
+
+        // then
+        assertThat(record.buffer().remaining())
+            .isEqualTo(record.recordHeader().variableSize());
+        // and
+        assertThat(readAsUtf8(record.buffer()))
+            .contains("Test value");
+    }
+
+    @Test
+    void read_record_bigger_than_page_size_by_location_with_length_return_expected_content() throws IOException {
+        // given
+        String content = "7".repeat(1_000_000);
+        long offset = validJournal(dataFilePath)
+            .recordTestDataProvider()
+            .saveVariable(content);
+        var location = new Location(offset, 0, RecordHeader.recordHeaderLength() + content.length());
+
+        // when
+        var record = sut.read(createJournalByteBuffer(1_000_000), location);
+
+        // then
+        assertThat(readAsUtf8(record.buffer()))
+            .isEqualTo(content);
+    }
+
+    @ParameterizedTest
+    @MethodSource("invalidBuffersSource")
+    void read_record_by_location_with_length_providing_buffer_without_enough_space_throws_exception(JournalByteBuffer userBuffer) throws IOException {
+        // given
+        var variableOffset = validJournal(dataFilePath)
+            .recordTestDataProvider()
+            .saveVariable("INIT Value");
+        var location = new Location(variableOffset, 0, RecordHeader.recordHeaderLength() + "INIT Value".length());
+
+        // when
+        Exception exception = catchException(() -> sut.read(userBuffer, location));
+
+        // then
+        assertThat(exception)
+            .isInstanceOf(NotEnoughSpaceInBufferException.class);
+    }
+
+    @Test
+    void read_record_by_location_with_wrong_length_throws_exception() throws IOException {
+        // given
+        long offset = validJournal(dataFilePath)
+            .recordTestDataProvider()
+            .saveVariable("Test value");
+        var location = new Location(offset, 0, RecordHeader.recordHeaderLength() + 4);
+
+        // when
+        Exception exception = catchException(() -> sut.read(createJournalByteBuffer(64), location));
+
+        // then
+        assertThat(exception)
+            .isInstanceOf(InvalidRecordHeaderException.class)
+            .hasMessageContaining("its location tells 4");
+    }
+
+    @Test
+    void read_record_by_location_with_length_beyond_journal_throws_exception() throws IOException {
+        // given
+        long offset = validJournal(dataFilePath)
+            .recordTestDataProvider()
+            .saveVariable("Test value");
+        var location = new Location(offset, 0, RecordHeader.recordHeaderLength() + 40);
+
+        // when
+        Exception exception = catchException(() -> sut.read(createJournalByteBuffer(64), location));
+
+        // then
+        assertThat(exception)
+            .isInstanceOf(JournalRuntimeIOException.class)
+            .hasCauseInstanceOf(EOFException.class);
+    }
+}
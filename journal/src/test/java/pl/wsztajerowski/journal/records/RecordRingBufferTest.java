@@ -0,0 +1,295 @@
+package pl.wsztajerowski.journal.records;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchException;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class RecordRingBufferTest {
+
+    @Test
+    void offered_buffers_get_consecutive_offsets() {
+        // given
+        var sut = new RecordRingBuffer(4, 8);
+
+        // when
+        long first = sut.offer(ByteBuffer.allocate(10));
+        long second = sut.offer(ByteBuffer.allocate(20));
+        long third = sut.offer(ByteBuffer.allocate(5));
+
+        // then
+        assertThat(List.of(first, second, third))
+            .containsExactly(8L, 18L, 38L);
+        assertThat(sut.claimedPosition())
+            .isEqualTo(43L);
+    }
+
+    @Test
+    void offer_all_splits_batches_longer_than_capacity_into_contiguous_claims() {
+        // given
+        var sut = new RecordRingBuffer(4, 8);
+        ByteBuffer[] batch = new ByteBuffer[6];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = ByteBuffer.allocate(10);
+        }
+        ByteBuffer[] destination = new ByteBuffer[4];
+        CompletableFuture<long[]> offsets = CompletableFuture.supplyAsync(() -> sut.offerAll(batch));
+
+        // when
+        int drained = 0;
+        while (drained < batch.length) {
+            int count = sut.drain(destination, Long.MAX_VALUE);
+            sut.release(count, count * 10L);
+            drained += count;
+        }
+
+        // then
+        assertThat(offsets.join())
+            .containsExactly(8L, 18L, 28L, 38L, 48L, 58L);
+        assertThat(sut.writtenPosition())
+            .isEqualTo(68L);
+    }
+
+    @Test
+    void drain_returns_published_buffers_in_offset_order() {
+        // given
+        var sut = new RecordRingBuffer(4, 0);
+        ByteBuffer first = ByteBuffer.allocate(10);
+        ByteBuffer second = ByteBuffer.allocate(20);
+        sut.offer(first);
+        sut.offer(second);
+        ByteBuffer[] destination = new ByteBuffer[4];
+
+        // when
+        int drained = sut.drain(destination, Long.MAX_VALUE);
+
+        // then
+        assertThat(drained)
+            .isEqualTo(2);
+        assertThat(destination)
+            .startsWith(first, second);
+    }
+
+    @Test
+    void drain_respects_max_bytes_but_always_returns_at_least_one_buffer() {
+        // given
+        var sut = new RecordRingBuffer(4, 0);
+        sut.offer(ByteBuffer.allocate(100));
+        sut.offer(ByteBuffer.allocate(100));
+        ByteBuffer[] destination = new ByteBuffer[4];
+
+        // when
+        int drained = sut.drain(destination, 50);
+
+        // then
+        assertThat(drained)
+            .isEqualTo(1);
+    }
+
+    @Test
+    void released_slots_are_reused_and_written_position_advances() {
+        // given
+        var sut = new RecordRingBuffer(2, 0);
+        ByteBuffer[] destination = new ByteBuffer[2];
+        sut.offer(ByteBuffer.allocate(10));
+        sut.offer(ByteBuffer.allocate(10));
+        sut.release(sut.drain(destination, Long.MAX_VALUE), 20);
+
+        // when
+        long offset = sut.offer(ByteBuffer.allocate(10));
+
+        // then
+        assertThat(offset)
+            .isEqualTo(20L);
+        assertThat(sut.writtenPosition())
+            .isEqualTo(20L);
+        assertThat(sut.isPending(offset))
+            .isTrue();
+        assertThat(sut.isPending(10))
+            .isFalse();
+    }
+
+    @Test
+    void find_returns_pending_buffer_by_offset() {
+        // given
+        var sut = new RecordRingBuffer(4, 0);
+        ByteBuffer expected = ByteBuffer.allocate(20);
+        sut.offer(ByteBuffer.allocate(10));
+        long offset = sut.offer(expected);
+
+        // when
+        ByteBuffer found = sut.find(offset);
+
+        // then
+        assertThat(found)
+            .isSameAs(expected);
+        assertThat(sut.find(5))
+            .isNull();
+    }
+
+    @Test
+    void staged_buffers_are_copies_independent_of_offered_buffers() {
+        // given
+        var sut = new RecordRingBuffer(4, 0, 64);
+        ByteBuffer offered = ByteBuffer.allocate(4).putInt(0, 41);
+        sut.offer(offered);
+        offered.putInt(0, 42);
+        ByteBuffer[] destination = new ByteBuffer[4];
+
+        // when
+        int drained = sut.drain(destination, Long.MAX_VALUE);
+
+        // then
+        assertThat(drained)
+            .isEqualTo(1);
+        assertThat(destination[0])
+            .isNotSameAs(offered);
+        assertThat(destination[0].getInt(0))
+            .isEqualTo(41);
+    }
+
+    @Test
+    void gathered_parts_without_staging_take_consecutive_slots_and_are_not_found_as_pending_record() {
+        // given
+        var sut = new RecordRingBuffer(4, 0);
+        ByteBuffer header = ByteBuffer.allocate(12);
+        ByteBuffer body = ByteBuffer.allocate(20);
+        ByteBuffer[] destination = new ByteBuffer[4];
+
+        // when
+        long offset = sut.offerGathered(new ByteBuffer[]{header, body});
+
+        // then
+        assertThat(sut.find(offset))
+            .isNull();
+        assertThat(sut.drain(destination, Long.MAX_VALUE))
+            .isEqualTo(2);
+        assertThat(destination)
+            .startsWith(header, body);
+        assertThat(sut.claimedPosition())
+            .isEqualTo(32L);
+    }
+
+    @Test
+    void offer_to_full_closed_ring_throws_exception() {
+        // given
+        var sut = new RecordRingBuffer(2, 0);
+        sut.offer(ByteBuffer.allocate(10));
+        sut.offer(ByteBuffer.allocate(10));
+        sut.close();
+
+        // when
+        Exception exception = catchException(() -> sut.offer(ByteBuffer.allocate(10)));
+
+        // then
+        assertThat(exception)
+            .hasMessageContaining("Journal is closed");
+    }
+
+    @Test
+    void producer_that_claimed_before_close_publishes_its_slot() {
+        // given
+        var sut = new RecordRingBuffer(2, 0);
+        sut.offer(ByteBuffer.allocate(10));
+        sut.offer(ByteBuffer.allocate(10));
+        ByteBuffer third = ByteBuffer.allocate(10);
+        CompletableFuture<Long> thirdOffer = CompletableFuture.supplyAsync(() -> sut.offer(third));
+        while (sut.claimedPosition() < 30) {
+            Thread.onSpinWait();
+        }
+        ByteBuffer[] destination = new ByteBuffer[2];
+
+        // when
+        sut.close();
+        sut.release(sut.drain(destination, Long.MAX_VALUE), 20);
+
+        // then
+        assertThat(thirdOffer.join())
+            .isEqualTo(20L);
+        assertThat(sut.isDrained())
+            .isFalse();
+        assertThat(sut.drain(destination, Long.MAX_VALUE))
+            .isEqualTo(1);
+        assertThat(destination[0])
+            .isSameAs(third);
+        sut.release(1, 10);
+        assertThat(sut.isDrained())
+            .isTrue();
+    }
+
+    @Test
+    void producer_waiting_for_slot_of_stopped_ring_gives_up() {
+        // given
+        var sut = new RecordRingBuffer(2, 0);
+        sut.offer(ByteBuffer.allocate(10));
+        sut.offer(ByteBuffer.allocate(10));
+        CompletableFuture<Long> thirdOffer = CompletableFuture.supplyAsync(() -> sut.offer(ByteBuffer.allocate(10)));
+        while (sut.claimedPosition() < 30) {
+            Thread.onSpinWait();
+        }
+
+        // when
+        sut.stop();
+
+        // then
+        assertThat(catchException(thirdOffer::join))
+            .hasMessageContaining("Journal is closed");
+    }
+
+    @Test
+    void concurrent_producers_fill_contiguous_range() throws InterruptedException {
+        // given
+        var sut = new RecordRingBuffer(64, 0);
+        int producers = 4;
+        int recordsPerProducer = 1_000;
+        ConcurrentLinkedQueue<Long> offsets = new ConcurrentLinkedQueue<>();
+        List<ByteBuffer> drained = new ArrayList<>();
+
+        // when
+        try (ExecutorService executor = newFixedThreadPool(producers)) {
+            for (int p = 0; p < producers; p++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < recordsPerProducer; i++) {
+                        offsets.add(sut.offer(ByteBuffer.allocate(1 + i % 7)));
+                    }
+                });
+            }
+            ByteBuffer[] destination = new ByteBuffer[64];
+            while (drained.size() < producers * recordsPerProducer) {
+                int count = sut.drain(destination, Long.MAX_VALUE);
+                long bytes = 0;
+                for (int i = 0; i < count; i++) {
+                    drained.add(destination[i]);
+                    bytes += destination[i].remaining();
+                }
+                sut.release(count, bytes);
+            }
+            executor.shutdown();
+            assertThat(executor.awaitTermination(5, TimeUnit.SECONDS))
+                .isTrue();
+        }
+
+        // then
+        long totalBytes = drained.stream()
+            .mapToLong(ByteBuffer::remaining)
+            .sum();
+        assertThat(sut.writtenPosition())
+            .isEqualTo(totalBytes);
+        assertThat(offsets)
+            .hasSize(producers * recordsPerProducer)
+            .doesNotHaveDuplicates()
+            .allMatch(offset -> offset < totalBytes);
+    }
+}
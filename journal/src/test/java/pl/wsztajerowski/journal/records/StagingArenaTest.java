@@ -0,0 +1,63 @@
+package pl.wsztajerowski.journal.records;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class StagingArenaTest {
+
+    @Test
+    void parts_of_record_are_staged_next_to_each_other_in_arena() {
+        // given
+        StagingArena sut = new StagingArena(16);
+        PositionWatermark writtenPosition = new PositionWatermark(16);
+        ByteBuffer[] parts = {ByteBuffer.wrap("Hello ".getBytes(UTF_8)), ByteBuffer.wrap("World".getBytes(UTF_8))};
+
+        // when
+        ByteBuffer staged = sut.stage(parts, 16, 11, writtenPosition);
+
+        // then
+        assertThat(staged.isDirect())
+            .isTrue();
+        assertThat(UTF_8.decode(staged).toString())
+            .isEqualTo("Hello World");
+    }
+
+    @Test
+    void record_wrapping_past_arena_end_gets_buffer_of_its_own() {
+        // given
+        StagingArena sut = new StagingArena(16);
+        PositionWatermark writtenPosition = new PositionWatermark(12);
+
+        // when
+        ByteBuffer staged = sut.stage(ByteBuffer.wrap("Hello World".getBytes(UTF_8)), 12, writtenPosition);
+
+        // then
+        assertThat(staged.isDirect())
+            .isFalse();
+        assertThat(UTF_8.decode(staged).toString())
+            .isEqualTo("Hello World");
+    }
+
+    @Test
+    void record_larger_than_arena_gets_buffer_of_its_own() {
+        // given
+        StagingArena sut = new StagingArena(8);
+        PositionWatermark writtenPosition = new PositionWatermark(0);
+
+        // when
+        ByteBuffer staged = sut.stage(ByteBuffer.wrap("Hello World".getBytes(UTF_8)), 0, writtenPosition);
+
+        // then
+        assertThat(staged.isDirect())
+            .isFalse();
+        assertThat(UTF_8.decode(staged).toString())
+            .isEqualTo("Hello World");
+    }
+}
@@ -1,6 +1,6 @@
 package pl.wsztajerowski;
 
-class Exchange<REQ, RES> {
+public class Exchange<REQ, RES> {
     public REQ request;
     public RES response;
 
@@ -2,16 +2,20 @@ package pl.wsztajerowski;
 
 import org.jctools.queues.MpscArrayQueue;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 
 public class InnerBatch<REQ, RES> {
     static int BATCH_SIZE = 1024; // Define batch size
      final MpscArrayQueue<Exchange<REQ, RES>> content;
      final CountDownLatch doneSignal;
+     final CompletableFuture<Void> completion;
     private volatile boolean batchFinalized;
+    private volatile RuntimeException failure;
 
     InnerBatch() {
         this.doneSignal = new CountDownLatch(1);
+        this.completion = new CompletableFuture<>();
         batchFinalized = false;
         content = new MpscArrayQueue<>(BATCH_SIZE);
     }
@@ -22,6 +26,18 @@ public class InnerBatch<REQ, RES> {
 
     public void sendDoneSignal() {
         doneSignal.countDown();
+        completion.complete(null);
+    }
+
+    // releases the producers with the processor's failure instead of a response
+    public void sendFailure(RuntimeException failure) {
+        this.failure = failure;
+        doneSignal.countDown();
+        completion.completeExceptionally(failure);
+    }
+
+    public RuntimeException getFailure() {
+        return failure;
     }
 
     public Exchange<REQ, RES>[] getBatchContent() {
@@ -36,6 +52,10 @@ public class InnerBatch<REQ, RES> {
         return doneSignal;
     }
 
+    public CompletableFuture<Void> getCompletion() {
+        return completion;
+    }
+
     public CountDownLatch offer(Exchange<REQ, RES> content) {
         if (!batchFinalized && this.content.offer(content)) {
             return doneSignal;
@@ -1,5 +1,7 @@
 package pl.wsztajerowski;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -10,7 +12,7 @@ import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
 
-class MPSCFramework<REQ, RES> implements AutoCloseable {
+public class MPSCFramework<REQ, RES> implements AutoCloseable {
 
     private final AtomicReference<InnerBatch<REQ, RES>> currentBatchReference = new AtomicReference<>(new InnerBatch<>());
     private final ExecutorService consumerExecutor = Executors.newSingleThreadExecutor();
@@ -53,9 +55,15 @@ class MPSCFramework<REQ, RES> implements AutoCloseable {
         return this;
     }
 
+    // a processor failure is handed to every producer of the batch, and the consumer goes on with the next batches
     private void processBatch(InnerBatch<REQ, RES> polledBatch) {
-        Exchange<REQ, RES>[] batchContent = polledBatch.getBatchContent();
-        processor.accept(batchContent);
+        try {
+            Exchange<REQ, RES>[] batchContent = polledBatch.getBatchContent();
+            processor.accept(batchContent);
+        } catch (RuntimeException e) {
+            polledBatch.sendFailure(e);
+            return;
+        }
         polledBatch.sendDoneSignal();
     }
 
@@ -81,10 +89,33 @@ class MPSCFramework<REQ, RES> implements AutoCloseable {
                 // tu jestesmy juz poza lockiem
                 try {
                     doneSignal.await();
-                    return exchange.response;
                 } catch (InterruptedException e) {
                     throw new RuntimeException(e);
                 }
+                if (batch.getFailure() != null) {
+                    // same wrapping as produceAsync(request).join()
+                    throw new CompletionException(batch.getFailure());
+                }
+                return exchange.response;
+            }
+        }
+    }
+
+    public CompletableFuture<RES> produceAsync(REQ request) {
+        Exchange<REQ, RES> exchange = new Exchange<>(request);
+        while (true) {
+            var batch = currentBatchReference.get();
+            if (!batch.isBatchFinalized()) {
+                lock.readLock().lock();
+                try {
+                    if (batch.isBatchFinalized() || batch.offer(exchange) == null) {
+                        continue;
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+                return batch.getCompletion()
+                    .thenApply(done -> exchange.response);
             }
         }
     }
@@ -2,11 +2,15 @@ package pl.wsztajerowski;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class MPSCFrameworkTest {
 
@@ -38,6 +42,32 @@ class MPSCFrameworkTest {
 //        System.out.println("Consumer counter:" + atomicInteger.get());
     }
 
+    @Test
+    void failingBatchFailsItsProducersAndLaterBatchesAreProcessed() throws Exception {
+        MPSCFramework<Integer, Integer> mpsc = MPSCFramework.create(wrappers -> {
+            for (Exchange<Integer, Integer> wrapper : wrappers) {
+                if (wrapper.request < 0) {
+                    throw new IllegalStateException("Failing batch");
+                }
+                wrapper.response = wrapper.request + 1;
+            }
+        });
+        try {
+            assertThatThrownBy(() -> mpsc.produceAsync(-1).get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> mpsc.produce(-2))
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+            assertThat(mpsc.produceAsync(2).get(5, TimeUnit.SECONDS))
+                .isEqualTo(3);
+            assertThat(mpsc.produce(3))
+                .isEqualTo(4);
+        } finally {
+            mpsc.close();
+        }
+    }
+
     private static MPSCFramework<Integer, Integer> getFramework() {
         MPSCFramework<Integer, Integer> mpsc = new MPSCFramework<>(wrappers -> {
             for (Exchange<Integer, Integer> wrapper : wrappers) {